@@ -0,0 +1,10 @@
+package com.example.pharmacy.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs (@Scheduled), e.g. the expired-OTP purge
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
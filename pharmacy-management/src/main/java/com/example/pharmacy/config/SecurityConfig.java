@@ -1,8 +1,11 @@
 package com.example.pharmacy.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -18,8 +21,14 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.example.pharmacy.security.ApiKeyAuthFilter;
+import com.example.pharmacy.security.AppPermissionEvaluator;
 import com.example.pharmacy.security.AuthEntryPointJwt;
 import com.example.pharmacy.security.AuthTokenFilter;
+import com.example.pharmacy.security.BoundedPasswordEncoder;
+import com.example.pharmacy.security.RateLimitFilter;
+import com.example.pharmacy.security.TokenBucketRateLimiter;
+import com.example.pharmacy.service.ApiKeyRegistry;
 import com.example.pharmacy.service.UserDetailsServiceImpl;
 
 import java.util.Arrays;
@@ -41,10 +50,10 @@ public class SecurityConfig {
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -53,13 +62,38 @@ public class SecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
+    // BCrypt off the request threads: bounded pool, bounded queue, fail fast when full
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${pharmacy.security.bcrypt.strength:10}") int strength,
+            @Value("${pharmacy.security.hashing.threads:0}") int threads,
+            @Value("${pharmacy.security.hashing.queue-capacity:32}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity);
     }
 
+    // Throttles login, OTP, password reset and search ahead of authentication (429 when exceeded)
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public RateLimitFilter rateLimitFilter(
+            @Value("${pharmacy.rate-limit.max-keys:100000}") int maxKeys,
+            @Value("${pharmacy.rate-limit.auth-per-ip.capacity:20}") int authPerIpCapacity,
+            @Value("${pharmacy.rate-limit.auth-per-ip.per-minute:20}") double authPerIpPerMinute,
+            @Value("${pharmacy.rate-limit.auth-per-account.capacity:5}") int authPerAccountCapacity,
+            @Value("${pharmacy.rate-limit.auth-per-account.per-minute:5}") double authPerAccountPerMinute,
+            @Value("${pharmacy.rate-limit.search-per-ip.capacity:60}") int searchCapacity,
+            @Value("${pharmacy.rate-limit.search-per-ip.per-minute:600}") double searchPerMinute) {
+        return new RateLimitFilter(new TokenBucketRateLimiter(maxKeys),
+                new TokenBucketRateLimiter.Limit(authPerIpCapacity, authPerIpPerMinute / 60),
+                new TokenBucketRateLimiter.Limit(authPerAccountCapacity, authPerAccountPerMinute / 60),
+                new TokenBucketRateLimiter.Limit(searchCapacity, searchPerMinute / 60));
+    }
+
+    @Bean
+    public SecurityFilterChain filterChain(HttpSecurity http, RateLimitFilter rateLimitFilter,
+            ApiKeyRegistry apiKeyRegistry,
+            @Value("${pharmacy.api-keys.max-body-bytes:1048576}") int apiKeyMaxBodyBytes) throws Exception {
+        // Not a bean, so it only runs inside the security chain, where the context it sets is kept
+        ApiKeyAuthFilter apiKeyAuthFilter = new ApiKeyAuthFilter(apiKeyRegistry, apiKeyMaxBodyBytes);
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
@@ -67,7 +101,7 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/users/login", "/api/users/login-password", "/api/users/verify-otp",
-                                "/api/users/initiate-login", "/api/users/logout", "/api/users/register",
+                                "/api/users/initiate-login", "/api/users/logout", "/api/users/refresh", "/api/users/register",
                                 "/swagger-ui/**", "/v3/api-docs/**", "/actuator/**")
                         .permitAll()
                         .requestMatchers("/api/users").permitAll() // Allow unauthenticated access to GET /api/users
@@ -78,11 +112,21 @@ public class SecurityConfig {
                         .requestMatchers("/api/users/**").authenticated() // Require authentication for other /api/users
                                                                           // endpoints
                         .anyRequest().authenticated())
-                .addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, AuthTokenFilter.class)
+                .addFilterAfter(apiKeyAuthFilter, RateLimitFilter.class);
 
         return http.build();
     }
 
+    // hasPermission(null, 'PRODUCT_UPDATE') in @PreAuthorize checks the compiled permission masks
+    @Bean
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler(AppPermissionEvaluator permissionEvaluator) {
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        handler.setPermissionEvaluator(permissionEvaluator);
+        return handler;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,71 @@
+package com.example.pharmacy.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.pharmacy.dto.ApiKeyDTO;
+import com.example.pharmacy.service.ApiKeyService;
+
+@RestController
+@RequestMapping("/api/api-keys")
+public class ApiKeyController {
+
+    // Only a logged-in user may manage keys; a request authenticated by an API key is refused
+    private static final String KEY_MANAGER = "hasPermission(null, 'API_KEY_MANAGE')"
+        + " and principal instanceof T(com.example.pharmacy.service.UserDetailsImpl)";
+
+    private final ApiKeyService apiKeyService;
+
+    @Autowired
+    public ApiKeyController(ApiKeyService apiKeyService) {
+        this.apiKeyService = apiKeyService;
+    }
+
+    @GetMapping
+    @PreAuthorize(KEY_MANAGER)
+    public ResponseEntity<List<ApiKeyDTO>> getAllKeys() {
+        return ResponseEntity.ok(apiKeyService.getAllKeys());
+    }
+
+    // The response carries the secret; it cannot be retrieved again
+    @PostMapping
+    @PreAuthorize(KEY_MANAGER)
+    public ResponseEntity<?> createKey(@RequestBody CreateApiKeyRequest request) {
+        try {
+            ApiKeyDTO created = apiKeyService.createKey(request.getName(), request.getTerminalId(), request.getRole());
+            return new ResponseEntity<>(created, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize(KEY_MANAGER)
+    public ResponseEntity<?> deactivateKey(@PathVariable Long id) {
+        try {
+            apiKeyService.deactivateKey(id);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    public static class CreateApiKeyRequest {
+        private String name;
+        private String terminalId;
+        private String role;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getTerminalId() { return terminalId; }
+        public void setTerminalId(String terminalId) { this.terminalId = terminalId; }
+        public String getRole() { return role; }
+        public void setRole(String role) { this.role = role; }
+    }
+}
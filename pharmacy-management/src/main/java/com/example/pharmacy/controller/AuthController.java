@@ -29,6 +29,7 @@ import com.example.pharmacy.payload.response.MessageResponse;
 import com.example.pharmacy.repository.RoleRepository;
 import com.example.pharmacy.repository.UserRepository;
 import com.example.pharmacy.security.JwtUtils;
+import com.example.pharmacy.service.RefreshTokenService;
 import com.example.pharmacy.service.UserDetailsImpl;
 
 
@@ -51,6 +52,9 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    RefreshTokenService refreshTokenService;
+
     @PostMapping("/signin")
     public ResponseEntity<?> authenticateUser(@Validated @RequestBody LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
@@ -64,14 +68,16 @@ public class AuthController {
                 .map(item -> item.getAuthority())
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(new JwtResponse(jwt,
+        JwtResponse response = new JwtResponse(jwt,
                 userDetails.getId(),
                 userDetails.getUsername(),
                 userDetails.getEmail(),
                 roles,
                 userDetails.getFullName(),
                 userDetails.getPhoneNumber(),
-                userDetails.isActive()));
+                userDetails.isActive());
+        response.setRefreshToken(refreshTokenService.issue(userDetails.getId()).token());
+        return ResponseEntity.ok(response);
     }
 
     @PostMapping("/signup")
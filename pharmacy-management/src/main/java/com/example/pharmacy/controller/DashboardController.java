@@ -12,19 +12,19 @@ import org.springframework.web.bind.annotation.RestController;
 public class DashboardController {
     
     @GetMapping("/admin")
-    @PreAuthorize("hasRole('ADMIN')")
+    @PreAuthorize("hasPermission(null, 'REPORT_SALES') and hasPermission(null, 'USER_UPDATE')")
     public String adminDashboard() {
         return "Admin Dashboard Content";
     }
     
     @GetMapping("/pharmacist")
-    @PreAuthorize("hasRole('PHARMACIST')")
+    @PreAuthorize("hasPermission(null, 'REPORT_STOCK')")
     public String pharmacistDashboard() {
         return "Pharmacist Dashboard Content";
     }
     
     @GetMapping("/user-info")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('PHARMACIST')")
+    @PreAuthorize("hasPermission(null, 'USER_READ')")
     public String userInfo() {
         return "User Information Content";
     }
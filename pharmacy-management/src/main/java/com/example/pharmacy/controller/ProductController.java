@@ -1,28 +1,53 @@
 package com.example.pharmacy.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import com.example.pharmacy.entity.Product;
+import com.example.pharmacy.entity.ProductPriceHistory;
 import com.example.pharmacy.entity.Supplier;
+import com.example.pharmacy.service.ProductBulkService;
+import com.example.pharmacy.service.ProductRepricingService;
 import com.example.pharmacy.service.ProductService;
+import com.example.pharmacy.dto.BulkUpsertResultDTO;
+import com.example.pharmacy.dto.PriceAdjustmentDTO;
+import com.example.pharmacy.dto.ProductAvailabilityDTO;
 import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.ProductField;
+import com.example.pharmacy.dto.ProductPageDTO;
+import com.example.pharmacy.dto.RepriceResultDTO;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_IDS = 1000;
+
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final ProductRepricingService repricingService;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductBulkService productBulkService,
+                             ProductRepricingService repricingService) {
         this.productService = productService;
+        this.productBulkService = productBulkService;
+        this.repricingService = repricingService;
     }
 
     @GetMapping(produces = "application/json")
@@ -38,27 +63,96 @@ public class ProductController {
         }
     }
 
+    // Multi-get: /api/products?ids=3,1,2 returns the found products in that order
+    @GetMapping(params = "ids", produces = "application/json")
+    public ResponseEntity<?> getProductsByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_IDS) {
+            return new ResponseEntity<>(Map.of("error", "At most " + MAX_IDS + " ids per request"),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(productService.getProductsByIds(ids), HttpStatus.OK);
+    }
+
+    // fields=name,price returns only those keys; without it the full ProductDTO
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-                .map(product -> new ResponseEntity<>(product, HttpStatus.OK))
-                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    public ResponseEntity<?> getProductById(@PathVariable Long id,
+            @RequestParam(required = false) String fields) {
+        if (fields == null) {
+            return productService.getProductDTOById(id)
+                    .<ResponseEntity<?>>map(product -> new ResponseEntity<>(product, HttpStatus.OK))
+                    .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
+        try {
+            Set<ProductField> selected = ProductField.parse(fields);
+            return productService.getProductFieldsById(id, selected)
+                    .<ResponseEntity<?>>map(product -> new ResponseEntity<>(product, HttpStatus.OK))
+                    .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String keyword) {
-        List<Product> products = productService.searchProducts(keyword);
+    public ResponseEntity<?> searchProducts(@RequestParam String keyword,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String fields) {
+        try {
+            Set<ProductField> selected = fields != null ? ProductField.parse(fields) : null;
+            List<ProductDTO> products = productService.searchProducts(keyword, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+            if (selected == null) {
+                return new ResponseEntity<>(products, HttpStatus.OK);
+            }
+            // Hits are cached snapshots already, so trimming happens in memory
+            List<Map<String, Object>> rows = products.stream()
+                    .map(product -> ProductField.project(product, selected))
+                    .collect(Collectors.toList());
+            return new ResponseEntity<>(rows, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<ProductDTO>> typeahead(@RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<ProductDTO> products = productService.typeahead(prefix, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
         return new ResponseEntity<>(products, HttpStatus.OK);
     }
 
+    // Products with sellable quantity, nearest expiry and batch count, for the POS screen
+    @GetMapping("/availability")
+    public ResponseEntity<Slice<ProductAvailabilityDTO>> getProductAvailability(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean inStockOnly) {
+        Slice<ProductAvailabilityDTO> availability = productService.getProductAvailability(Math.max(0, page),
+                Math.max(1, Math.min(size, MAX_PAGE_SIZE)), inStockOnly);
+        return new ResponseEntity<>(availability, HttpStatus.OK);
+    }
+
+    // Keyset-paginated price band; sort=asc|desc by price, pass nextCursor back as cursor=
     @GetMapping("/price-range")
-    public ResponseEntity<List<Product>> getProductsByPriceRange(
+    public ResponseEntity<?> getProductsByPriceRange(
             @RequestParam BigDecimal min,
-            @RequestParam BigDecimal max) {
-        List<Product> products = productService.getProductByPriceRange(min, max);
-        return new ResponseEntity<>(products, HttpStatus.OK);
+            @RequestParam BigDecimal max,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        try {
+            if (!sort.equalsIgnoreCase("asc") && !sort.equalsIgnoreCase("desc")) {
+                throw new IllegalArgumentException("sort must be asc or desc");
+            }
+            Set<ProductField> selected = fields != null ? ProductField.parse(fields) : null;
+            ProductPageDTO page = productService.getProductsByPriceRange(min, max, sort.equalsIgnoreCase("desc"),
+                    cursor, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), selected);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
     }
 
+    @PreAuthorize("hasPermission(null, 'PRODUCT_CREATE')")
     @PostMapping(consumes = "application/json", produces = "application/json")
     public ResponseEntity<?> createProduct(@RequestBody ProductDTO productDTO) {
         try {
@@ -90,6 +184,66 @@ public class ProductController {
         }
     }
 
+    // Upsert by name + dosage + manufacturer; rows that fail validation are reported and skipped
+    @PreAuthorize("hasPermission(null, 'PRODUCT_CREATE')")
+    @PostMapping(value = "/bulk", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<?> bulkUpsertProducts(@RequestBody List<ProductDTO> products) {
+        try {
+            return new ResponseEntity<>(productBulkService.upsert(products), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Same as above from a CSV body with a header row, parsed as it streams in
+    @PreAuthorize("hasPermission(null, 'PRODUCT_CREATE')")
+    @PostMapping(value = "/bulk", consumes = "text/csv", produces = "application/json")
+    public ResponseEntity<?> bulkUpsertProductsCsv(InputStream body) {
+        try {
+            BulkUpsertResultDTO result = productBulkService.upsertCsv(
+                    new InputStreamReader(body, StandardCharsets.UTF_8));
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (IOException e) {
+            return new ResponseEntity<>(Map.of("error", "Failed to read CSV: " + e.getMessage()),
+                    HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Explicit new prices: [{"productId": 1, "price": 4.20}, ...]
+    @PreAuthorize("hasPermission(null, 'PRODUCT_UPDATE')")
+    @PostMapping(value = "/prices", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<?> setPrices(@RequestBody List<ProductDTO> prices) {
+        try {
+            RepriceResultDTO result = repricingService.setPrices(prices);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Percentage change for one supplier and/or manufacturer
+    @PreAuthorize("hasPermission(null, 'PRODUCT_UPDATE')")
+    @PostMapping(value = "/prices/adjust", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<?> adjustPrices(@RequestBody PriceAdjustmentDTO adjustment) {
+        try {
+            RepriceResultDTO result = repricingService.adjustPrices(adjustment);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/{id}/price-history")
+    public ResponseEntity<List<ProductPriceHistory>> getPriceHistory(@PathVariable Long id,
+            @RequestParam(defaultValue = "50") int limit) {
+        List<ProductPriceHistory> history = repricingService.getPriceHistory(id,
+                Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return new ResponseEntity<>(history, HttpStatus.OK);
+    }
+
+    @PreAuthorize("hasPermission(null, 'PRODUCT_UPDATE')")
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody ProductUpdateRequest request) {
         try {
@@ -100,6 +254,7 @@ public class ProductController {
             product.setManufacturer(request.getManufacturer());
             product.setDosage(request.getDosage());
             product.setPrice(request.getPrice() != null ? request.getPrice() : BigDecimal.ZERO); // Handle null
+            product.setBarcode(request.getBarcode());
 
             // Handle supplier
             if (request.getSupplierId() != null) {
@@ -118,6 +273,7 @@ public class ProductController {
         }
     }
 
+    @PreAuthorize("hasPermission(null, 'PRODUCT_DELETE')")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
         try {
@@ -134,6 +290,7 @@ public class ProductController {
         private String manufacturer;
         private String dosage;
         private BigDecimal price;
+        private String barcode;
 
         @JsonProperty("supplierId")
         private Long supplierId;
@@ -178,6 +335,14 @@ public class ProductController {
             this.price = price;
         }
 
+        public String getBarcode() {
+            return barcode;
+        }
+
+        public void setBarcode(String barcode) {
+            this.barcode = barcode;
+        }
+
         public Long getSupplierId() {
             return supplierId;
         }
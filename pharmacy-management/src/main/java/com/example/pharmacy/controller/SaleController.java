@@ -1,6 +1,7 @@
 package com.example.pharmacy.controller;
 
 import com.example.pharmacy.dto.SaleDTO;
+import com.example.pharmacy.dto.SaleSummaryDTO;
 import com.example.pharmacy.service.SaleService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +19,7 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:5173")
 public class SaleController {
     private static final Logger logger = LoggerFactory.getLogger(SaleController.class);
+    private static final int MAX_IDS = 1000;
 
     private final SaleService saleService;
 
@@ -42,6 +44,36 @@ public class SaleController {
 
 
 
+    // Multi-get: /api/sales?ids=3,1,2 returns the found sales, with their lines, in that order
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getSalesByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_IDS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_IDS + " ids per request"));
+        }
+        try {
+            logger.info("Fetching {} sales by id", ids.size());
+            return ResponseEntity.ok(saleService.getSalesByIds(ids));
+        } catch (Exception e) {
+            logger.error("Error fetching sales by id: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error fetching sales: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<SaleSummaryDTO>> searchSalesByProduct(@RequestParam String product,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            logger.info("Searching sales by product: {}", product);
+            if (product.trim().isEmpty()) {
+                return ResponseEntity.ok(List.of());
+            }
+            return ResponseEntity.ok(saleService.searchSalesByProductName(product.trim(), Math.max(1, Math.min(limit, 100))));
+        } catch (Exception e) {
+            logger.error("Error searching sales by product {}: {}", product, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     @GetMapping("/date-range")
     public ResponseEntity<List<SaleDTO>> getSalesByDateRange(
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
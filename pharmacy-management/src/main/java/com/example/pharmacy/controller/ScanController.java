@@ -0,0 +1,36 @@
+package com.example.pharmacy.controller;
+
+import com.example.pharmacy.dto.ScanResultDTO;
+import com.example.pharmacy.service.ScanService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/scan")
+public class ScanController {
+    private final ScanService scanService;
+
+    @Autowired
+    public ScanController(ScanService scanService) {
+        this.scanService = scanService;
+    }
+
+    // Product or batch barcode -> product, price, sellable quantity and the batch to sell from
+    @GetMapping("/{code}")
+    public ResponseEntity<?> scan(@PathVariable String code) {
+        try {
+            Optional<ScanResultDTO> result = scanService.scan(code);
+            if (result.isEmpty()) {
+                return new ResponseEntity<>(Map.of("error", "No product with barcode " + code), HttpStatus.NOT_FOUND);
+            }
+            return ResponseEntity.ok(result.get());
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.pharmacy.controller;
 
-import com.example.pharmacy.dto.SearchResultDTO;
+import com.example.pharmacy.dto.SearchResponseDTO;
 import com.example.pharmacy.service.SearchService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,31 +9,36 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/search")
 @CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true") // Match SecurityConfig
 public class SearchController {
     private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_PER_TYPE = 50;
 
     @Autowired
     private SearchService searchService;
 
     @GetMapping
-    @PreAuthorize("hasAnyRole('ROLE_PHARMACIST', 'ROLE_STAFF')") // Require authentication
-    public ResponseEntity<List<SearchResultDTO>> search(@RequestParam String query) {
+    @PreAuthorize("hasPermission(null, 'PRODUCT_READ')")
+    public ResponseEntity<SearchResponseDTO> search(@RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "10") int perType) {
         try {
             logger.info("Received search request with query: {}", query);
             if (query == null || query.trim().isEmpty()) {
-                return ResponseEntity.ok(List.of());
+                return ResponseEntity.ok(new SearchResponseDTO());
             }
-            List<SearchResultDTO> results = searchService.search(query);
-            logger.info("Found {} search results", results.size());
-            return ResponseEntity.ok(results);
+            SearchResponseDTO response = searchService.search(query.trim(), cursor,
+                Math.max(1, Math.min(limit, MAX_LIMIT)), Math.max(1, Math.min(perType, MAX_PER_TYPE)));
+            logger.info("Found {} search results{}", response.getResults().size(),
+                response.isPartial() ? " (partial, missing " + response.getIncompleteSources() + ")" : "");
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error during search: {}", e.getMessage());
-            return ResponseEntity.badRequest().body(List.of());
+            return ResponseEntity.badRequest().body(new SearchResponseDTO());
         }
     }
 }
\ No newline at end of file
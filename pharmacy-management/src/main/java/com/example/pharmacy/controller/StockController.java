@@ -15,6 +15,7 @@ import java.util.List;
 @RequestMapping("/api/stocks")
 public class StockController {
     private static final Logger logger = LoggerFactory.getLogger(StockController.class);
+    private static final int MAX_IDS = 1000;
 
     private final StockService stockService;
 
@@ -34,6 +35,20 @@ public class StockController {
         }
     }
 
+    // Multi-get: /api/stocks?ids=3,1,2 returns the found stocks in that order
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<StockDTO>> getStocksByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_IDS) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        try {
+            return ResponseEntity.ok(stockService.getStocksByIds(ids));
+        } catch (Exception e) {
+            logger.error("Error fetching stocks {}: {}", ids, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<StockDTO> getStockById(@PathVariable Long id) {
         try {
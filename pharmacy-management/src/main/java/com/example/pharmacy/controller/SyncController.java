@@ -0,0 +1,31 @@
+package com.example.pharmacy.controller;
+
+import com.example.pharmacy.dto.SyncResponseDTO;
+import com.example.pharmacy.service.SyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+    private final SyncService syncService;
+
+    @Autowired
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    // Terminals start with since=0 (full snapshot) and then pass back the returned version
+    @GetMapping
+    public ResponseEntity<?> sync(@RequestParam(defaultValue = "0") long since) {
+        try {
+            SyncResponseDTO changes = syncService.getChangesSince(since);
+            return ResponseEntity.ok(changes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -16,12 +16,18 @@ import org.springframework.web.bind.annotation.*;
 
 import com.example.pharmacy.entity.User;
 import com.example.pharmacy.security.JwtUtils;
+import com.example.pharmacy.service.RefreshTokenService;
+import com.example.pharmacy.service.TokenRevocationList;
+import com.example.pharmacy.service.UserDetailsImpl;
 import com.example.pharmacy.service.UserDetailsServiceImpl;
 import com.example.pharmacy.service.UserService;
 
+import io.jsonwebtoken.Claims;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -31,6 +37,8 @@ public class UserController {
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
     private final UserDetailsServiceImpl userDetailsService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList tokenRevocationList;
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
     @Autowired
@@ -38,11 +46,15 @@ public class UserController {
             UserService userService,
             AuthenticationManager authenticationManager,
             JwtUtils jwtUtils,
-            UserDetailsServiceImpl userDetailsService) {
+            UserDetailsServiceImpl userDetailsService,
+            RefreshTokenService refreshTokenService,
+            TokenRevocationList tokenRevocationList) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     @PostMapping
@@ -64,13 +76,13 @@ public class UserController {
     }
 
     @GetMapping
-    @PreAuthorize("permitAll()")
+    @PreAuthorize("hasPermission(null, 'USER_READ')")
     public ResponseEntity<List<User>> getAllUsers() {
         return ResponseEntity.ok(userService.getAllUsers());
     }
 
     @GetMapping("/{id}")
-    @PreAuthorize("permitAll()")
+    @PreAuthorize("hasPermission(null, 'USER_READ')")
     public ResponseEntity<User> getUserById(@PathVariable Long id) {
         return userService.getUserById(id)
                 .map(ResponseEntity::ok)
@@ -78,7 +90,7 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    @PreAuthorize("permitAll()")
+    @PreAuthorize("hasPermission(null, 'USER_UPDATE')")
     public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User user) {
         user.setId(id);
         try {
@@ -90,7 +102,7 @@ public class UserController {
     }
 
     @DeleteMapping("/{id}")
-    @PreAuthorize("permitAll()")
+    @PreAuthorize("hasPermission(null, 'USER_DELETE')")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         try {
             userService.deleteUser(id);
@@ -114,7 +126,7 @@ public class UserController {
     }
 
     @PutMapping("/{id}/role")
-    @PreAuthorize("permitAll()")
+    @PreAuthorize("hasPermission(null, 'USER_UPDATE')")
     public ResponseEntity<User> updateUserRole(
             @PathVariable Long id,
             @RequestBody RoleUpdateRequest request) {
@@ -133,6 +145,9 @@ public class UserController {
             String response = userService.initiateLogin(request);
             return ResponseEntity.ok(new MessageResponse(response));
         } catch (RuntimeException e) {
+            if (isHashingBusy(e)) {
+                return busy();
+            }
             return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
         }
     }
@@ -150,14 +165,19 @@ public ResponseEntity<?> loginWithPassword(@RequestBody LoginRequest request) {
         // Load user details by email
         UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
         String jwt = jwtUtils.generateJwtToken(authentication);
+        String refreshToken = refreshTokenService.issue(((UserDetailsImpl) authentication.getPrincipal()).getId()).token();
 
         return ResponseEntity.ok(new JwtResponse(
             jwt,
+            refreshToken,
             userDetails.getUsername(),
             userDetails.getAuthorities(),
             userService.getUserByEmail(request.getEmail())
         ));
     } catch (Exception e) {
+        if (isHashingBusy(e)) {
+            return busy();
+        }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
             .body(new MessageResponse("Invalid email or password"));
     }
@@ -175,16 +195,34 @@ public ResponseEntity<?> loginWithPassword(@RequestBody LoginRequest request) {
             SecurityContextHolder.getContext().setAuthentication(authentication);
             logger.info("Email/Password validated for email: {}", request.getEmail());
 
-            // Generate and send OTP
-            String message = userService.initiateLogin(request);
+            // Generate and send OTP; the password was verified just above
+            String message = userService.sendLoginOtp(request.getEmail());
             return ResponseEntity.ok(new MessageResponse(message));
         } catch (Exception e) {
             logger.error("Error during initiate-login for email: {}, error: {}", request.getEmail(), e.getMessage());
+            if (isHashingBusy(e)) {
+                return busy();
+            }
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(new MessageResponse("Invalid email or password"));
         }
     }
 
+    // The password hashing pool refused the call (see BoundedPasswordEncoder)
+    private static boolean isHashingBusy(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity<MessageResponse> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body(new MessageResponse("Too many concurrent logins, please retry shortly"));
+    }
+
     @PostMapping("/verify-otp")
     @PreAuthorize("permitAll()")
     public ResponseEntity<?> verifyOtp(@RequestBody OtpVerificationRequest request) {
@@ -193,9 +231,11 @@ public ResponseEntity<?> loginWithPassword(@RequestBody LoginRequest request) {
             UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
             Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
             String jwt = jwtUtils.generateJwtToken(authentication);
+            String refreshToken = refreshTokenService.issue(user.getId()).token();
 
             return ResponseEntity.ok(new JwtResponse(
                 jwt,
+                refreshToken,
                 userDetails.getUsername(),
                 userDetails.getAuthorities(),
                 user
@@ -205,6 +245,49 @@ public ResponseEntity<?> loginWithPassword(@RequestBody LoginRequest request) {
         }
     }
 
+    // Trades a refresh token for a new access token and the refresh token's successor
+    @PostMapping("/refresh")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        try {
+            RefreshTokenService.Issued issued = refreshTokenService.rotate(request.getRefreshToken());
+            User user = userService.getUserById(issued.userId())
+                .filter(User::isActive)
+                .orElseThrow(() -> new RuntimeException("User no longer active"));
+            UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(user.getEmail());
+            String jwt = jwtUtils.generateJwtToken(userDetails);
+
+            return ResponseEntity.ok(new JwtResponse(
+                jwt,
+                issued.token(),
+                userDetails.getUsername(),
+                userDetails.getAuthorities(),
+                user
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(new MessageResponse("Invalid refresh token"));
+        }
+    }
+
+    // Revokes the presented access token and, when given, the refresh token's whole chain
+    @PostMapping("/logout")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                    @RequestBody(required = false) RefreshRequest request) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            Claims claims = jwtUtils.getValidClaims(authorization.substring(7));
+            if (claims != null) {
+                tokenRevocationList.revokeToken(claims.getId(), claims.getExpiration());
+            }
+        }
+        if (request != null && request.getRefreshToken() != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok(new MessageResponse("Logged out"));
+    }
+
     @PostMapping("/forgot-password")
     public ResponseEntity<?> forgotPassword(@RequestBody ForgotPasswordRequest request) {
         try {
@@ -269,6 +352,13 @@ public ResponseEntity<?> loginWithPassword(@RequestBody LoginRequest request) {
         public void setOtp(String otp) { this.otp = otp; }
     }
 
+    public static class RefreshRequest {
+        private String refreshToken;
+
+        public String getRefreshToken() { return refreshToken; }
+        public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+    }
+
     public static class PasswordChangeRequest {
         private String currentPassword;
         private String newPassword;
@@ -310,18 +400,22 @@ public ResponseEntity<?> loginWithPassword(@RequestBody LoginRequest request) {
 
     public static class JwtResponse {
         private String token;
+        private String refreshToken;
         private String username;
         private Collection<? extends GrantedAuthority> roles;
         private User user;
 
-        public JwtResponse(String token, String username, Collection<? extends GrantedAuthority> roles, User user) {
+        public JwtResponse(String token, String refreshToken, String username,
+                           Collection<? extends GrantedAuthority> roles, User user) {
             this.token = token;
+            this.refreshToken = refreshToken;
             this.username = username;
             this.roles = roles;
             this.user = user;
         }
 
         public String getToken() { return token; }
+        public String getRefreshToken() { return refreshToken; }
         public String getUsername() { return username; }
         public Collection<? extends GrantedAuthority> getRoles() { return roles; }
         public User getUser() { return user; }
@@ -0,0 +1,21 @@
+package com.example.pharmacy.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+
+@Data
+public class ApiKeyDTO {
+    private Long id;
+    private String keyId;
+    // Only present in the response that creates the key
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String secret;
+    private String name;
+    private String terminalId;
+    private String role;
+    private boolean active;
+    private LocalDateTime createdAt;
+}
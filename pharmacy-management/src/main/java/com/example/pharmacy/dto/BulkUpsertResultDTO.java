@@ -0,0 +1,14 @@
+package com.example.pharmacy.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class BulkUpsertResultDTO {
+    private int inserted;
+    private int updated;
+    private int unchanged; // matched an existing product with identical values, nothing written
+    private List<String> errors = new ArrayList<>(); // "Row 3: ..." for rows that were skipped
+}
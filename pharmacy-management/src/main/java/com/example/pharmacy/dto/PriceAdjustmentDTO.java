@@ -0,0 +1,12 @@
+package com.example.pharmacy.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+@Data
+public class PriceAdjustmentDTO {
+    private Long supplierId; // at least one of supplierId / manufacturer is required
+    private String manufacturer; // matched case-insensitively
+    private BigDecimal percent; // e.g. 7.5 raises by 7.5%, -10 lowers by 10%
+}
@@ -0,0 +1,96 @@
+package com.example.pharmacy.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class ProductAvailabilityDTO {
+    private Long productId;
+    private String name;
+    private String genericName;
+    private String dosage;
+    private BigDecimal price;
+    private long sellableQuantity; // units in non-expired batches
+    private LocalDate nearestExpiry; // earliest expiry among sellable batches; null if none expire
+    private long batchCount; // sellable batches
+
+    // Default constructor
+    public ProductAvailabilityDTO() {}
+
+    // Used by the POS aggregate query; SUM is null for a product without sellable batches
+    public ProductAvailabilityDTO(Long productId, String name, String genericName, String dosage, BigDecimal price,
+                                  Long sellableQuantity, LocalDate nearestExpiry, Long batchCount) {
+        this.productId = productId;
+        this.name = name;
+        this.genericName = genericName;
+        this.dosage = dosage;
+        this.price = price;
+        this.sellableQuantity = sellableQuantity != null ? sellableQuantity : 0L;
+        this.nearestExpiry = nearestExpiry;
+        this.batchCount = batchCount != null ? batchCount : 0L;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getGenericName() {
+        return genericName;
+    }
+
+    public void setGenericName(String genericName) {
+        this.genericName = genericName;
+    }
+
+    public String getDosage() {
+        return dosage;
+    }
+
+    public void setDosage(String dosage) {
+        this.dosage = dosage;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public long getSellableQuantity() {
+        return sellableQuantity;
+    }
+
+    public void setSellableQuantity(long sellableQuantity) {
+        this.sellableQuantity = sellableQuantity;
+    }
+
+    public LocalDate getNearestExpiry() {
+        return nearestExpiry;
+    }
+
+    public void setNearestExpiry(LocalDate nearestExpiry) {
+        this.nearestExpiry = nearestExpiry;
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public void setBatchCount(long batchCount) {
+        this.batchCount = batchCount;
+    }
+}
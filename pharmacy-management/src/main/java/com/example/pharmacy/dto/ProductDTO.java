@@ -11,10 +11,36 @@ public class ProductDTO {
     private BigDecimal price;
     private Long supplierId;
     private String supplierName;
+    private String barcode;
 
     // Default constructor
     public ProductDTO() {}
 
+    public ProductDTO(Long productId, String name, String genericName, String manufacturer, String dosage,
+                      BigDecimal price, Long supplierId, String supplierName) {
+        this(productId, name, genericName, manufacturer, dosage, price, supplierId, supplierName, null);
+    }
+
+    // Used by JPQL constructor expressions so catalog reads skip the entity graph
+    public ProductDTO(Long productId, String name, String genericName, String manufacturer, String dosage,
+                      BigDecimal price, Long supplierId, String supplierName, String barcode) {
+        this.productId = productId;
+        this.name = name;
+        this.genericName = genericName;
+        this.manufacturer = manufacturer;
+        this.dosage = dosage;
+        this.price = price;
+        this.supplierId = supplierId;
+        this.supplierName = supplierName;
+        this.barcode = barcode;
+    }
+
+    // Copy constructor
+    public ProductDTO(ProductDTO other) {
+        this(other.productId, other.name, other.genericName, other.manufacturer, other.dosage,
+             other.price, other.supplierId, other.supplierName, other.barcode);
+    }
+
     // Getters and Setters
     public Long getProductId() {
         return productId;
@@ -79,4 +105,12 @@ public class ProductDTO {
     public void setSupplierName(String supplierName) {
         this.supplierName = supplierName;
     }
-} 
\ No newline at end of file
+
+    public String getBarcode() {
+        return barcode;
+    }
+
+    public void setBarcode(String barcode) {
+        this.barcode = barcode;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.pharmacy.dto;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Whitelist of product columns a caller may ask for with {@code fields=}.
+ *
+ * Each field knows its JSON name, the JPQL path that selects it and how to
+ * read it from a cached {@link ProductDTO}, so the same sparse fieldset can be
+ * pushed into a query or applied to an in-memory snapshot. Only these paths
+ * ever reach a query string.
+ */
+public enum ProductField {
+    PRODUCT_ID("productId", "p.productId", ProductDTO::getProductId),
+    NAME("name", "p.name", ProductDTO::getName),
+    GENERIC_NAME("genericName", "p.genericName", ProductDTO::getGenericName),
+    MANUFACTURER("manufacturer", "p.manufacturer", ProductDTO::getManufacturer),
+    DOSAGE("dosage", "p.dosage", ProductDTO::getDosage),
+    PRICE("price", "p.price", ProductDTO::getPrice),
+    // Read from the foreign key column, no join needed
+    SUPPLIER_ID("supplierId", "p.supplier.supplierId", ProductDTO::getSupplierId),
+    SUPPLIER_NAME("supplierName", "s.name", ProductDTO::getSupplierName),
+    BARCODE("barcode", "p.barcode", ProductDTO::getBarcode);
+
+    private final String jsonName;
+    private final String path;
+    private final Function<ProductDTO, Object> accessor;
+
+    ProductField(String jsonName, String path, Function<ProductDTO, Object> accessor) {
+        this.jsonName = jsonName;
+        this.path = path;
+        this.accessor = accessor;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean needsSupplierJoin() {
+        return this == SUPPLIER_NAME;
+    }
+
+    // "name,price" -> {NAME, PRICE}; blank means every field, unknown names are rejected
+    public static Set<ProductField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Collections.unmodifiableSet(EnumSet.allOf(ProductField.class));
+        }
+        EnumSet<ProductField> selected = EnumSet.noneOf(ProductField.class);
+        for (String token : fields.split(",")) {
+            String name = token.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            selected.add(fromJsonName(name));
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one product field");
+        }
+        return Collections.unmodifiableSet(selected);
+    }
+
+    public static ProductField fromJsonName(String name) {
+        for (ProductField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown product field: " + name);
+    }
+
+    // Sparse copy of a cached snapshot, keys in declaration order
+    public static Map<String, Object> project(ProductDTO product, Set<ProductField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (ProductField field : fields) {
+            row.put(field.jsonName, field.accessor.apply(product));
+        }
+        return row;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.pharmacy.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class ProductPageDTO {
+    private List<?> products = new ArrayList<>(); // ProductDTOs, or sparse field maps when fields= is given
+    private String nextCursor; // pass back as ?cursor= for the next page; null on the last page
+
+    public ProductPageDTO() {}
+
+    public ProductPageDTO(List<?> products, String nextCursor) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+    }
+}
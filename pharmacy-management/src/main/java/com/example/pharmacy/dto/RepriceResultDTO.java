@@ -0,0 +1,9 @@
+package com.example.pharmacy.dto;
+
+import lombok.Data;
+
+@Data
+public class RepriceResultDTO {
+    private int updated;
+    private int skipped; // unknown or discontinued products, or price already current
+}
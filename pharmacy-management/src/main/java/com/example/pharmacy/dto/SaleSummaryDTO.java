@@ -0,0 +1,73 @@
+package com.example.pharmacy.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+public class SaleSummaryDTO {
+    private Long saleId;
+    private String customerName;
+    private LocalDate saleDate;
+    private BigDecimal totalAmount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer matchTier; // only set by ranked search: 0 exact, 1 prefix, 2 substring customer or product match
+
+    // Default constructor
+    public SaleSummaryDTO() {}
+
+    // Used by JPQL constructor expressions so sale search never loads Sale entities or their items
+    public SaleSummaryDTO(Long saleId, String customerName, LocalDate saleDate, BigDecimal totalAmount) {
+        this.saleId = saleId;
+        this.customerName = customerName;
+        this.saleDate = saleDate;
+        this.totalAmount = totalAmount;
+    }
+
+    public SaleSummaryDTO(Long saleId, String customerName, LocalDate saleDate, BigDecimal totalAmount,
+                          Integer matchTier) {
+        this(saleId, customerName, saleDate, totalAmount);
+        this.matchTier = matchTier;
+    }
+
+    // Getters and Setters
+    public Long getSaleId() {
+        return saleId;
+    }
+
+    public void setSaleId(Long saleId) {
+        this.saleId = saleId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public LocalDate getSaleDate() {
+        return saleDate;
+    }
+
+    public void setSaleDate(LocalDate saleDate) {
+        this.saleDate = saleDate;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public Integer getMatchTier() {
+        return matchTier;
+    }
+
+    public void setMatchTier(Integer matchTier) {
+        this.matchTier = matchTier;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.pharmacy.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+@Data
+public class ScanResultDTO {
+    private String code; // normalized form of the scanned code
+    private ProductDTO product;
+    private BigDecimal price;
+    private long sellableQuantity; // across batches with stock left that have not expired
+    private StockDTO preferredBatch; // batch to sell from, null when nothing is sellable
+    private Long scannedStockId; // set when the code identified a specific batch
+}
@@ -0,0 +1,22 @@
+package com.example.pharmacy.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class SearchResponseDTO {
+    private List<SearchResultDTO> results = new ArrayList<>();
+    private boolean partial; // true when at least one source missed its deadline or failed
+    private List<String> incompleteSources = new ArrayList<>(); // "USER", "STOCK", "SALE", "SUPPLIER"
+    private String nextCursor; // pass back as ?cursor= for the next page; null on the last page
+
+    public SearchResponseDTO() {}
+
+    public SearchResponseDTO(List<SearchResultDTO> results, List<String> incompleteSources) {
+        this.results = results;
+        this.incompleteSources = incompleteSources;
+        this.partial = !incompleteSources.isEmpty();
+    }
+}
@@ -10,6 +10,7 @@ public class SearchResultDTO {
     private String description;
     private String link; // URL to navigate to the item
     private Object data; // Additional data specific to the entity type
+    private double score; // Match tier (exact > prefix > substring) scaled by entity type weight
 
     // Constructor for convenience
     public SearchResultDTO(String id, String type, String title, String description, String link, Object data) {
@@ -9,10 +9,23 @@ public class StockDTO {
     private String batchNumber;
     private Integer quantity;
     private LocalDate expiryDate;
+    private String barcode;
 
     // Default constructor
     public StockDTO() {}
 
+    // Used by JPQL constructor expressions (delta sync, barcode index)
+    public StockDTO(Long stockId, Long productId, String productName, String batchNumber, Integer quantity,
+                    LocalDate expiryDate, String barcode) {
+        this.stockId = stockId;
+        this.productId = productId;
+        this.productName = productName;
+        this.batchNumber = batchNumber;
+        this.quantity = quantity;
+        this.expiryDate = expiryDate;
+        this.barcode = barcode;
+    }
+
     // Getters and Setters
     public Long getStockId() {
         return stockId;
@@ -61,4 +74,12 @@ public class StockDTO {
     public void setExpiryDate(LocalDate expiryDate) {
         this.expiryDate = expiryDate;
     }
-} 
\ No newline at end of file
+
+    public String getBarcode() {
+        return barcode;
+    }
+
+    public void setBarcode(String barcode) {
+        this.barcode = barcode;
+    }
+}
@@ -9,6 +9,14 @@ public class SupplierDTO {
     // Default constructor
     public SupplierDTO() {}
 
+    // Used by JPQL constructor expressions (delta sync)
+    public SupplierDTO(Long supplierId, String name, String contactNumber, String email) {
+        this.supplierId = supplierId;
+        this.name = name;
+        this.contactNumber = contactNumber;
+        this.email = email;
+    }
+
     // Getters and Setters
     public Long getSupplierId() {
         return supplierId;
@@ -0,0 +1,17 @@
+package com.example.pharmacy.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class SyncResponseDTO {
+    private long version; // pass back as ?since= on the next sync
+    private List<ProductDTO> products = new ArrayList<>(); // created or changed since the previous version
+    private List<StockDTO> stocks = new ArrayList<>();
+    private List<SupplierDTO> suppliers = new ArrayList<>();
+    private List<Long> deletedProductIds = new ArrayList<>();
+    private List<Long> deletedStockIds = new ArrayList<>();
+    private List<Long> deletedSupplierIds = new ArrayList<>();
+}
@@ -0,0 +1,75 @@
+package com.example.pharmacy.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+import com.example.pharmacy.enums.ERole;
+
+/**
+ * Machine credential for a POS terminal or an integration. Requests are
+ * signed with HMAC-SHA256 under the shared secret, so the secret itself is
+ * stored (like the JWT signing key) and must never leave this table except
+ * once, in the response that creates the key. Keys are deactivated rather
+ * than deleted; updated_at lets every node notice changes (see ApiKeyRegistry).
+ */
+@Entity
+@Table(name = "api_keys",
+    uniqueConstraints = @UniqueConstraint(name = "uk_api_keys_key_id", columnNames = "key_id"))
+public class ApiKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Public identifier sent with every request
+    @Column(name = "key_id", nullable = false, length = 40)
+    private String keyId;
+
+    // Base64url HMAC key
+    @Column(nullable = false, length = 64)
+    private String secret;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "terminal_id", length = 100)
+    private String terminalId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ERole role;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public ApiKey() {
+    }
+
+    public ApiKey(String keyId, String secret, String name, String terminalId, ERole role) {
+        this.keyId = keyId;
+        this.secret = secret;
+        this.name = name;
+        this.terminalId = terminalId;
+        this.role = role;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getKeyId() { return keyId; }
+    public String getSecret() { return secret; }
+    public String getName() { return name; }
+    public String getTerminalId() { return terminalId; }
+    public ERole getRole() { return role; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
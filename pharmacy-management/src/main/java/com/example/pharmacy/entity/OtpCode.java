@@ -0,0 +1,52 @@
+package com.example.pharmacy.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+import com.example.pharmacy.enums.OtpPurpose;
+
+/**
+ * One outstanding one-time password per email and purpose. Only a hash of
+ * the code is stored; rows are deleted when used and purged in batches once
+ * expired (see OtpStore).
+ */
+@Entity
+@Table(name = "otp_codes",
+    uniqueConstraints = @UniqueConstraint(name = "uk_otp_codes_email_purpose", columnNames = {"email", "purpose"}),
+    indexes = @Index(name = "idx_otp_codes_expires_at", columnList = "expires_at"))
+public class OtpCode {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private OtpPurpose purpose;
+
+    // Hex SHA-256 of purpose, email and code
+    @Column(name = "code_hash", nullable = false, length = 64)
+    private String codeHash;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public OtpCode() {
+    }
+
+    public OtpCode(String email, OtpPurpose purpose, String codeHash, LocalDateTime expiresAt) {
+        this.email = email;
+        this.purpose = purpose;
+        this.codeHash = codeHash;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getEmail() { return email; }
+    public OtpPurpose getPurpose() { return purpose; }
+    public String getCodeHash() { return codeHash; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+}
@@ -1,46 +0,0 @@
-// com.example.pharmacy.entity/OtpVerification.java
-package com.example.pharmacy.entity;
-
-import jakarta.persistence.*;
-import java.time.LocalDateTime;
-
-@Entity
-@Table(name = "otp_verifications")
-public class OtpVerification {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @Column(nullable = false, unique = true)
-    private String email;
-
-    @Column(nullable = false)
-    private String otp;
-
-    @Column(nullable = false)
-    private LocalDateTime expiryTime;
-
-    @Column(nullable = false)
-    private boolean verified;
-
-    // Constructors, getters, setters
-    public OtpVerification() {}
-
-    public OtpVerification(String email, String otp, LocalDateTime expiryTime, boolean verified) {
-        this.email = email;
-        this.otp = otp;
-        this.expiryTime = expiryTime;
-        this.verified = verified;
-    }
-
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-    public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
-    public String getOtp() { return otp; }
-    public void setOtp(String otp) { this.otp = otp; }
-    public LocalDateTime getExpiryTime() { return expiryTime; }
-    public void setExpiryTime(LocalDateTime expiryTime) { this.expiryTime = expiryTime; }
-    public boolean isVerified() { return verified; }
-    public void setVerified(boolean verified) { this.verified = verified; }
-}
\ No newline at end of file
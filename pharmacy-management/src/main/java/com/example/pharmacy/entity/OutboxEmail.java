@@ -0,0 +1,101 @@
+package com.example.pharmacy.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting to be sent, written in the same transaction as the
+ * business change that caused it and drained by EmailOutboxSender. Rows are
+ * deleted once sent. Mail whose content lapses (an OTP) carries an expiry
+ * and is never sent after it; ones that exhaust their retries stay as FAILED
+ * with the body redacted, until purged.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_email_outbox_expires_at", columnList = "expires_at")
+})
+public class OutboxEmail {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String REDACTED_BODY = "[redacted]";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Column(nullable = false)
+    private boolean html;
+
+    @Column(nullable = false, length = 16)
+    private String status = STATUS_PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Also the claim lease: a sender pushes it forward while the message is in flight
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Null for mail that stays relevant until sent
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public OutboxEmail() {
+    }
+
+    public OutboxEmail(String recipient, String subject, String body, boolean html) {
+        this(recipient, subject, body, html, null);
+    }
+
+    public OutboxEmail(String recipient, String subject, String body, boolean html, LocalDateTime expiresAt) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.html = html;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpiredAt(LocalDateTime time) {
+        return expiresAt != null && !expiresAt.isAfter(time);
+    }
+
+    // Failed rows are kept for diagnosis; the content (possibly a secret) is not
+    public void redact() {
+        this.body = REDACTED_BODY;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getRecipient() { return recipient; }
+    public String getSubject() { return subject; }
+    public String getBody() { return body; }
+    public boolean isHtml() { return html; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
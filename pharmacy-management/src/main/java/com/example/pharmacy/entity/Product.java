@@ -1,14 +1,21 @@
 package com.example.pharmacy.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import com.example.pharmacy.service.GlobalSearchIndexListener;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    // Barcode uniqueness and the other active-only indexes are partial (see ActiveProductIndexes)
+    @Index(name = "idx_products_change_version", columnList = "change_version")
+})
+@EntityListeners(GlobalSearchIndexListener.class)
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,6 +35,10 @@ public class Product {
     @Column(nullable = false)
     private BigDecimal price;
 
+    // GTIN or internal code, stored in Barcodes.normalize form
+    @Column(length = 64)
+    private String barcode;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "supplier_id", nullable = false)
     @JsonBackReference(value = "supplier-product")
@@ -37,10 +48,21 @@ public class Product {
     @JsonIgnoreProperties({"product", "sale"})
     private List<Stock> stocks = new ArrayList<>();
 
-    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Sales history belongs to the sale; products are soft-deleted and never cascade into it
+    @OneToMany(mappedBy = "product")
     @JsonIgnoreProperties({"product", "sale"})
     private List<SaleItem> salesItems = new ArrayList<>();
 
+    // False once discontinued; every catalog read filters on it
+    @ColumnDefault("true")
+    @Column(nullable = false)
+    private boolean active = true;
+
+    // Stamped by a database trigger on every insert/update for delta sync (see SyncService)
+    @Column(name = "change_version", insertable = false, updatable = false)
+    @JsonIgnore
+    private Long changeVersion;
+
     // Getters and Setters
     public Long getProductId() { return productId; }
     public void setProductId(Long productId) { this.productId = productId; }
@@ -54,10 +76,15 @@ public class Product {
     public void setDosage(String dosage) { this.dosage = dosage; }
     public BigDecimal getPrice() { return price; }
     public void setPrice(BigDecimal price) { this.price = price; }
+    public String getBarcode() { return barcode; }
+    public void setBarcode(String barcode) { this.barcode = barcode; }
     public Supplier getSupplier() { return supplier; }
     public void setSupplier(Supplier supplier) { this.supplier = supplier; }
     public List<Stock> getStocks() { return stocks; }
     public void setStocks(List<Stock> stocks) { this.stocks = stocks; }
     public List<SaleItem> getSalesItems() { return salesItems; }
     public void setSalesItems(List<SaleItem> salesItems) { this.salesItems = salesItems; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+    public Long getChangeVersion() { return changeVersion; }
 }
\ No newline at end of file
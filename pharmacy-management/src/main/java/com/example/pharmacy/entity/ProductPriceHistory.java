@@ -0,0 +1,59 @@
+package com.example.pharmacy.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * One price change of one product. Append-only; holds the product id rather
+ * than a relation so history outlives the product row.
+ */
+@Entity
+@Table(name = "product_price_history", indexes = {
+    @Index(name = "idx_price_history_product", columnList = "product_id, changed_at")
+})
+public class ProductPriceHistory {
+    public static final String SOURCE_EDIT = "EDIT";
+    public static final String SOURCE_BULK_PRICES = "BULK_PRICES";
+    public static final String SOURCE_BULK_PERCENT = "BULK_PERCENT";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "old_price")
+    private BigDecimal oldPrice;
+
+    @Column(name = "new_price", nullable = false)
+    private BigDecimal newPrice;
+
+    // One of the SOURCE_ constants
+    @Column(nullable = false, length = 16)
+    private String source;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public ProductPriceHistory() {
+    }
+
+    public ProductPriceHistory(Long productId, BigDecimal oldPrice, BigDecimal newPrice, String source,
+                               LocalDateTime changedAt) {
+        this.productId = productId;
+        this.oldPrice = oldPrice;
+        this.newPrice = newPrice;
+        this.source = source;
+        this.changedAt = changedAt;
+    }
+
+    public Long getId() { return id; }
+    public Long getProductId() { return productId; }
+    public BigDecimal getOldPrice() { return oldPrice; }
+    public BigDecimal getNewPrice() { return newPrice; }
+    public String getSource() { return source; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+}
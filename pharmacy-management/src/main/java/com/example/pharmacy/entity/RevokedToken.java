@@ -0,0 +1,45 @@
+package com.example.pharmacy.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An access-token revocation: either one token ("jti:" key) or every token a
+ * user was issued before revokedAt ("user:" key). Rows are only needed until
+ * the tokens they cover have expired, then purged (see TokenRevocationList).
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+    @Index(name = "idx_revoked_tokens_token_key", columnList = "token_key"),
+    @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at"),
+    @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_key", nullable = false, length = 64)
+    private String tokenKey;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String tokenKey, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        this.tokenKey = tokenKey;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getTokenKey() { return tokenKey; }
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+}
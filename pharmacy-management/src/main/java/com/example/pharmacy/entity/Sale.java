@@ -8,15 +8,19 @@ import java.util.List;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.example.pharmacy.service.GlobalSearchIndexListener;
 
 @Entity
-@Table(name = "sales")
+@Table(name = "sales", indexes = @Index(name = "idx_sales_sale_date", columnList = "sale_date"))
+@EntityListeners(GlobalSearchIndexListener.class)
 public class Sale {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
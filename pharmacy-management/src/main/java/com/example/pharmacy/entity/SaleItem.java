@@ -4,18 +4,22 @@ import java.math.BigDecimal;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.example.pharmacy.service.GlobalSearchIndexListener;
 
 @Entity
-@Table(name = "sale_items")
+@Table(name = "sale_items", indexes = @Index(name = "idx_sale_items_product", columnList = "product_id"))
+@EntityListeners(GlobalSearchIndexListener.class)
 public class SaleItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -3,17 +3,28 @@ package com.example.pharmacy.entity;
 import java.time.LocalDate;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.example.pharmacy.service.BarcodeIndexListener;
+import com.example.pharmacy.service.GlobalSearchIndexListener;
 
 @Entity
-@Table(name = "stock")
+@Table(name = "stock", indexes = {
+    // Availability aggregates and FIFO lookups go through product_id
+    @Index(name = "idx_stock_product", columnList = "product_id"),
+    @Index(name = "idx_stock_change_version", columnList = "change_version"),
+    @Index(name = "idx_stock_barcode", columnList = "barcode", unique = true)
+})
+@EntityListeners({GlobalSearchIndexListener.class, BarcodeIndexListener.class})
 public class Stock {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,7 +44,20 @@ public class Stock {
     @Column(name = "expiry_date")
     private LocalDate expiryDate;
 
+    // Optional batch-level code (e.g. a GS1 label carrying the lot), Barcodes.normalize form
+    @Column(length = 64)
+    private String barcode;
+
+    // Stamped by a database trigger on every insert/update for delta sync (see SyncService)
+    @Column(name = "change_version", insertable = false, updatable = false)
+    @JsonIgnore
+    private Long changeVersion;
+
     // Getters, setters, constructors
+    public Long getChangeVersion() {
+        return changeVersion;
+    }
+
     public Long getStockId() {
         return stockId;
     }
@@ -74,6 +98,14 @@ public class Stock {
         this.expiryDate = expiryDate;
     }
 
+    public String getBarcode() {
+        return barcode;
+    }
+
+    public void setBarcode(String barcode) {
+        this.barcode = barcode;
+    }
+
     public Stock() {
     }
 
@@ -3,19 +3,24 @@ package com.example.pharmacy.entity;
 import java.util.ArrayList;
 import java.util.List;
 
-import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.example.pharmacy.service.GlobalSearchIndexListener;
 
 @Entity
-@Table(name = "suppliers")
+@Table(name = "suppliers", indexes = {
+    @Index(name = "idx_suppliers_change_version", columnList = "change_version")
+})
+@EntityListeners(GlobalSearchIndexListener.class)
 public class Supplier {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,13 +34,22 @@ public class Supplier {
 
     private String email;
 
-    // One-to-Many relationship with Products
-    @OneToMany(mappedBy = "supplier", cascade = CascadeType.ALL, orphanRemoval = true)
+    // One-to-Many relationship with Products; no cascade, since products are only ever soft-deleted
+    @OneToMany(mappedBy = "supplier")
     @JsonManagedReference(value = "product-supplier")
     @JsonIgnore
     private List<Product> products = new ArrayList<>();
+
+    // Stamped by a database trigger on every insert/update for delta sync (see SyncService)
+    @Column(name = "change_version", insertable = false, updatable = false)
+    @JsonIgnore
+    private Long changeVersion;
     
     // Getters, setters, constructors
+    public Long getChangeVersion() {
+        return changeVersion;
+    }
+
     public Long getSupplierId() {
         return supplierId;
     }
@@ -0,0 +1,40 @@
+package com.example.pharmacy.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Deleted product, stock or supplier row, written by a database trigger so
+ * that delta sync can tell terminals what to drop. Never written through JPA.
+ */
+@Entity
+@Table(name = "sync_tombstones", indexes = {
+    @Index(name = "idx_sync_tombstones_change_version", columnList = "change_version")
+})
+public class SyncTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private String entityType; // PRODUCT, STOCK or SUPPLIER
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "change_version", nullable = false)
+    private Long changeVersion;
+
+    public SyncTombstone() {
+    }
+
+    public SyncTombstone(String entityType, Long entityId, Long changeVersion) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.changeVersion = changeVersion;
+    }
+
+    public Long getId() { return id; }
+    public String getEntityType() { return entityType; }
+    public Long getEntityId() { return entityId; }
+    public Long getChangeVersion() { return changeVersion; }
+}
@@ -3,6 +3,7 @@ import java.util.HashSet;
 import java.util.Set;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -11,8 +12,11 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import com.example.pharmacy.service.GlobalSearchIndexListener;
+import com.example.pharmacy.service.UserDetailsCacheListener;
 @Entity
 @Table(name = "users")
+@EntityListeners({GlobalSearchIndexListener.class, UserDetailsCacheListener.class})
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,5 +28,8 @@ public enum EPermission {
     USER_READ,
     USER_CREATE,
     USER_UPDATE,
-    USER_DELETE
+    USER_DELETE,
+
+    // Integration permissions (new values go last: masks in issued tokens use the ordinals)
+    API_KEY_MANAGE
 }
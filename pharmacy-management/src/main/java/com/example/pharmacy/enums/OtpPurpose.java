@@ -0,0 +1,6 @@
+package com.example.pharmacy.enums;
+
+public enum OtpPurpose {
+    LOGIN,
+    PASSWORD_RESET,
+}
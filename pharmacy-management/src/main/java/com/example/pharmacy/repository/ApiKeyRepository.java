@@ -0,0 +1,17 @@
+package com.example.pharmacy.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import com.example.pharmacy.entity.ApiKey;
+
+public interface ApiKeyRepository extends JpaRepository<ApiKey, Long> {
+    List<ApiKey> findByActiveTrue();
+
+    // Changes whenever a key is created or deactivated on any node
+    @Query("SELECT MAX(a.updatedAt) FROM ApiKey a")
+    LocalDateTime findLastChange();
+}
@@ -0,0 +1,33 @@
+package com.example.pharmacy.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.pharmacy.entity.OtpCode;
+import com.example.pharmacy.enums.OtpPurpose;
+
+public interface OtpCodeRepository extends JpaRepository<OtpCode, Long> {
+    Optional<OtpCode> findByEmailAndPurpose(String email, OtpPurpose purpose);
+
+    @Modifying
+    @Query("DELETE FROM OtpCode o WHERE o.email = :email AND o.purpose = :purpose")
+    int deleteByEmailAndPurpose(@Param("email") String email, @Param("purpose") OtpPurpose purpose);
+
+    // Single use across nodes: only the caller whose DELETE removes the row may accept the code
+    @Modifying
+    @Query("DELETE FROM OtpCode o WHERE o.id = :id AND o.expiresAt > :now")
+    int consume(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // One purge batch per transaction, driven by the idx_otp_codes_expires_at index
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM otp_codes WHERE id IN "
+        + "(SELECT id FROM otp_codes WHERE expires_at <= :now LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,32 @@
+package com.example.pharmacy.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.pharmacy.entity.OutboxEmail;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    // Claims up to :limit due messages by leasing them until :leaseUntil; SKIP LOCKED lets several nodes drain at once
+    @Transactional
+    @Query(value = "UPDATE email_outbox SET next_attempt_at = :leaseUntil WHERE id IN "
+        + "(SELECT id FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now "
+        + "AND (expires_at IS NULL OR expires_at > :now) "
+        + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) RETURNING *", nativeQuery = true)
+    List<OutboxEmail> claimDue(@Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil,
+                               @Param("limit") int limit);
+
+    // Expired mail, sent or not, and FAILED rows past their retention; callers loop until a short batch
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM email_outbox WHERE id IN (SELECT id FROM email_outbox WHERE expires_at <= :now "
+        + "OR (status = 'FAILED' AND created_at <= :failedBefore) LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("failedBefore") LocalDateTime failedBefore,
+                           @Param("limit") int limit);
+}
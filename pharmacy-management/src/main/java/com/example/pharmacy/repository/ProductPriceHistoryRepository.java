@@ -0,0 +1,17 @@
+package com.example.pharmacy.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.pharmacy.entity.ProductPriceHistory;
+
+@Repository
+public interface ProductPriceHistoryRepository extends JpaRepository<ProductPriceHistory, Long> {
+    @Query("SELECT h FROM ProductPriceHistory h WHERE h.productId = :productId ORDER BY h.changedAt DESC, h.id DESC")
+    List<ProductPriceHistory> findByProductIdNewestFirst(@Param("productId") Long productId, Pageable page);
+}
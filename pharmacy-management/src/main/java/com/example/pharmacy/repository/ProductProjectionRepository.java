@@ -0,0 +1,16 @@
+package com.example.pharmacy.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.example.pharmacy.dto.ProductField;
+
+/**
+ * Sparse-fieldset product reads: only the requested columns are selected and
+ * the supplier is joined only when its name is asked for.
+ */
+public interface ProductProjectionRepository {
+    Optional<Map<String, Object>> findFieldsById(Long id, Set<ProductField> fields);
+}
@@ -0,0 +1,60 @@
+package com.example.pharmacy.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.example.pharmacy.dto.ProductField;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+// Picked up by Spring Data as the implementation of ProductProjectionRepository
+public class ProductProjectionRepositoryImpl implements ProductProjectionRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Long id, Set<ProductField> fields) {
+        TypedQuery<Tuple> query = entityManager.createQuery(
+            select(fields) + " WHERE p.productId = :id AND p.active = true", Tuple.class);
+        query.setParameter("id", id);
+        return toRows(query.getResultList(), fields).stream().findFirst();
+    }
+
+    // Column list comes from the ProductField whitelist, never from the request
+    static String select(Set<ProductField> fields) {
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        boolean joinSupplier = false;
+        int i = 0;
+        for (ProductField field : fields) {
+            if (i++ > 0) {
+                jpql.append(", ");
+            }
+            jpql.append(field.getPath()).append(" AS ").append(field.getJsonName());
+            joinSupplier |= field.needsSupplierJoin();
+        }
+        jpql.append(" FROM Product p");
+        if (joinSupplier) {
+            jpql.append(" LEFT JOIN p.supplier s");
+        }
+        return jpql.toString();
+    }
+
+    private static List<Map<String, Object>> toRows(List<Tuple> tuples, Set<ProductField> fields) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (ProductField field : fields) {
+                row.put(field.getJsonName(), tuple.get(field.getJsonName()));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -1,17 +1,37 @@
 package com.example.pharmacy.repository;
+import com.example.pharmacy.dto.ProductAvailabilityDTO;
+import com.example.pharmacy.dto.ProductDTO;
 import com.example.pharmacy.entity.Product;
 import com.example.pharmacy.entity.Supplier;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductProjectionRepository {
+    // Global search matches a product (alias p) on its name or generic name the way GlobalSearchIndex
+    // does: :pattern (SearchService.wordStartPattern) puts every query word at the start of a word.
+    String SEARCH_MATCH = "(concat(' ', lower(p.name)) LIKE :pattern ESCAPE :#{escapeCharacter()} " +
+                          "OR concat(' ', lower(p.genericName)) LIKE :pattern ESCAPE :#{escapeCharacter()})";
+    String SEARCH_EXACT = "(lower(p.name) = lower(:query) OR lower(p.genericName) = lower(:query))";
+    String SEARCH_PREFIX = "(lower(p.name) LIKE lower(concat(:#{escape(#query)}, '%')) ESCAPE :#{escapeCharacter()} " +
+                           "OR lower(p.genericName) LIKE lower(concat(:#{escape(#query)}, '%')) ESCAPE :#{escapeCharacter()})";
+    // 0 exact, 1 prefix, 2 a later word
+    String SEARCH_TIER = "CASE WHEN " + SEARCH_EXACT + " THEN 0 WHEN " + SEARCH_PREFIX + " THEN 1 ELSE 2 END";
+
     //Find product by name
     List<Product> findByName(String name);
 
@@ -22,7 +42,19 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByGenericName(String genericName);
 
     //find by supplier
-    List<Product> findBySupplier(Supplier supplier);
+    List<Product> findBySupplierAndActiveTrue(Supplier supplier);
+
+    long countBySupplier_SupplierIdAndActiveTrue(Long supplierId);
+
+    boolean existsBySupplier_SupplierId(Long supplierId);
+
+    // Products that may still be sold, restocked or edited; discontinued ones are kept only for history
+    Optional<Product> findByProductIdAndActiveTrue(Long productId);
+
+    // Soft delete: one row, sales history untouched
+    @Modifying
+    @Query("UPDATE Product p SET p.active = false WHERE p.productId = :id AND p.active = true")
+    int deactivate(@Param("id") Long id);
 
     //find by price range
     List<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
@@ -31,6 +63,81 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByManufacturer(String manufacturer);
 
     List<Product> findByNameContainingIgnoreCase(String name);
+
+    // Catalog snapshot: one query, supplier joined in, no entity graph
+    @Query("SELECT new com.example.pharmacy.dto.ProductDTO(p.productId, p.name, p.genericName, p.manufacturer, " +
+           "p.dosage, p.price, s.supplierId, s.name, p.barcode) FROM Product p LEFT JOIN p.supplier s WHERE p.active = true " +
+           "ORDER BY p.productId")
+    List<ProductDTO> findAllAsDTO();
+
+    @Query("SELECT new com.example.pharmacy.dto.ProductDTO(p.productId, p.name, p.genericName, p.manufacturer, " +
+           "p.dosage, p.price, s.supplierId, s.name, p.barcode) FROM Product p LEFT JOIN p.supplier s " +
+           "WHERE p.productId = :id AND p.active = true")
+    Optional<ProductDTO> findDTOById(@Param("id") Long id);
+
+    @Query("SELECT p.productId FROM Product p WHERE p.barcode = :barcode AND p.active = true")
+    Optional<Long> findIdByBarcode(@Param("barcode") String barcode);
+
+    // Bulk upsert: current owners of the barcodes a batch sets
+    @Query("SELECT p.productId, p.barcode FROM Product p WHERE p.barcode IN :barcodes AND p.active = true")
+    List<Object[]> findIdAndBarcodeByBarcodeIn(@Param("barcodes") Collection<String> barcodes);
+
+    // Multi-get; callers chunk the id list
+    @Query("SELECT new com.example.pharmacy.dto.ProductDTO(p.productId, p.name, p.genericName, p.manufacturer, " +
+           "p.dosage, p.price, s.supplierId, s.name, p.barcode) FROM Product p LEFT JOIN p.supplier s " +
+           "WHERE p.productId IN :ids AND p.active = true")
+    List<ProductDTO> findAllAsDTOByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Delta sync: products written by transactions in [since, upTo)
+    @Query("SELECT new com.example.pharmacy.dto.ProductDTO(p.productId, p.name, p.genericName, p.manufacturer, " +
+           "p.dosage, p.price, s.supplierId, s.name, p.barcode) FROM Product p LEFT JOIN p.supplier s " +
+           "WHERE p.changeVersion >= :since AND p.changeVersion < :upTo AND p.active = true " +
+           "ORDER BY p.changeVersion, p.productId")
+    List<ProductDTO> findChangedAsDTO(@Param("since") long since, @Param("upTo") long upTo);
+
+    // Delta sync: products discontinued in [since, upTo), sent to terminals as deletions
+    @Query("SELECT p.productId FROM Product p " +
+           "WHERE p.changeVersion >= :since AND p.changeVersion < :upTo AND p.active = false ORDER BY p.productId")
+    List<Long> findChangedInactiveIds(@Param("since") long since, @Param("upTo") long upTo);
+
+    // Bulk upsert diff: every existing product sharing a name with the batch, oldest first
+    @Query("SELECT new com.example.pharmacy.dto.ProductDTO(p.productId, p.name, p.genericName, p.manufacturer, " +
+           "p.dosage, p.price, s.supplierId, s.name, p.barcode) FROM Product p LEFT JOIN p.supplier s " +
+           "WHERE lower(p.name) IN :names AND p.active = true ORDER BY p.productId")
+    List<ProductDTO> findAllAsDTOByLowerNameIn(@Param("names") Collection<String> names);
+
+    // POS availability: one aggregate over sellable batches (quantity left, not expired); products without any still appear
+    @Query(value = "SELECT new com.example.pharmacy.dto.ProductAvailabilityDTO(p.productId, p.name, p.genericName, " +
+           "p.dosage, p.price, SUM(s.quantity), MIN(s.expiryDate), COUNT(s.stockId)) " +
+           "FROM Product p LEFT JOIN p.stocks s ON s.quantity > 0 AND (s.expiryDate IS NULL OR s.expiryDate >= :today) " +
+           "WHERE p.active = true " +
+           "GROUP BY p.productId, p.name, p.genericName, p.dosage, p.price " +
+           "HAVING :inStockOnly = false OR COUNT(s.stockId) > 0 " +
+           "ORDER BY p.name, p.productId")
+    Slice<ProductAvailabilityDTO> findAvailability(@Param("today") LocalDate today,
+                                                   @Param("inStockOnly") boolean inStockOnly, Pageable pageable);
+
+    // Global search index bootstrap: just the searchable columns
+    @Query("SELECT p.productId, p.name, p.genericName FROM Product p WHERE p.active = true")
+    List<Object[]> findSearchIndexRows();
+
+    // Global search fallback while the index is not ready; ranked like GlobalSearchIndex
+    @Query("SELECT p FROM Product p WHERE p.active = true AND " + SEARCH_MATCH + " " +
+           "ORDER BY " + SEARCH_TIER + ", lower(p.name), p.productId")
+    List<Product> searchByNameOrGenericName(@Param("query") String query, @Param("pattern") String pattern,
+                                            Pageable pageable);
+
+    // Served by idx_products_name_trgm_active (see PgTrgmProductSearchIndex)
+    @Query(value = "SELECT p.product_id AS \"productId\", similarity(lower(p.name), :query) AS \"score\" " +
+                   "FROM products p WHERE lower(p.name) LIKE :pattern AND p.active " +
+                   "ORDER BY 2 DESC, p.name LIMIT :limit", nativeQuery = true)
+    List<TrigramMatch> searchByTrigram(@Param("query") String query, @Param("pattern") String pattern,
+                                       @Param("limit") int limit);
+
+    interface TrigramMatch {
+        Long getProductId();
+        Double getScore();
+    }
 }
 
-    
+
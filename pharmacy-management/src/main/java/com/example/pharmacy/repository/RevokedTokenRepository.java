@@ -0,0 +1,31 @@
+package com.example.pharmacy.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.pharmacy.entity.RevokedToken;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    @Query("SELECT r.tokenKey FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findLiveKeys(@Param("now") LocalDateTime now);
+
+    @Query("SELECT r.tokenKey FROM RevokedToken r WHERE r.revokedAt >= :since")
+    List<String> findKeysRevokedSince(@Param("since") LocalDateTime since);
+
+    // Null when the key was never revoked
+    @Query("SELECT MAX(r.revokedAt) FROM RevokedToken r WHERE r.tokenKey = :key AND r.expiresAt > :now")
+    LocalDateTime findLatestRevocation(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    // One purge batch per transaction, driven by the idx_revoked_tokens_expires_at index
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM revoked_tokens WHERE id IN "
+        + "(SELECT id FROM revoked_tokens WHERE expires_at <= :now LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -27,4 +27,8 @@ public interface SaleItemRepository extends JpaRepository<SaleItem, Long> {
     //custom query to find most sold products
     @Query("SELECT s.product, SUM(s.quantity) as totalQuantity FROM SaleItem s GROUP BY s.product ORDER BY totalQuantity DESC")
     List<Object[]> findMostSoldProducts();
+
+    // Units sold per product id; seeds typeahead ranking without loading entities
+    @Query("SELECT s.product.productId, SUM(s.quantity) FROM SaleItem s GROUP BY s.product.productId")
+    List<Object[]> sumQuantityByProduct();
 }
@@ -2,17 +2,27 @@ package com.example.pharmacy.repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.pharmacy.dto.SaleSummaryDTO;
 import com.example.pharmacy.entity.Sale;
 
 @Repository
 public interface SaleRepository extends JpaRepository<Sale, Long> {
+    // Ranks a match on the customer name or an active product (see ProductRepository.SEARCH_TIER):
+    // 0 exact, 1 prefix, 2 a later word. LIKE patterns escape the query's own % and _ so they match literally.
+    String MATCH_TIER = "CASE WHEN lower(s.customerName) = lower(:query) " +
+                        "OR (p.active = true AND " + ProductRepository.SEARCH_EXACT + ") THEN 0 " +
+                        "WHEN lower(s.customerName) LIKE lower(concat(:#{escape(#query)}, '%')) ESCAPE :#{escapeCharacter()} " +
+                        "OR (p.active = true AND " + ProductRepository.SEARCH_PREFIX + ") THEN 1 ELSE 2 END";
+
     //find by customer name
     List<Sale> findByCustomerName(String customerName);
 
@@ -28,6 +38,47 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
     //find salaes with total amount greater than specified value
     List<Sale> findByTotalAmountGreaterThan(BigDecimal amount);
 
-    @Query("SELECT s FROM Sale s JOIN s.saleItems si JOIN si.product p WHERE p.name LIKE %:query%")
+    // Multi-get with lines and their products in the same query; callers chunk the id list
+    @Query("SELECT DISTINCT s FROM Sale s LEFT JOIN FETCH s.saleItems si LEFT JOIN FETCH si.product " +
+           "WHERE s.saleId IN :ids")
+    List<Sale> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // DISTINCT: a sale with several matching lines is still one sale
+    @Query("SELECT DISTINCT s FROM Sale s JOIN s.saleItems si JOIN si.product p " +
+           "WHERE lower(p.name) LIKE lower(concat('%', :#{escape(#query)}, '%')) ESCAPE :#{escapeCharacter()}")
     List<Sale> findByProductNameContainingIgnoreCase(@Param("query") String query);
+
+    // Sale summaries for sales containing any of the given products; served by idx_sale_items_product
+    @Query("SELECT new com.example.pharmacy.dto.SaleSummaryDTO(s.saleId, s.customerName, s.saleDate, s.totalAmount) " +
+           "FROM Sale s WHERE s.saleId IN (SELECT si.sale.saleId FROM SaleItem si WHERE si.product.productId IN :productIds) " +
+           "ORDER BY s.saleDate DESC, s.saleId DESC")
+    List<SaleSummaryDTO> findSummariesByProductIds(@Param("productIds") Collection<Long> productIds, Pageable pageable);
+
+    // Same summaries by product name, for when no product index is available. Like the index, which
+    // only holds active products, a discontinued product leads to no sale.
+    @Query("SELECT new com.example.pharmacy.dto.SaleSummaryDTO(s.saleId, s.customerName, s.saleDate, s.totalAmount) " +
+           "FROM Sale s WHERE s.saleId IN (SELECT si.sale.saleId FROM SaleItem si " +
+           "WHERE si.product.active = true AND lower(si.product.name) LIKE lower(concat('%', :#{escape(#query)}, '%')) ESCAPE :#{escapeCharacter()}) " +
+           "ORDER BY s.saleDate DESC, s.saleId DESC")
+    List<SaleSummaryDTO> findSummariesByProductName(@Param("query") String query, Pageable pageable);
+
+    // Global search index bootstrap: what a sale result shows and is ranked by
+    @Query("SELECT s.saleId, s.customerName, s.totalAmount, s.saleDate FROM Sale s")
+    List<Object[]> findSearchIndexRows();
+
+    // Global search index bootstrap: sales are found through the products on their lines
+    @Query("SELECT si.saleItemId, si.sale.saleId, si.product.productId FROM SaleItem si")
+    List<Object[]> findSearchIndexLineRows();
+
+    // Global search: one summary per sale with its best match tier. Like GlobalSearchIndex, a sale
+    // matches on its customer name or an active product on its lines, every query word starting a word.
+    @Query("SELECT new com.example.pharmacy.dto.SaleSummaryDTO(s.saleId, s.customerName, s.saleDate, s.totalAmount, " +
+           "MIN(" + MATCH_TIER + ")) " +
+           "FROM Sale s LEFT JOIN s.saleItems si LEFT JOIN si.product p " +
+           "WHERE concat(' ', lower(s.customerName)) LIKE :pattern ESCAPE :#{escapeCharacter()} " +
+           "OR (p.active = true AND " + ProductRepository.SEARCH_MATCH + ") " +
+           "GROUP BY s.saleId, s.customerName, s.saleDate, s.totalAmount " +
+           "ORDER BY MIN(" + MATCH_TIER + "), s.saleDate DESC, s.saleId DESC")
+    List<SaleSummaryDTO> searchByCustomerOrProductName(@Param("query") String query, @Param("pattern") String pattern,
+                                                       Pageable pageable);
 }
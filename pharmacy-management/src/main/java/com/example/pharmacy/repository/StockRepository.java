@@ -1,40 +1,54 @@
 package com.example.pharmacy.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.pharmacy.dto.StockDTO;
 import com.example.pharmacy.entity.Product;
 import com.example.pharmacy.entity.Stock;
 
 @Repository
 public interface StockRepository extends JpaRepository<Stock, Long> {
+    // Stock listings only cover active products; discontinued products' batches stay for sales history
+
+    // Every batch of an active product
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE p.active = true")
+    List<Stock> findAllOfActiveProducts();
+
     // Find by product, ordered by expiry date (FIFO)
-    @Query("SELECT s FROM Stock s JOIN FETCH s.product WHERE s.product = :product ORDER BY s.expiryDate ASC")
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE p = :product AND p.active = true " +
+           "ORDER BY s.expiryDate ASC")
     List<Stock> findByProduct(@Param("product") Product product);
 
     // Find by batch number
-    @Query("SELECT s FROM Stock s JOIN FETCH s.product WHERE s.batchNumber = :batchNumber")
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE s.batchNumber = :batchNumber AND p.active = true")
     List<Stock> findByBatchNumber(@Param("batchNumber") String batchNumber);
     
     // Find by expired stock
-    @Query("SELECT s FROM Stock s JOIN FETCH s.product WHERE s.expiryDate < :date")
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE s.expiryDate < :date AND p.active = true")
     List<Stock> findByExpiryDateBefore(@Param("date") LocalDate date);
 
     // Find by expiring between (String parameters for API)
-    @Query("SELECT s FROM Stock s JOIN FETCH s.product WHERE s.expiryDate BETWEEN :start AND :end")
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE s.expiryDate BETWEEN :start AND :end " +
+           "AND p.active = true")
     List<Stock> findByExpiryDateBetween(@Param("start") String start, @Param("end") String end);
 
     // Find by expiring between (LocalDate parameters)
-    @Query("SELECT s FROM Stock s JOIN FETCH s.product WHERE s.expiryDate BETWEEN :start AND :end")
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE s.expiryDate BETWEEN :start AND :end " +
+           "AND p.active = true")
     List<Stock> findByExpiryDateBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
 
     // Find stock with quantity less than or equal to specified value
-    @Query("SELECT s FROM Stock s JOIN FETCH s.product WHERE s.quantity <= :threshold")
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE s.quantity <= :threshold AND p.active = true")
     List<Stock> findByQuantityLessThanEqual(@Param("threshold") int threshold);
 
     // Custom query to get total quantity of a product across all batches
@@ -43,4 +57,50 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
 
     List<Stock> findByProductNameContainingIgnoreCase(String productName);
 
+    // Delta sync: stock rows written by transactions in [since, upTo)
+    @Query("SELECT new com.example.pharmacy.dto.StockDTO(s.stockId, p.productId, p.name, s.batchNumber, s.quantity, " +
+           "s.expiryDate, s.barcode) FROM Stock s JOIN s.product p " +
+           "WHERE s.changeVersion >= :since AND s.changeVersion < :upTo AND p.active = true " +
+           "ORDER BY s.changeVersion, s.stockId")
+    List<StockDTO> findChangedAsDTO(@Param("since") long since, @Param("upTo") long upTo);
+
+    // Delta sync: batches of products discontinued in [since, upTo), or written since, sent as deletions
+    @Query("SELECT s.stockId FROM Stock s JOIN s.product p WHERE p.active = false " +
+           "AND ((p.changeVersion >= :since AND p.changeVersion < :upTo) " +
+           "OR (s.changeVersion >= :since AND s.changeVersion < :upTo)) ORDER BY s.stockId")
+    List<Long> findChangedInactiveIds(@Param("since") long since, @Param("upTo") long upTo);
+
+    // Barcode index bootstrap: every batch as a snapshot
+    @Query("SELECT new com.example.pharmacy.dto.StockDTO(s.stockId, p.productId, p.name, s.batchNumber, s.quantity, " +
+           "s.expiryDate, s.barcode) FROM Stock s JOIN s.product p WHERE p.active = true")
+    List<StockDTO> findAllAsDTO();
+
+    @Query("SELECT s.stockId FROM Stock s WHERE s.barcode = :barcode AND s.product.active = true")
+    Optional<Long> findIdByBarcode(@Param("barcode") String barcode);
+
+    // Barcodes are unique across all batches, so a discontinued product's batch gives its code up for reuse
+    @Modifying
+    @Query("UPDATE Stock s SET s.barcode = null WHERE s.barcode = :barcode " +
+           "AND s.product.productId IN (SELECT p.productId FROM Product p WHERE p.active = false)")
+    int releaseDiscontinuedBarcode(@Param("barcode") String barcode);
+
+    // A batch of an active product by id; a discontinued product's batches read as not found
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE s.stockId = :id AND p.active = true")
+    Optional<Stock> findOfActiveProductById(@Param("id") Long id);
+
+    // Multi-get of active products' batches; callers chunk the id list
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE s.stockId IN :ids AND p.active = true")
+    List<Stock> findAllWithProductByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Global search index bootstrap: stock rows hang off their product's entry
+    @Query("SELECT s.stockId, s.product.productId, s.quantity FROM Stock s WHERE s.product.active = true")
+    List<Object[]> findSearchIndexRows();
+
+    // Global search: stock rows of the matching products, in the products' order; the page bounds the SQL
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p WHERE p.active = true " +
+           "AND " + ProductRepository.SEARCH_MATCH + " " +
+           "ORDER BY " + ProductRepository.SEARCH_TIER + ", lower(p.name), p.productId, s.stockId")
+    List<Stock> searchByProductName(@Param("query") String query, @Param("pattern") String pattern,
+                                    Pageable pageable);
+
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package com.example.pharmacy.repository;
 
+import java.util.Collection;
 import java.util.List;
+import com.example.pharmacy.dto.SupplierDTO;
 import com.example.pharmacy.entity.Supplier; // Adding import for Supplier
 
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -23,4 +28,31 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long> {
     Supplier findByContactNumber(String contactNumber);
 
     List<Supplier> findByNameContainingIgnoreCase(String name);
+
+    // Delta sync: suppliers written by transactions in [since, upTo)
+    @Query("SELECT new com.example.pharmacy.dto.SupplierDTO(s.supplierId, s.name, s.contactNumber, s.email) " +
+           "FROM Supplier s WHERE s.changeVersion >= :since AND s.changeVersion < :upTo " +
+           "ORDER BY s.changeVersion, s.supplierId")
+    List<SupplierDTO> findChangedAsDTO(@Param("since") long since, @Param("upTo") long upTo);
+
+    // Bulk product upsert: id and name of the referenced suppliers
+    @Query("SELECT s.supplierId, s.name FROM Supplier s WHERE s.supplierId IN :ids")
+    List<Object[]> findIdAndNameByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.supplierId, s.name FROM Supplier s WHERE lower(s.name) IN :names ORDER BY s.supplierId")
+    List<Object[]> findIdAndNameByLowerNameIn(@Param("names") Collection<String> names);
+
+    // Global search index bootstrap: just the searchable columns
+    @Query("SELECT s.supplierId, s.name, s.email FROM Supplier s")
+    List<Object[]> findSearchIndexRows();
+
+    // Global search: every query word starts a word of the name (see SearchService.wordStartPattern),
+    // then exact, prefix and later-word matches; the page bounds the SQL.
+    // escape() makes % and _ typed by the user match literally.
+    @Query("SELECT s FROM Supplier s " +
+           "WHERE concat(' ', lower(s.name)) LIKE :pattern ESCAPE :#{escapeCharacter()} " +
+           "ORDER BY CASE WHEN lower(s.name) = lower(:query) THEN 0 " +
+           "WHEN lower(s.name) LIKE lower(concat(:#{escape(#query)}, '%')) ESCAPE :#{escapeCharacter()} THEN 1 " +
+           "ELSE 2 END, lower(s.name), s.supplierId")
+    List<Supplier> searchByName(@Param("query") String query, @Param("pattern") String pattern, Pageable pageable);
 }
@@ -0,0 +1,21 @@
+package com.example.pharmacy.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.pharmacy.entity.SyncTombstone;
+
+@Repository
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long> {
+    @Query("SELECT t FROM SyncTombstone t WHERE t.changeVersion >= :since AND t.changeVersion < :upTo " +
+           "ORDER BY t.changeVersion, t.id")
+    List<SyncTombstone> findChanged(@Param("since") long since, @Param("upTo") long upTo);
+
+    // Every transaction with a smaller id has finished, so versions below this are final
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long findStableVersion();
+}
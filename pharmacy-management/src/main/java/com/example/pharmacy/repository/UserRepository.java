@@ -1,7 +1,10 @@
 package com.example.pharmacy.repository;
 
 import com.example.pharmacy.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +17,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     List<User> findByFullNameContainingIgnoreCase(String fullName);
+
+    // Global search index bootstrap: just the searchable columns
+    @Query("SELECT u.id, u.fullName, u.email FROM User u")
+    List<Object[]> findSearchIndexRows();
+
+    // Global search: every query word starts a word of the name (see SearchService.wordStartPattern),
+    // then exact, prefix and later-word matches; the page bounds the SQL.
+    // escape() makes % and _ typed by the user match literally.
+    @Query("SELECT u FROM User u " +
+           "WHERE concat(' ', lower(u.fullName)) LIKE :pattern ESCAPE :#{escapeCharacter()} " +
+           "ORDER BY CASE WHEN lower(u.fullName) = lower(:query) THEN 0 " +
+           "WHEN lower(u.fullName) LIKE lower(concat(:#{escape(#query)}, '%')) ESCAPE :#{escapeCharacter()} THEN 1 " +
+           "ELSE 2 END, lower(u.fullName), u.id")
+    List<User> searchByFullName(@Param("query") String query, @Param("pattern") String pattern, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.pharmacy.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.pharmacy.service.ApiKeyRegistry;
+
+import io.micrometer.common.lang.NonNull;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Authenticates terminals and integrations by HMAC-signed requests instead of
+ * a user JWT (see {@link ApiKeyRegistry} for the signature format).
+ *
+ * Only requests carrying X-Api-Key are handled here. The key is looked up
+ * before anything is read, so an unknown key costs no body buffering; a known
+ * key's body is buffered so it can be signed and then replayed to the
+ * controller. A request that fails verification is answered with a fixed 401
+ * and goes no further. A verified one runs with the key's role, so
+ * @PreAuthorize and hasPermission checks apply to it like to a user with that
+ * role.
+ */
+public class ApiKeyAuthFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyAuthFilter.class);
+
+    private static final byte[] UNAUTHORIZED = ("{\"status\":401,\"error\":\"Unauthorized\","
+        + "\"message\":\"Invalid API key signature\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TOO_LARGE = ("{\"status\":413,\"error\":\"Payload Too Large\","
+        + "\"message\":\"Signed request body too large\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final ApiKeyRegistry registry;
+    private final int maxBodyBytes;
+
+    public ApiKeyAuthFilter(ApiKeyRegistry registry, int maxBodyBytes) {
+        this.registry = registry;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        String keyId = request.getHeader(ApiKeyRegistry.KEY_HEADER);
+        if (keyId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Optional<ApiKeyRegistry.Entry> known = registry.find(keyId);
+        if (known.isEmpty()) {
+            write(response, 401, UNAUTHORIZED);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            write(response, 413, TOO_LARGE);
+            return;
+        }
+        String pathAndQuery = request.getQueryString() != null
+            ? request.getRequestURI() + "?" + request.getQueryString()
+            : request.getRequestURI();
+        Optional<ApiKeyRegistry.Entry> key = registry.verify(known.get(), request.getMethod(), pathAndQuery,
+            request.getHeader(ApiKeyRegistry.TIMESTAMP_HEADER), request.getHeader(ApiKeyRegistry.SIGNATURE_HEADER),
+            body);
+        if (key.isEmpty()) {
+            write(response, 401, UNAUTHORIZED);
+            return;
+        }
+
+        ApiKeyRegistry.Entry entry = key.get();
+        String principal = entry.terminalId() != null ? "terminal:" + entry.terminalId() : "api-key:" + entry.keyId();
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+            principal, null, entry.authorities());
+        authentication.setDetails(entry.keyId());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        logger.debug("Authenticated {} with API key {}", principal, entry.keyId());
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private static void write(HttpServletResponse response, int status, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
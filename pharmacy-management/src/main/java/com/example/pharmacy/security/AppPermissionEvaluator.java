@@ -0,0 +1,72 @@
+package com.example.pharmacy.security;
+
+import java.io.Serializable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.enums.EPermission;
+import com.example.pharmacy.service.UserDetailsImpl;
+
+/**
+ * Backs {@code hasPermission(...)} in {@code @PreAuthorize} with
+ * {@link EPermission} names, e.g.
+ * {@code @PreAuthorize("hasPermission(null, 'PRODUCT_UPDATE')")}.
+ *
+ * A principal built from a JWT carries its permission mask and is checked
+ * with one AND. Any other authentication (a database-loaded user, an older
+ * token without the claim, {@code @WithMockUser} in tests) falls back to the
+ * compiled masks of its role authorities. Permissions are global: the target
+ * object is not consulted.
+ */
+@Component
+public class AppPermissionEvaluator implements PermissionEvaluator {
+
+    private final RolePermissions rolePermissions;
+
+    @Autowired
+    public AppPermissionEvaluator(RolePermissions rolePermissions) {
+        this.rolePermissions = rolePermissions;
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        return check(authentication, permission);
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
+                                 Object permission) {
+        return check(authentication, permission);
+    }
+
+    private boolean check(Authentication authentication, Object permission) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        EPermission required = toPermission(permission);
+        if (required == null) {
+            return false;
+        }
+        long mask = authentication.getPrincipal() instanceof UserDetailsImpl user && user.getPermissionMask() != null
+            ? user.getPermissionMask()
+            : rolePermissions.maskFor(authentication.getAuthorities());
+        return (mask & RolePermissions.bit(required)) != 0;
+    }
+
+    private static EPermission toPermission(Object permission) {
+        if (permission instanceof EPermission value) {
+            return value;
+        }
+        if (permission instanceof String name) {
+            try {
+                return EPermission.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.pharmacy.security;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,14 +13,19 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.pharmacy.service.TokenRevocationList;
+import com.example.pharmacy.service.UserDetailsCache;
+import com.example.pharmacy.service.UserDetailsImpl;
 import com.example.pharmacy.service.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
 import io.micrometer.common.lang.NonNull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Date;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
 
@@ -28,6 +35,16 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    // "claims": trust the signed roles unless the account changed since the token was issued; "database": always load
+    @Value("${pharmacy.app.authMode:claims}")
+    private String authMode;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -40,15 +57,23 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             logger.info("Processing request for path: {}", path);
 
             // Bypass authentication for public login endpoints
-            if (path.equals("/api/users/login") || path.equals("/api/users/login-password") || path.equals("/api/users/verify-otp")) {
+            if (path.equals("/api/users/login") || path.equals("/api/users/login-password") || path.equals("/api/users/verify-otp")
+                    || path.equals("/api/users/refresh")) {
                 filterChain.doFilter(request, response);
                 return;
             }
 
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.getValidClaims(jwt) : null;
+            if (claims != null && tokenRevocationList.isRevoked(claims)) {
+                logger.warn("Rejected revoked token for: {}", claims.getSubject());
+                claims = null;
+            }
+            if (claims != null) {
+                UserDetails userDetails = resolveUser(claims);
+                if (!userDetails.isEnabled()) {
+                    throw new DisabledException("User is deactivated: " + userDetails.getUsername());
+                }
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -61,6 +86,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolveUser(Claims claims) {
+        if ("claims".equals(authMode)) {
+            UserDetailsImpl fromToken = jwtUtils.getUserDetails(claims);
+            Date issuedAt = claims.getIssuedAt();
+            if (fromToken.getId() != null && issuedAt != null
+                    && !userDetailsCache.isStale(fromToken.getId(), issuedAt.getTime())) {
+                return fromToken;
+            }
+        }
+        return userDetailsCache.get(claims.getSubject(),
+                email -> (UserDetailsImpl) userDetailsService.loadUserByUsername(email));
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
         if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
@@ -1,16 +1,24 @@
 package com.example.pharmacy.security;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import com.example.pharmacy.service.UserDetailsImpl;
@@ -21,6 +29,18 @@ import io.jsonwebtoken.security.SignatureException;
 
 import javax.crypto.SecretKey;
 
+/**
+ * Issues and verifies JWTs.
+ *
+ * The signing key and parser are built once, on first use, and each token is
+ * parsed a single time: verified claims are kept in a bounded map until the
+ * token's exp, so repeat requests with the same bearer token cost one hash
+ * lookup instead of an HMAC check and a JSON parse.
+ *
+ * Access tokens are short-lived and carry a unique id (jti) so a single token
+ * can be revoked; sessions are extended with refresh tokens (see
+ * RefreshTokenService) and revocation is checked by TokenRevocationList.
+ */
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
@@ -30,14 +50,55 @@ public class JwtUtils {
 
     @Value("${pharmacy.app.jwtExpirationMs}")
     private int jwtExpirationMs;
-    
+
+    @Autowired
+    private RolePermissions rolePermissions;
+
+    @Value("${pharmacy.app.jwtCacheSize:10000}")
+    private int jwtCacheSize = 10000;
+
+    // Built lazily rather than in a constructor so the @Value fields are set first
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
+    private final ConcurrentHashMap<String, Verified> verified = new ConcurrentHashMap<>();
+
+    private record Verified(Claims claims, long expiresAtMs) {
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        SecretKey key = signingKey;
+        if (key == null) {
+            synchronized (this) {
+                key = signingKey;
+                if (key == null) {
+                    key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+                    signingKey = key;
+                }
+            }
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            synchronized (this) {
+                current = parser;
+                if (current == null) {
+                    current = Jwts.parserBuilder().setSigningKey(getSigningKey()).build();
+                    parser = current;
+                }
+            }
+        }
+        return current;
     }
 
     public String generateJwtToken(Authentication authentication) {
-        UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
-       
+        return generateJwtToken((UserDetailsImpl) authentication.getPrincipal());
+    }
+
+    public String generateJwtToken(UserDetailsImpl userPrincipal) {
         Map<String, Object> claims = new HashMap<>();
         Set<String> roles = userPrincipal.getAuthorities().stream()
                 .map(item -> item.getAuthority())
@@ -46,34 +107,32 @@ public class JwtUtils {
         claims.put("id", userPrincipal.getId());
         claims.put("username", userPrincipal.getUsername());
         claims.put("email", userPrincipal.getEmail());
-        
+        // One bit per EPermission ordinal, compiled from the roles at startup
+        claims.put("perms", rolePermissions.maskFor(userPrincipal.getAuthorities()));
+
+        Date now = new Date();
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + jwtExpirationMs))
                 .signWith(getSigningKey())  // Updated to use the new approach
                 .compact();
     }
 
     public String getUserNameFromJwtToken(String token) {
-        // Updated to use new parser method
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return getValidClaims(authToken) != null;
+    }
+
+    // Verified claims, or null (logged) when the token is not acceptable; callers must not modify them
+    public Claims getValidClaims(String authToken) {
         try {
-            // Updated to use new parser method
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
+            return verify(authToken);
         } catch (SignatureException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -85,6 +144,64 @@ public class JwtUtils {
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    // Principal rebuilt from the signed claims alone: no password, profile fields left empty
+    public UserDetailsImpl getUserDetails(Claims claims) {
+        Object id = claims.get("id");
+        Object roles = claims.get("roles");
+        Object perms = claims.get("perms");
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (roles instanceof Collection<?> names) {
+            for (Object name : names) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(name)));
+            }
+        }
+        UserDetailsImpl user = new UserDetailsImpl(
+                id instanceof Number number ? number.longValue() : null,
+                claims.get("username", String.class),
+                claims.getSubject(),
+                null,
+                authorities,
+                null,
+                null,
+                true);
+        if (perms instanceof Number mask) {
+            user.setPermissionMask(mask.longValue());
+        }
+        return user;
+    }
+
+    int verifiedCacheSize() {
+        return verified.size();
+    }
+
+    // Throws the parser's exception for anything that doesn't verify
+    private Claims verify(String token) {
+        long now = System.currentTimeMillis();
+        if (token != null) {
+            Verified hit = verified.get(token);
+            if (hit != null) {
+                if (hit.expiresAtMs() > now) {
+                    return hit.claims();
+                }
+                verified.remove(token, hit);
+            }
+        }
+
+        Claims claims = getParser().parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (expiration != null && jwtCacheSize > 0) {
+            if (verified.size() >= jwtCacheSize) {
+                verified.values().removeIf(entry -> entry.expiresAtMs() <= now);
+                if (verified.size() >= jwtCacheSize) {
+                    // Still full of live tokens: start over rather than track recency on every hit
+                    verified.clear();
+                }
+            }
+            verified.put(token, new Verified(claims, expiration.getTime()));
+        }
+        return claims;
     }
 }
\ No newline at end of file
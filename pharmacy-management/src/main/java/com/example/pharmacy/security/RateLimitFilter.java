@@ -0,0 +1,152 @@
+package com.example.pharmacy.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.pharmacy.security.TokenBucketRateLimiter.Limit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.common.lang.NonNull;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Throttles the open endpoints that cost BCrypt work or an email (login, OTP,
+ * password reset) and the search endpoints, before any authentication runs.
+ *
+ * Login-type POSTs are limited per client IP and per account named in the
+ * JSON body - the email, or the username for /api/auth/signin; a refresh
+ * names no account and is limited per IP only. Search GETs are limited per
+ * client IP. Over the limit the request is answered with a fixed 429 body and
+ * never reaches the controllers.
+ */
+public class RateLimitFilter extends OncePerRequestFilter implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final Set<String> AUTH_PATHS = Set.of(
+        "/api/users/login", "/api/users/login-password", "/api/users/initiate-login", "/api/users/verify-otp",
+        "/api/users/forgot-password", "/api/users/reset-password", "/api/users/refresh", "/api/auth/signin");
+    // Body field identifying the account each auth endpoint acts on
+    private static final Map<String, String> ACCOUNT_FIELDS = Map.of(
+        "/api/users/login", "email", "/api/users/login-password", "email", "/api/users/initiate-login", "email",
+        "/api/users/verify-otp", "email", "/api/users/forgot-password", "email",
+        "/api/users/reset-password", "email", "/api/auth/signin", "username");
+    private static final Set<String> SEARCH_PATHS = Set.of(
+        "/api/search", "/api/products/search", "/api/sales/search");
+
+    // Login bodies are tiny; a larger one is refused rather than let past the per-account limit
+    private static final int MAX_AUTH_BODY = 4096;
+
+    private static final byte[] TOO_MANY_REQUESTS = ("{\"status\":429,\"error\":\"Too Many Requests\","
+        + "\"message\":\"Rate limit exceeded, retry later\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TOO_LARGE = ("{\"status\":413,\"error\":\"Payload Too Large\","
+        + "\"message\":\"Request body too large\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final TokenBucketRateLimiter limiter;
+    private final Limit authPerIp;
+    private final Limit authPerAccount;
+    private final Limit searchPerIp;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong rejectedAuthByIp = new AtomicLong();
+    private final AtomicLong rejectedAuthByAccount = new AtomicLong();
+    private final AtomicLong rejectedSearchByIp = new AtomicLong();
+
+    public RateLimitFilter(TokenBucketRateLimiter limiter, Limit authPerIp, Limit authPerAccount, Limit searchPerIp) {
+        this.limiter = limiter;
+        this.authPerIp = authPerIp;
+        this.authPerAccount = authPerAccount;
+        this.searchPerIp = searchPerIp;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        String ip = request.getRemoteAddr();
+
+        if ("POST".equals(request.getMethod()) && AUTH_PATHS.contains(path)) {
+            if (!limiter.tryAcquire("auth-ip:" + ip, authPerIp)) {
+                reject(response, rejectedAuthByIp, authPerIp, path, ip);
+                return;
+            }
+            byte[] body = request.getInputStream().readNBytes(MAX_AUTH_BODY + 1);
+            if (body.length > MAX_AUTH_BODY) {
+                write(response, 413, TOO_LARGE);
+                return;
+            }
+            String field = ACCOUNT_FIELDS.get(path);
+            String account = field != null ? account(body, field) : null;
+            if (account != null && !limiter.tryAcquire("auth-" + field + ":" + account, authPerAccount)) {
+                reject(response, rejectedAuthByAccount, authPerAccount, path, ip);
+                return;
+            }
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+        if ("GET".equals(request.getMethod()) && SEARCH_PATHS.contains(path)
+                && !limiter.tryAcquire("search-ip:" + ip, searchPerIp)) {
+            reject(response, rejectedSearchByIp, searchPerIp, path, ip);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        register(registry, rejectedAuthByIp, "auth", "ip");
+        register(registry, rejectedAuthByAccount, "auth", "account");
+        register(registry, rejectedSearchByIp, "search", "ip");
+    }
+
+    private static void register(MeterRegistry registry, AtomicLong counter, String endpoint, String key) {
+        FunctionCounter.builder("pharmacy.ratelimit.rejected", counter, AtomicLong::get)
+            .tag("endpoint", endpoint)
+            .tag("key", key)
+            .description("Requests answered with 429 by the rate limiter")
+            .register(registry);
+    }
+
+    private String account(byte[] body, String field) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode value = objectMapper.readTree(body).get(field);
+            return value != null && value.isTextual() ? value.asText().trim().toLowerCase() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, AtomicLong counter, Limit limit, String path, String ip)
+            throws IOException {
+        counter.incrementAndGet();
+        logger.debug("Rate limited {} from {}", path, ip);
+        response.setHeader("Retry-After", String.valueOf(limit.retryAfterSeconds()));
+        write(response, 429, TOO_MANY_REQUESTS);
+    }
+
+    private static void write(HttpServletResponse response, int status, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
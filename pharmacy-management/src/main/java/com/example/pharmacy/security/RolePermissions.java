@@ -0,0 +1,137 @@
+package com.example.pharmacy.security;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.pharmacy.entity.AppPermission;
+import com.example.pharmacy.entity.Role;
+import com.example.pharmacy.enums.EPermission;
+import com.example.pharmacy.enums.ERole;
+import com.example.pharmacy.repository.RoleRepository;
+
+/**
+ * Role-to-permission table compiled into bitmasks.
+ *
+ * The roles/role_permissions tables are read once at startup (and on
+ * {@link #reload}); each role's permissions become one long with a bit per
+ * {@link EPermission} ordinal. A user's mask is the OR of their roles' masks,
+ * is embedded in the JWT and is checked by {@link AppPermissionEvaluator}, so
+ * authorization never loads roles or permissions per request. A role with no
+ * permission rows gets the built-in defaults below.
+ */
+@Component
+public class RolePermissions {
+    private static final Logger logger = LoggerFactory.getLogger(RolePermissions.class);
+
+    private static final Map<ERole, Set<EPermission>> DEFAULTS = Map.of(
+        ERole.ROLE_ADMIN, EnumSet.allOf(EPermission.class),
+        ERole.ROLE_PHARMACIST, EnumSet.of(
+            EPermission.PRODUCT_READ, EPermission.PRODUCT_CREATE, EPermission.PRODUCT_UPDATE,
+            EPermission.PRODUCT_DELETE, EPermission.STOCK_READ, EPermission.STOCK_UPDATE,
+            EPermission.STOCK_IMPORT, EPermission.STOCK_EXPORT, EPermission.SALE_CREATE,
+            EPermission.SALE_READ, EPermission.SALE_UPDATE, EPermission.REPORT_SALES,
+            EPermission.REPORT_STOCK, EPermission.USER_READ),
+        ERole.ROLE_STAFF, EnumSet.of(
+            EPermission.PRODUCT_READ, EPermission.STOCK_READ, EPermission.SALE_CREATE,
+            EPermission.SALE_READ));
+
+    private final RoleRepository roleRepository;
+
+    // Indexed by ERole ordinal; replaced wholesale on reload
+    private volatile long[] masks = compile(Map.of());
+
+    @Autowired
+    public RolePermissions(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        Map<ERole, Set<EPermission>> granted = new EnumMap<>(ERole.class);
+        for (Role role : roleRepository.findAllWithPermissions()) {
+            Set<EPermission> permissions = EnumSet.noneOf(EPermission.class);
+            for (AppPermission permission : role.getPermissions()) {
+                if (permission.getName() != null) {
+                    permissions.add(permission.getName());
+                }
+            }
+            if (role.getName() != null && !permissions.isEmpty()) {
+                granted.put(role.getName(), permissions);
+            }
+        }
+        masks = compile(granted);
+        logger.info("Compiled permissions for {} roles ({} from the database)", masks.length, granted.size());
+    }
+
+    public long maskOf(ERole role) {
+        return masks[role.ordinal()];
+    }
+
+    // Authorities that are not roles (or unknown roles) grant nothing
+    public long maskFor(Collection<? extends GrantedAuthority> authorities) {
+        long[] current = masks;
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            ERole role = roleOf(authority.getAuthority());
+            if (role != null) {
+                mask |= current[role.ordinal()];
+            }
+        }
+        return mask;
+    }
+
+    public static long toMask(Set<EPermission> permissions) {
+        long mask = 0;
+        for (EPermission permission : permissions) {
+            mask |= bit(permission);
+        }
+        return mask;
+    }
+
+    public static EnumSet<EPermission> fromMask(long mask) {
+        EnumSet<EPermission> permissions = EnumSet.noneOf(EPermission.class);
+        for (EPermission permission : EPermission.values()) {
+            if ((mask & bit(permission)) != 0) {
+                permissions.add(permission);
+            }
+        }
+        return permissions;
+    }
+
+    public static long bit(EPermission permission) {
+        return 1L << permission.ordinal();
+    }
+
+    private static long[] compile(Map<ERole, Set<EPermission>> granted) {
+        long[] compiled = new long[ERole.values().length];
+        for (ERole role : ERole.values()) {
+            Set<EPermission> permissions = granted.getOrDefault(role, DEFAULTS.getOrDefault(role, Set.of()));
+            compiled[role.ordinal()] = toMask(permissions);
+        }
+        return compiled;
+    }
+
+    private static ERole roleOf(String authority) {
+        if (authority == null) {
+            return null;
+        }
+        try {
+            return ERole.valueOf(authority);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.pharmacy.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory token buckets keyed by arbitrary strings (client IP, email).
+ *
+ * Keys are spread over a fixed number of stripes, each guarded by its own
+ * lock, so unrelated clients rarely contend. Each stripe keeps at most a
+ * fixed number of buckets and drops the least recently used one when full;
+ * a dropped bucket simply starts again full. Tokens are refilled lazily from
+ * the elapsed time on each call.
+ */
+public class TokenBucketRateLimiter {
+    private static final int STRIPES = 64;
+
+    public record Limit(int capacity, double refillPerSecond) {
+        public Limit {
+            if (capacity < 1 || refillPerSecond <= 0) {
+                throw new IllegalArgumentException("capacity and refill rate must be positive");
+            }
+        }
+
+        // Seconds until one token is back, for Retry-After
+        public long retryAfterSeconds() {
+            return Math.max(1, (long) Math.ceil(1 / refillPerSecond));
+        }
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAtNanos;
+
+        Bucket(double tokens, long refilledAtNanos) {
+            this.tokens = tokens;
+            this.refilledAtNanos = refilledAtNanos;
+        }
+    }
+
+    private final Map<String, Bucket>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(int maxKeys) {
+        int perStripe = Math.max(1, maxKeys / STRIPES);
+        stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > perStripe;
+                }
+            };
+        }
+    }
+
+    public boolean tryAcquire(String key, Limit limit) {
+        int hash = key.hashCode();
+        Map<String, Bucket> stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(limit.capacity(), now);
+                stripe.put(key, bucket);
+            } else {
+                double refill = (now - bucket.refilledAtNanos) / 1e9 * limit.refillPerSecond();
+                bucket.tokens = Math.min(limit.capacity(), bucket.tokens + refill);
+                bucket.refilledAtNanos = now;
+            }
+            if (bucket.tokens < 1) {
+                return false;
+            }
+            bucket.tokens -= 1;
+            return true;
+        }
+    }
+}
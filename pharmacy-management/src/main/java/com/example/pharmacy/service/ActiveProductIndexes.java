@@ -0,0 +1,45 @@
+package com.example.pharmacy.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Partial indexes over active products. Discontinued products stay in the
+ * table for sales history but drop out of these indexes, so catalog lookups
+ * don't pay for them and a retired barcode can be reused. JPA cannot declare
+ * partial indexes, hence the DDL here. Only usable against PostgreSQL.
+ */
+@Component
+public class ActiveProductIndexes {
+    private static final Logger logger = LoggerFactory.getLogger(ActiveProductIndexes.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ActiveProductIndexes(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            // Superseded by the partial unique index below
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_products_barcode");
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_products_barcode_active "
+                + "ON products (barcode) WHERE active");
+            // Bulk upsert diff: lower(name) IN (...)
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_products_active_lower_name "
+                + "ON products (lower(name)) WHERE active");
+            // Products by supplier, percentage repricing by supplier
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_products_active_supplier "
+                + "ON products (supplier_id) WHERE active");
+        } catch (Exception e) {
+            logger.warn("Could not create active-product indexes: {}", e.getMessage());
+        }
+    }
+}
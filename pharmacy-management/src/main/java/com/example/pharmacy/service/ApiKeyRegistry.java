@@ -0,0 +1,234 @@
+package com.example.pharmacy.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.entity.ApiKey;
+import com.example.pharmacy.enums.ERole;
+import com.example.pharmacy.repository.ApiKeyRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Active API keys held in memory, and verification of requests signed with
+ * them.
+ *
+ * A signed request sends X-Api-Key, X-Timestamp (epoch seconds) and
+ * X-Signature: Base64 HMAC-SHA256 over "METHOD\nPATH[?QUERY]\nTIMESTAMP\n"
+ * followed by the raw body. Verifying it is a map lookup and one HMAC, using
+ * a per-key Mac initialised at load time. Timestamps outside the allowed skew
+ * are refused, and a signature for a state-changing request is accepted only
+ * once per node; when the replay cache is full of still-live signatures,
+ * further state-changing requests are refused rather than any forgotten.
+ * Keys are loaded at startup, reloaded after local changes commit, and
+ * reloaded when a poll sees another node changed them.
+ */
+@Component
+public class ApiKeyRegistry implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyRegistry.class);
+
+    public static final String KEY_HEADER = "X-Api-Key";
+    public static final String TIMESTAMP_HEADER = "X-Timestamp";
+    public static final String SIGNATURE_HEADER = "X-Signature";
+
+    /**
+     * A loaded key. The Mac is a prototype: each verification works on a
+     * clone, which skips re-deriving the HMAC key pads.
+     */
+    public record Entry(Long id, String keyId, String name, String terminalId,
+                        List<GrantedAuthority> authorities, Mac prototype) {
+        Mac newMac() throws GeneralSecurityException {
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new GeneralSecurityException("HMAC provider does not support cloning", e);
+            }
+        }
+    }
+
+    private final ApiKeyRepository repository;
+    private final long maxSkewSeconds;
+    private final int replayCacheSize;
+
+    private final ConcurrentHashMap<String, Long> recentSignatures = new ConcurrentHashMap<>();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile Map<String, Entry> keys = Map.of();
+    private volatile long lastSweepSeconds;
+    private LocalDateTime loadedChange;
+
+    @Autowired
+    public ApiKeyRegistry(ApiKeyRepository repository,
+                          @Value("${pharmacy.api-keys.max-clock-skew-seconds:300}") long maxSkewSeconds,
+                          @Value("${pharmacy.api-keys.replay-cache-size:100000}") int replayCacheSize) {
+        this.repository = repository;
+        this.maxSkewSeconds = maxSkewSeconds;
+        this.replayCacheSize = replayCacheSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        LocalDateTime change = repository.findLastChange();
+        Map<String, Entry> loaded = new HashMap<>();
+        for (ApiKey key : repository.findByActiveTrue()) {
+            try {
+                loaded.put(key.getKeyId(), toEntry(key));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                logger.error("Skipping unusable API key {}: {}", key.getKeyId(), e.getMessage());
+            }
+        }
+        keys = Map.copyOf(loaded);
+        loadedChange = change;
+        logger.info("Loaded {} active API keys", loaded.size());
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.api-keys.refresh-ms:10000}")
+    public void refreshIfChanged() {
+        LocalDateTime change = repository.findLastChange();
+        boolean changed;
+        synchronized (this) {
+            changed = !Objects.equals(change, loadedChange);
+        }
+        if (changed) {
+            reload();
+        }
+    }
+
+    // Applies a local create/deactivate as soon as it commits
+    public void reloadAfterCommit() {
+        TransactionCallbacks.afterCommit(this::reload);
+    }
+
+    // A map lookup, so callers can refuse an unknown key before reading the body
+    public Optional<Entry> find(String keyId) {
+        Entry entry = keyId != null ? keys.get(keyId) : null;
+        return entry != null ? Optional.of(entry) : reject("unknown key", keyId);
+    }
+
+    public Optional<Entry> verify(Entry entry, String method, String pathAndQuery, String timestamp,
+                                  String signature, byte[] body) {
+        String keyId = entry.keyId();
+        if (timestamp == null || signature == null) {
+            return reject("missing headers", keyId);
+        }
+        long now = System.currentTimeMillis() / 1000;
+        long sentAt;
+        byte[] presented;
+        try {
+            sentAt = Long.parseLong(timestamp.trim());
+            presented = Base64.getDecoder().decode(signature.trim());
+        } catch (IllegalArgumentException e) {
+            return reject("malformed timestamp or signature", keyId);
+        }
+        if (Math.abs(now - sentAt) > maxSkewSeconds) {
+            return reject("timestamp outside allowed skew", keyId);
+        }
+
+        byte[] expected;
+        try {
+            Mac mac = entry.newMac();
+            mac.update((method + "\n" + pathAndQuery + "\n" + sentAt + "\n").getBytes(StandardCharsets.UTF_8));
+            expected = mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            logger.error("HMAC unavailable for API key {}: {}", keyId, e.getMessage());
+            return reject("hmac unavailable", keyId);
+        }
+        if (!MessageDigest.isEqual(expected, presented)) {
+            return reject("bad signature", keyId);
+        }
+        if (!isSafeMethod(method)) {
+            if (!hasReplayRoom(now)) {
+                return reject("replay cache full", keyId);
+            }
+            if (recentSignatures.putIfAbsent(keyId + ":" + signature.trim(), sentAt + maxSkewSeconds) != null) {
+                return reject("replayed signature", keyId);
+            }
+        }
+        accepted.incrementAndGet();
+        return Optional.of(entry);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("pharmacy.api-keys.requests", accepted, AtomicLong::get)
+            .tag("result", "accepted")
+            .description("API-key signed requests that verified")
+            .register(registry);
+        FunctionCounter.builder("pharmacy.api-keys.requests", rejected, AtomicLong::get)
+            .tag("result", "rejected")
+            .description("API-key signed requests refused")
+            .register(registry);
+        Gauge.builder("pharmacy.api-keys.active", this, ApiKeyRegistry::size)
+            .description("Active API keys loaded on this node")
+            .register(registry);
+    }
+
+    private Optional<Entry> reject(String reason, String keyId) {
+        rejected.incrementAndGet();
+        logger.warn("Rejected API key request for {}: {}", keyId, reason);
+        return Optional.empty();
+    }
+
+    /*
+     * Bounded: when full, signatures past the skew window (which verify refuses
+     * anyway) are dropped, at most one sweep a second. A cache still full of
+     * live signatures cannot forget any without reopening them to replay.
+     */
+    private boolean hasReplayRoom(long now) {
+        if (recentSignatures.size() >= replayCacheSize && lastSweepSeconds != now) {
+            lastSweepSeconds = now;
+            recentSignatures.values().removeIf(expiry -> expiry < now);
+        }
+        return recentSignatures.size() < replayCacheSize;
+    }
+
+    private static boolean isSafeMethod(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    // Admin is reserved for people; a key row with it (e.g. created before this check) is never loaded
+    public static boolean isAllowedRole(ERole role) {
+        return role == ERole.ROLE_STAFF || role == ERole.ROLE_PHARMACIST;
+    }
+
+    static Entry toEntry(ApiKey key) throws GeneralSecurityException {
+        if (!isAllowedRole(key.getRole())) {
+            throw new IllegalArgumentException("role " + key.getRole() + " is not allowed for API keys");
+        }
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getUrlDecoder().decode(key.getSecret()), "HmacSHA256"));
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(key.getRole().name()));
+        return new Entry(key.getId(), key.getKeyId(), key.getName(), key.getTerminalId(), authorities, mac);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.pharmacy.service;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.pharmacy.dto.ApiKeyDTO;
+import com.example.pharmacy.entity.ApiKey;
+import com.example.pharmacy.enums.ERole;
+import com.example.pharmacy.repository.ApiKeyRepository;
+
+/**
+ * Creates, lists and deactivates API keys for terminals and integrations.
+ * Keys carry a staff or pharmacist role, never admin: a leaked terminal
+ * secret must not be able to manage users or mint further keys. Every change
+ * is pushed to the in-memory {@link ApiKeyRegistry} on commit.
+ */
+@Service
+public class ApiKeyService {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyService.class);
+
+    private final ApiKeyRepository repository;
+    private final ApiKeyRegistry registry;
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    public ApiKeyService(ApiKeyRepository repository, ApiKeyRegistry registry) {
+        this.repository = repository;
+        this.registry = registry;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ApiKeyDTO> getAllKeys() {
+        return repository.findAll().stream().map(key -> toDTO(key, null)).toList();
+    }
+
+    // The returned DTO is the only place the secret is ever shown
+    @Transactional
+    public ApiKeyDTO createKey(String name, String terminalId, String roleName) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("API key name is required");
+        }
+        ERole role;
+        try {
+            role = roleName == null ? ERole.ROLE_STAFF : ERole.valueOf(roleName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid role: " + roleName);
+        }
+        if (!ApiKeyRegistry.isAllowedRole(role)) {
+            throw new IllegalArgumentException("API keys can only have ROLE_STAFF or ROLE_PHARMACIST");
+        }
+
+        byte[] id = new byte[12];
+        byte[] secret = new byte[32];
+        random.nextBytes(id);
+        random.nextBytes(secret);
+        String encodedSecret = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        ApiKey key = repository.save(new ApiKey("pk_" + HexFormat.of().formatHex(id), encodedSecret,
+                name.trim(), terminalId, role));
+        registry.reloadAfterCommit();
+        logger.info("Created API key {} for {}", key.getKeyId(), key.getName());
+        return toDTO(key, encodedSecret);
+    }
+
+    @Transactional
+    public void deactivateKey(Long id) {
+        ApiKey key = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("API key not found with id: " + id));
+        key.setActive(false);
+        key.setUpdatedAt(LocalDateTime.now());
+        repository.save(key);
+        registry.reloadAfterCommit();
+        logger.info("Deactivated API key {}", key.getKeyId());
+    }
+
+    private static ApiKeyDTO toDTO(ApiKey key, String secret) {
+        ApiKeyDTO dto = new ApiKeyDTO();
+        dto.setId(key.getId());
+        dto.setKeyId(key.getKeyId());
+        dto.setSecret(secret);
+        dto.setName(key.getName());
+        dto.setTerminalId(key.getTerminalId());
+        dto.setRole(key.getRole().name());
+        dto.setActive(key.isActive());
+        dto.setCreatedAt(key.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.pharmacy.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.StockDTO;
+import com.example.pharmacy.repository.StockRepository;
+
+/**
+ * Hash lookup from a scanned code to its product or stock batch, plus every
+ * batch per product, so a POS scan is answered without a query.
+ *
+ * Product codes follow the catalog cache; batches are loaded once and then
+ * kept current by {@link BarcodeIndexListener} after each stock write
+ * commits. Codes are expected in {@link Barcodes#normalize} form. Batch
+ * snapshots must be treated as read-only.
+ */
+@Component
+public class BarcodeIndex implements ProductCatalogCache.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(BarcodeIndex.class);
+
+    // stockId is null when the code is the product's own barcode
+    public record Hit(Long productId, Long stockId) {
+    }
+
+    private final StockRepository stockRepository;
+
+    private final Map<String, Long> productByCode = new ConcurrentHashMap<>();
+    private final Map<Long, String> codeByProduct = new ConcurrentHashMap<>();
+    private final Map<String, Long> stockByCode = new ConcurrentHashMap<>();
+    private final Map<Long, StockDTO> batchesById = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, StockDTO>> batchesByProduct = new ConcurrentHashMap<>();
+    private volatile boolean batchesLoaded;
+
+    @Autowired
+    public BarcodeIndex(StockRepository stockRepository) {
+        this.stockRepository = stockRepository;
+    }
+
+    // Product barcodes win over batch barcodes
+    public Optional<Hit> lookup(String code) {
+        Long productId = productByCode.get(code);
+        if (productId != null) {
+            return Optional.of(new Hit(productId, null));
+        }
+        Long stockId = stockByCode.get(code);
+        StockDTO batch = stockId != null ? batchesById.get(stockId) : null;
+        return batch != null ? Optional.of(new Hit(batch.getProductId(), stockId)) : Optional.empty();
+    }
+
+    public Collection<StockDTO> batches(Long productId) {
+        Map<Long, StockDTO> batches = batchesByProduct.get(productId);
+        return batches != null ? batches.values() : List.of();
+    }
+
+    public Optional<StockDTO> batch(Long stockId) {
+        return Optional.ofNullable(batchesById.get(stockId));
+    }
+
+    public boolean isBatchesLoaded() {
+        return batchesLoaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmBatches() {
+        try {
+            loadBatches();
+        } catch (Exception e) {
+            logger.warn("Could not load stock batches for barcode scans: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Loads every batch once. Stock writes committing meanwhile wait on the
+     * lock and are applied on top, so the snapshot can't overwrite them.
+     */
+    public synchronized void loadBatches() {
+        if (batchesLoaded) {
+            return;
+        }
+        List<StockDTO> loaded = stockRepository.findAllAsDTO();
+        for (StockDTO batch : loaded) {
+            batch.setProductName(null); // the scan response carries the product itself
+            index(batch);
+        }
+        batchesLoaded = true;
+        logger.info("Loaded {} stock batches into barcode index", loaded.size());
+    }
+
+    public void putBatch(StockDTO batch) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                unindex(batch.getStockId());
+                index(batch);
+            }
+        });
+    }
+
+    public void removeBatch(Long stockId) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                unindex(stockId);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void onCatalogLoaded(Collection<ProductDTO> products) {
+        productByCode.clear();
+        codeByProduct.clear();
+        for (ProductDTO product : products) {
+            putProductCode(product);
+        }
+        logger.info("Built barcode index over {} product codes", productByCode.size());
+    }
+
+    @Override
+    public synchronized void onProductUpserted(ProductDTO product) {
+        removeProductCode(product.getProductId());
+        putProductCode(product);
+    }
+
+    @Override
+    public synchronized void onProductRemoved(Long productId) {
+        removeProductCode(productId);
+        Map<Long, StockDTO> batches = batchesByProduct.get(productId);
+        if (batches != null) {
+            List.copyOf(batches.keySet()).forEach(this::unindex);
+        }
+    }
+
+    private void putProductCode(ProductDTO product) {
+        if (product.getBarcode() != null) {
+            productByCode.put(product.getBarcode(), product.getProductId());
+            codeByProduct.put(product.getProductId(), product.getBarcode());
+        }
+    }
+
+    private void removeProductCode(Long productId) {
+        String code = codeByProduct.remove(productId);
+        if (code != null) {
+            productByCode.remove(code, productId);
+        }
+    }
+
+    private void index(StockDTO batch) {
+        batchesById.put(batch.getStockId(), batch);
+        batchesByProduct.computeIfAbsent(batch.getProductId(), id -> new ConcurrentHashMap<>())
+            .put(batch.getStockId(), batch);
+        if (batch.getBarcode() != null) {
+            stockByCode.put(batch.getBarcode(), batch.getStockId());
+        }
+    }
+
+    private void unindex(Long stockId) {
+        StockDTO previous = batchesById.remove(stockId);
+        if (previous == null) {
+            return;
+        }
+        Map<Long, StockDTO> batches = batchesByProduct.get(previous.getProductId());
+        if (batches != null) {
+            batches.remove(stockId);
+            if (batches.isEmpty()) {
+                batchesByProduct.remove(previous.getProductId());
+            }
+        }
+        if (previous.getBarcode() != null) {
+            stockByCode.remove(previous.getBarcode(), stockId);
+        }
+    }
+}
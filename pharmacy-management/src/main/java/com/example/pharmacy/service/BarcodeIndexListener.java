@@ -0,0 +1,42 @@
+package com.example.pharmacy.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.example.pharmacy.dto.StockDTO;
+import com.example.pharmacy.entity.Stock;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener keeping {@link BarcodeIndex} batches in step with stock
+ * writes (receipts, edits and the decrements made by sales). Resolved lazily
+ * for the same reason as {@link GlobalSearchIndexListener}.
+ */
+public class BarcodeIndexListener {
+    // Stays null if Hibernate instantiates the listener itself (no Spring bean container)
+    @Autowired
+    private ObjectProvider<BarcodeIndex> barcodeIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Stock stock) {
+        BarcodeIndex index = barcodeIndex != null ? barcodeIndex.getIfAvailable() : null;
+        if (index == null) {
+            return;
+        }
+        // Reading the id off the product proxy does not initialize it
+        index.putBatch(new StockDTO(stock.getStockId(), stock.getProduct().getProductId(), null,
+            stock.getBatchNumber(), stock.getQuantity(), stock.getExpiryDate(), stock.getBarcode()));
+    }
+
+    @PostRemove
+    public void onRemove(Stock stock) {
+        BarcodeIndex index = barcodeIndex != null ? barcodeIndex.getIfAvailable() : null;
+        if (index != null) {
+            index.removeBatch(stock.getStockId());
+        }
+    }
+}
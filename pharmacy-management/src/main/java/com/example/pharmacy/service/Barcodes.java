@@ -0,0 +1,54 @@
+package com.example.pharmacy.service;
+
+import java.util.Locale;
+
+/**
+ * Canonical form for product and batch barcodes.
+ *
+ * Numeric GTIN-8/12/13/14 codes are check-digit validated and left-padded to
+ * 14 digits, so the same item scanned as UPC-A or EAN-13 resolves to one key.
+ * Anything else (internal or GS1 batch labels) is kept as an upper-cased token.
+ */
+public final class Barcodes {
+    static final int MAX_LENGTH = 64;
+    private static final int GTIN_LENGTH = 14;
+
+    private Barcodes() {
+    }
+
+    // Null for a blank code; IllegalArgumentException for a malformed one
+    public static String normalize(String code) {
+        if (code == null) {
+            return null;
+        }
+        String trimmed = code.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        if (trimmed.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Barcode is longer than " + MAX_LENGTH + " characters");
+        }
+        if (isGtinLength(trimmed.length()) && trimmed.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            String gtin = "0".repeat(GTIN_LENGTH - trimmed.length()) + trimmed;
+            if (!hasValidCheckDigit(gtin)) {
+                throw new IllegalArgumentException("Invalid GTIN check digit: " + trimmed);
+            }
+            return gtin;
+        }
+        return trimmed.toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isGtinLength(int length) {
+        return length == 8 || length == 12 || length == 13 || length == 14;
+    }
+
+    // GS1 mod-10: weights 3,1,3,... from the digit left of the check digit
+    private static boolean hasValidCheckDigit(String gtin) {
+        int sum = 0;
+        for (int i = 0; i < GTIN_LENGTH - 1; i++) {
+            int digit = gtin.charAt(i) - '0';
+            sum += i % 2 == 0 ? digit * 3 : digit;
+        }
+        return (10 - sum % 10) % 10 == gtin.charAt(GTIN_LENGTH - 1) - '0';
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.pharmacy.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.pharmacy.entity.OutboxEmail;
+import com.example.pharmacy.repository.OutboxEmailRepository;
+
+/**
+ * Queues outgoing email in the caller's transaction. Nothing talks to SMTP
+ * here: the message is sent by {@link EmailOutboxSender} after commit, and
+ * is dropped with the rest of the transaction on rollback.
+ */
+@Component
+public class EmailOutbox {
+
+    private final OutboxEmailRepository repository;
+
+    @Autowired
+    public EmailOutbox(OutboxEmailRepository repository) {
+        this.repository = repository;
+    }
+
+    @Transactional
+    public void enqueue(String to, String subject, String body, boolean html) {
+        repository.save(new OutboxEmail(to, subject, body, html));
+    }
+
+    // For mail that is useless (and should not linger) once its content lapses, e.g. an OTP
+    @Transactional
+    public void enqueue(String to, String subject, String body, boolean html, Duration validFor) {
+        repository.save(new OutboxEmail(to, subject, body, html, LocalDateTime.now().plus(validFor)));
+    }
+}
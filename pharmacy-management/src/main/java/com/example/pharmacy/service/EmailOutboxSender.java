@@ -0,0 +1,274 @@
+package com.example.pharmacy.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.entity.OutboxEmail;
+import com.example.pharmacy.repository.OutboxEmailRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Background worker draining the email outbox.
+ *
+ * Due messages are claimed in batches under a short lease (so nodes never
+ * send the same row twice while it is in flight) and handed to
+ * {@link JavaMailSender#send(MimeMessage...)}, which delivers a whole batch
+ * over one SMTP connection. No database connection is held during the SMTP
+ * exchange. Sent rows are deleted; failed ones are retried with exponential
+ * backoff and marked FAILED, body redacted, after the last attempt. A message
+ * with an expiry (OTP mail) is never sent after it: it is dropped when
+ * claimed late or when its next retry would fall past it, and a scheduled
+ * purge deletes expired rows and FAILED rows past their retention. When whole
+ * batches keep failing (server down, bad credentials) a circuit breaker
+ * pauses sending for a while instead of hammering the server.
+ */
+@Component
+public class EmailOutboxSender implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxSender.class);
+
+    private final OutboxEmailRepository repository;
+    private final JavaMailSender mailSender;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final int breakerThreshold;
+    private final long breakerOpenMs;
+    private final long leaseMs;
+    private final long failedRetentionMs;
+    private final int purgeBatchSize;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private int consecutiveBatchFailures;
+    private volatile long openUntilMs;
+
+    @Autowired
+    public EmailOutboxSender(OutboxEmailRepository repository, JavaMailSender mailSender,
+                             @Value("${pharmacy.mail.outbox.batch-size:50}") int batchSize,
+                             @Value("${pharmacy.mail.outbox.max-attempts:8}") int maxAttempts,
+                             @Value("${pharmacy.mail.outbox.backoff-ms:5000}") long backoffMs,
+                             @Value("${pharmacy.mail.outbox.max-backoff-ms:600000}") long maxBackoffMs,
+                             @Value("${pharmacy.mail.outbox.breaker-threshold:3}") int breakerThreshold,
+                             @Value("${pharmacy.mail.outbox.breaker-open-ms:60000}") long breakerOpenMs,
+                             @Value("${pharmacy.mail.outbox.lease-ms:120000}") long leaseMs,
+                             @Value("${pharmacy.mail.outbox.failed-retention-ms:604800000}") long failedRetentionMs,
+                             @Value("${pharmacy.mail.outbox.purge-batch-size:1000}") int purgeBatchSize) {
+        this.repository = repository;
+        this.mailSender = mailSender;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.breakerThreshold = breakerThreshold;
+        this.breakerOpenMs = breakerOpenMs;
+        this.leaseMs = leaseMs;
+        this.failedRetentionMs = failedRetentionMs;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.mail.outbox.poll-ms:1000}")
+    public synchronized void drain() {
+        List<OutboxEmail> batch;
+        do {
+            if (isCircuitOpen()) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            batch = repository.claimDue(now, now.plusNanos(leaseMs * 1_000_000), batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            sendBatch(batch);
+        } while (batch.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.mail.outbox.purge-interval-ms:300000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime failedBefore = now.minusNanos(failedRetentionMs * 1_000_000);
+        int purged = 0;
+        int batch;
+        do {
+            batch = repository.deleteExpiredBatch(now, failedBefore, purgeBatchSize);
+            purged += batch;
+        } while (batch == purgeBatchSize);
+        if (purged > 0) {
+            logger.info("Purged {} expired or failed outbox emails", purged);
+        }
+    }
+
+    public boolean isCircuitOpen() {
+        return System.currentTimeMillis() < openUntilMs;
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("pharmacy.mail.outbox.messages", sent, AtomicLong::get)
+            .tag("result", "sent")
+            .description("Outbox emails delivered to the SMTP server")
+            .register(registry);
+        FunctionCounter.builder("pharmacy.mail.outbox.messages", failed, AtomicLong::get)
+            .tag("result", "failed")
+            .description("Outbox email delivery attempts that failed")
+            .register(registry);
+        FunctionCounter.builder("pharmacy.mail.outbox.messages", expired, AtomicLong::get)
+            .tag("result", "expired")
+            .description("Outbox emails dropped unsent because their content expired")
+            .register(registry);
+        Gauge.builder("pharmacy.mail.outbox.circuit.open", this, sender -> sender.isCircuitOpen() ? 1 : 0)
+            .description("1 while sending is paused after repeated SMTP failures")
+            .register(registry);
+    }
+
+    private void sendBatch(List<OutboxEmail> batch) {
+        List<MimeMessage> messages = new ArrayList<>();
+        Map<MimeMessage, OutboxEmail> rowsByMessage = new IdentityHashMap<>();
+        Map<OutboxEmail, String> errors = new IdentityHashMap<>();
+        List<OutboxEmail> attempted = new ArrayList<>();
+        List<Long> expiredIds = new ArrayList<>();
+        LocalDateTime claimedAt = LocalDateTime.now();
+        for (OutboxEmail row : batch) {
+            if (row.isExpiredAt(claimedAt)) {
+                expiredIds.add(row.getId());
+                continue;
+            }
+            attempted.add(row);
+            try {
+                MimeMessage message = toMimeMessage(row);
+                messages.add(message);
+                rowsByMessage.put(message, row);
+            } catch (MessagingException e) {
+                errors.put(row, describe(e));
+            }
+        }
+
+        try {
+            if (!messages.isEmpty()) {
+                mailSender.send(messages.toArray(new MimeMessage[0]));
+            }
+        } catch (MailSendException e) {
+            // Per-message failures; a connection failure lists every message
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                rowsByMessage.values().forEach(row -> errors.put(row, describe(e)));
+            }
+            failedMessages.forEach((message, cause) -> {
+                OutboxEmail row = rowsByMessage.get(message);
+                if (row != null) {
+                    errors.put(row, describe(cause));
+                }
+            });
+        } catch (MailException e) {
+            rowsByMessage.values().forEach(row -> errors.put(row, describe(e)));
+        }
+
+        List<Long> sentIds = new ArrayList<>();
+        List<OutboxEmail> retries = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEmail row : attempted) {
+            String error = errors.get(row);
+            if (error == null) {
+                sentIds.add(row.getId());
+                continue;
+            }
+            row.setAttempts(row.getAttempts() + 1);
+            row.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+            LocalDateTime nextAttemptAt = now.plusNanos(backoffMs(row.getAttempts()) * 1_000_000);
+            if (row.isExpiredAt(nextAttemptAt)) {
+                // Retrying would deliver a code the user can no longer use
+                logger.warn("Dropping email {} to {}: it expires before the next attempt ({})",
+                    row.getId(), row.getRecipient(), error);
+                expiredIds.add(row.getId());
+                failed.incrementAndGet();
+                continue;
+            }
+            if (row.getAttempts() >= maxAttempts) {
+                row.setStatus(OutboxEmail.STATUS_FAILED);
+                row.redact();
+                logger.error("Giving up on email {} to {} after {} attempts: {}",
+                    row.getId(), row.getRecipient(), row.getAttempts(), error);
+            } else {
+                row.setNextAttemptAt(nextAttemptAt);
+            }
+            retries.add(row);
+        }
+        if (!sentIds.isEmpty() || !expiredIds.isEmpty()) {
+            List<Long> deleteIds = new ArrayList<>(sentIds);
+            deleteIds.addAll(expiredIds);
+            repository.deleteAllByIdInBatch(deleteIds);
+        }
+        if (!retries.isEmpty()) {
+            repository.saveAll(retries);
+        }
+        sent.addAndGet(sentIds.size());
+        failed.addAndGet(retries.size());
+        expired.addAndGet(expiredIds.size());
+
+        if (sentIds.isEmpty() && !attempted.isEmpty()) {
+            if (++consecutiveBatchFailures >= breakerThreshold) {
+                openUntilMs = System.currentTimeMillis() + breakerOpenMs;
+                logger.warn("{} email batches failed in a row, pausing the outbox for {} ms",
+                    consecutiveBatchFailures, breakerOpenMs);
+            }
+        } else {
+            consecutiveBatchFailures = 0;
+        }
+    }
+
+    // Exponential, capped, with up to 20% jitter so retries from a bad minute don't arrive together
+    private long backoffMs(int attempts) {
+        long delay = backoffMs << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, maxBackoffMs);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    // Never null, so a failed row can't be mistaken for a sent one
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private MimeMessage toMimeMessage(OutboxEmail row) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, row.isHtml());
+        helper.setTo(row.getRecipient());
+        helper.setSubject(row.getSubject());
+        helper.setText(row.getBody(), row.isHtml());
+        return message;
+    }
+}
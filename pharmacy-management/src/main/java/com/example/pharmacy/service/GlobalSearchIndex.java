@@ -0,0 +1,633 @@
+package com.example.pharmacy.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.repository.ProductRepository;
+import com.example.pharmacy.repository.SaleRepository;
+import com.example.pharmacy.repository.StockRepository;
+import com.example.pharmacy.repository.SupplierRepository;
+import com.example.pharmacy.repository.UserRepository;
+
+/**
+ * In-memory inverted index behind the global search bar.
+ *
+ * Product names and generic names, supplier names, user full names and sale
+ * customer names are split into lower-cased word tokens; each token maps to a
+ * sorted posting list of document keys (entity type in the top byte, id
+ * below). A query matches a document when every query word, in order,
+ * starts a space-separated word of one of its fields, which is exactly what
+ * the database fallback's LIKE pattern ({@link SearchService#wordStartPattern})
+ * accepts. Such a document holds, for every token of the query, a token
+ * starting with it, so a union over a token range per query token followed by
+ * an intersection narrows the candidates before each one is checked against
+ * its fields. Stock rows are not tokenized: they are
+ * found through the products they hold and titled by product name. A sale is
+ * found by its customer name or through the products on its lines, whichever
+ * ranks better, as the database fallback in {@link SearchService} finds it.
+ *
+ * The index is built at startup with one loader per entity type running in
+ * parallel, then kept current by {@link GlobalSearchIndexListener} as
+ * entities are written.
+ */
+@Component
+public class GlobalSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(GlobalSearchIndex.class);
+
+    public enum DocType { PRODUCT, STOCK, SALE, SUPPLIER, USER }
+
+    public static final class Match {
+        private final DocType type;
+        private final long id;
+        private final String title;
+        private final String description;
+        private final int tier;
+
+        Match(DocType type, long id, String title, String description, int tier) {
+            this.type = type;
+            this.id = id;
+            this.title = title;
+            this.description = description;
+            this.tier = tier;
+        }
+
+        public DocType getType() {
+            return type;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        // 0 exact, 1 prefix, 2 a later word, as in SearchService.matchTier
+        public int getTier() {
+            return tier;
+        }
+    }
+
+    private static final class Doc {
+        final DocType type;
+        final long id;
+        final String title;
+        final String description;
+        final String[] fields; // lower-cased searchable values, for tiering
+        final String[] tokens;
+
+        Doc(DocType type, long id, String title, String description, String... searchable) {
+            this.type = type;
+            this.id = id;
+            this.title = title == null ? "" : title;
+            this.description = description;
+            List<String> lowered = new ArrayList<>();
+            Set<String> words = new LinkedHashSet<>();
+            for (String value : searchable) {
+                if (value != null && !value.isBlank()) {
+                    lowered.add(value.trim().toLowerCase(Locale.ROOT));
+                    words.addAll(Arrays.asList(tokenize(value)));
+                }
+            }
+            this.fields = lowered.toArray(new String[0]);
+            this.tokens = words.toArray(new String[0]);
+        }
+
+        // Every word starts a word of one field, in order; see SearchService.wordStartPattern
+        boolean matches(String[] words) {
+            for (String field : fields) {
+                if (startsWordsInOrder(" " + field, words)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean startsWordsInOrder(String spaced, String[] words) {
+            int from = 0;
+            for (String word : words) {
+                int at = spaced.indexOf(" " + word, from);
+                if (at < 0) {
+                    return false;
+                }
+                from = at + 1 + word.length();
+            }
+            return true;
+        }
+
+        int tier(String query) {
+            int best = 2;
+            for (String field : fields) {
+                if (field.equals(query)) {
+                    return 0;
+                }
+                if (field.startsWith(query)) {
+                    best = 1;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static final class StockDoc {
+        final long productId;
+        final Integer quantity;
+
+        StockDoc(long productId, Integer quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+
+    private static final class SaleDoc {
+        final String customerName;
+        final LocalDate saleDate;
+        final String description;
+
+        SaleDoc(String customerName, LocalDate saleDate, String description) {
+            this.customerName = customerName == null ? "" : customerName;
+            this.saleDate = saleDate;
+            this.description = description;
+        }
+    }
+
+    private static final class SaleLine {
+        final long saleId;
+        final long productId;
+
+        SaleLine(long saleId, long productId) {
+            this.saleId = saleId;
+            this.productId = productId;
+        }
+    }
+
+    private static final class Index {
+        final TreeMap<String, long[]> postings = new TreeMap<>();
+        final Map<Long, Doc> docs = new HashMap<>();
+        final Map<Long, StockDoc> stocks = new HashMap<>();
+        final Map<Long, long[]> stocksByProduct = new HashMap<>();
+        final Map<Long, SaleDoc> sales = new HashMap<>();
+        final Map<Long, SaleLine> saleLines = new HashMap<>();
+        final Map<Long, long[]> saleLinesByProduct = new HashMap<>();
+
+        void put(Doc doc) {
+            long key = key(doc.type, doc.id);
+            remove(doc.type, doc.id);
+            docs.put(key, doc);
+            for (String token : doc.tokens) {
+                postings.put(token, insertSorted(postings.get(token), key));
+            }
+        }
+
+        void remove(DocType type, long id) {
+            long key = key(type, id);
+            Doc previous = docs.remove(key);
+            if (previous == null) {
+                return;
+            }
+            for (String token : previous.tokens) {
+                long[] ids = removeSorted(postings.get(token), key);
+                if (ids == null) {
+                    postings.remove(token);
+                } else {
+                    postings.put(token, ids);
+                }
+            }
+        }
+
+        void putStock(long stockId, long productId, Integer quantity) {
+            removeStock(stockId);
+            stocks.put(stockId, new StockDoc(productId, quantity));
+            stocksByProduct.put(productId, insertSorted(stocksByProduct.get(productId), stockId));
+        }
+
+        void removeStock(long stockId) {
+            StockDoc previous = stocks.remove(stockId);
+            if (previous == null) {
+                return;
+            }
+            long[] ids = removeSorted(stocksByProduct.get(previous.productId), stockId);
+            if (ids == null) {
+                stocksByProduct.remove(previous.productId);
+            } else {
+                stocksByProduct.put(previous.productId, ids);
+            }
+        }
+
+        void putSale(long saleId, String customerName, LocalDate saleDate, BigDecimal totalAmount) {
+            SaleDoc sale = new SaleDoc(customerName, saleDate, "Total: " + totalAmount);
+            sales.put(saleId, sale);
+            put(new Doc(DocType.SALE, saleId, sale.customerName, sale.description, customerName));
+        }
+
+        void removeSale(long saleId) {
+            sales.remove(saleId);
+            remove(DocType.SALE, saleId);
+        }
+
+        void putSaleLine(long saleItemId, long saleId, long productId) {
+            removeSaleLine(saleItemId);
+            saleLines.put(saleItemId, new SaleLine(saleId, productId));
+            saleLinesByProduct.put(productId, insertSorted(saleLinesByProduct.get(productId), saleItemId));
+        }
+
+        void removeSaleLine(long saleItemId) {
+            SaleLine previous = saleLines.remove(saleItemId);
+            if (previous == null) {
+                return;
+            }
+            long[] ids = removeSorted(saleLinesByProduct.get(previous.productId), saleItemId);
+            if (ids == null) {
+                saleLinesByProduct.remove(previous.productId);
+            } else {
+                saleLinesByProduct.put(previous.productId, ids);
+            }
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final SupplierRepository supplierRepository;
+    private final UserRepository userRepository;
+    private final SaleRepository saleRepository;
+    private final StockRepository stockRepository;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index;
+    // Writes committed while a build is loading; replayed onto the new index before it goes live
+    private List<Consumer<Index>> pending;
+
+    @Autowired
+    public GlobalSearchIndex(ProductRepository productRepository, SupplierRepository supplierRepository,
+                             UserRepository userRepository, SaleRepository saleRepository,
+                             StockRepository stockRepository,
+                             @Value("${pharmacy.search.global-index.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.supplierRepository = supplierRepository;
+        this.userRepository = userRepository;
+        this.saleRepository = saleRepository;
+        this.stockRepository = stockRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            logger.info("Global search index disabled, search will query the database");
+            return;
+        }
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index fresh = new Index();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // One loader per entity type; documents are tokenized on the loader threads
+            Future<List<Doc>> products = executor.submit(() -> load(productRepository.findSearchIndexRows(),
+                row -> new Doc(DocType.PRODUCT, (Long) row[0], (String) row[1], (String) row[2],
+                    (String) row[1], (String) row[2])));
+            Future<List<Doc>> suppliers = executor.submit(() -> load(supplierRepository.findSearchIndexRows(),
+                row -> new Doc(DocType.SUPPLIER, (Long) row[0], (String) row[1], (String) row[2], (String) row[1])));
+            Future<List<Doc>> users = executor.submit(() -> load(userRepository.findSearchIndexRows(),
+                row -> new Doc(DocType.USER, (Long) row[0], (String) row[1], (String) row[2], (String) row[1])));
+            Future<List<Object[]>> sales = executor.submit(saleRepository::findSearchIndexRows);
+            Future<List<Object[]>> saleLines = executor.submit(saleRepository::findSearchIndexLineRows);
+            Future<List<Object[]>> stocks = executor.submit(stockRepository::findSearchIndexRows);
+
+            for (Future<List<Doc>> loaded : List.of(products, suppliers, users)) {
+                for (Doc doc : loaded.get()) {
+                    fresh.put(doc);
+                }
+            }
+            for (Object[] row : sales.get()) {
+                fresh.putSale((Long) row[0], (String) row[1], (LocalDate) row[3], (BigDecimal) row[2]);
+            }
+            for (Object[] row : saleLines.get()) {
+                fresh.putSaleLine((Long) row[0], (Long) row[1], (Long) row[2]);
+            }
+            for (Object[] row : stocks.get()) {
+                fresh.putStock((Long) row[0], (Long) row[1], (Integer) row[2]);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to build global search index, search will query the database: {}", e.getMessage(), e);
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(op -> op.accept(fresh));
+            pending = null;
+            index = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Built global search index: {} documents, {} stock rows, {} sales, {} tokens in {} ms",
+            fresh.docs.size(), fresh.stocks.size(), fresh.sales.size(), fresh.postings.size(),
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void putProduct(Long productId, String name, String genericName) {
+        apply(index -> index.put(new Doc(DocType.PRODUCT, productId, name, genericName, name, genericName)));
+    }
+
+    public void putSupplier(Long supplierId, String name, String email) {
+        apply(index -> index.put(new Doc(DocType.SUPPLIER, supplierId, name, email, name)));
+    }
+
+    public void putUser(Long userId, String fullName, String email) {
+        apply(index -> index.put(new Doc(DocType.USER, userId, fullName, email, fullName)));
+    }
+
+    public void putSale(Long saleId, String customerName, LocalDate saleDate, BigDecimal totalAmount) {
+        apply(index -> index.putSale(saleId, customerName, saleDate, totalAmount));
+    }
+
+    public void putSaleLine(Long saleItemId, Long saleId, Long productId) {
+        apply(index -> index.putSaleLine(saleItemId, saleId, productId));
+    }
+
+    public void removeSaleLine(Long saleItemId) {
+        apply(index -> index.removeSaleLine(saleItemId));
+    }
+
+    public void putStock(Long stockId, Long productId, Integer quantity) {
+        apply(index -> index.putStock(stockId, productId, quantity));
+    }
+
+    public void remove(DocType type, Long id) {
+        if (type == DocType.STOCK) {
+            apply(index -> index.removeStock(id));
+        } else if (type == DocType.SALE) {
+            apply(index -> index.removeSale(id));
+        } else {
+            apply(index -> index.remove(type, id));
+        }
+    }
+
+    /**
+     * Every match for the query grouped by type, each list ranked by tier,
+     * then title, then id. Stocks follow the ranking of their products; a
+     * sale takes the best tier among its customer name and its products and,
+     * like the database query, ties go to the most recent sale.
+     */
+    public Map<DocType, List<Match>> search(String query) {
+        Map<DocType, List<Match>> results = new EnumMap<>(DocType.class);
+        for (DocType type : DocType.values()) {
+            results.put(type, new ArrayList<>());
+        }
+        String[] words = tokenize(query);
+        if (words.length == 0) {
+            return results;
+        }
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        String[] phrase = words(query);
+
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return results;
+            }
+            long[] candidates = null;
+            for (String word : words) {
+                long[] matches = unionOfPrefix(index.postings, word);
+                candidates = candidates == null ? matches : intersect(candidates, matches);
+                if (candidates.length == 0) {
+                    return results;
+                }
+            }
+
+            for (long key : candidates) {
+                Doc doc = index.docs.get(key);
+                if (doc.matches(phrase)) {
+                    results.get(doc.type).add(new Match(doc.type, doc.id, doc.title, doc.description, doc.tier(needle)));
+                }
+            }
+            Comparator<Match> ranking = Comparator.comparingInt(Match::getTier)
+                .thenComparing(Match::getTitle, String.CASE_INSENSITIVE_ORDER)
+                .thenComparingLong(Match::getId);
+            results.values().forEach(list -> list.sort(ranking));
+
+            List<Match> stocks = results.get(DocType.STOCK);
+            for (Match product : results.get(DocType.PRODUCT)) {
+                long[] stockIds = index.stocksByProduct.get(product.getId());
+                if (stockIds == null) {
+                    continue;
+                }
+                for (long stockId : stockIds) {
+                    StockDoc stock = index.stocks.get(stockId);
+                    stocks.add(new Match(DocType.STOCK, stockId, product.getTitle(),
+                        "Quantity: " + stock.quantity, product.getTier()));
+                }
+            }
+
+            // Sales matched by customer name are already in; a product match only adds or improves a sale
+            Map<Long, Match> bestSales = new HashMap<>();
+            for (Match customer : results.get(DocType.SALE)) {
+                bestSales.put(customer.getId(), customer);
+            }
+            for (Match product : results.get(DocType.PRODUCT)) {
+                long[] lineIds = index.saleLinesByProduct.get(product.getId());
+                if (lineIds == null) {
+                    continue;
+                }
+                for (long lineId : lineIds) {
+                    long saleId = index.saleLines.get(lineId).saleId;
+                    SaleDoc sale = index.sales.get(saleId);
+                    Match best = bestSales.get(saleId);
+                    if (sale != null && (best == null || product.getTier() < best.getTier())) {
+                        bestSales.put(saleId, new Match(DocType.SALE, saleId, sale.customerName, sale.description,
+                            product.getTier()));
+                    }
+                }
+            }
+            List<Match> sales = new ArrayList<>(bestSales.values());
+            results.put(DocType.SALE, sales);
+            Comparator<Match> newestFirst = Comparator.comparing(
+                (Match match) -> index.sales.get(match.getId()).saleDate,
+                Comparator.nullsLast(Comparator.reverseOrder()));
+            sales.sort(Comparator.comparingInt(Match::getTier)
+                .thenComparing(newestFirst)
+                .thenComparing(Comparator.comparingLong(Match::getId).reversed()));
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Index changes follow the transaction that caused them; nothing is applied on rollback
+    private void apply(Consumer<Index> op) {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                if (index != null) {
+                    op.accept(index);
+                }
+                if (pending != null) {
+                    pending.add(op);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static List<Doc> load(List<Object[]> rows, Function<Object[], Doc> mapper) {
+        List<Doc> docs = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            docs.add(mapper.apply(row));
+        }
+        return docs;
+    }
+
+    static String[] tokenize(String value) {
+        if (value == null) {
+            return new String[0];
+        }
+        return Arrays.stream(value.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+            .filter(token -> !token.isEmpty())
+            .toArray(String[]::new);
+    }
+
+    // The query's words as the fallback's LIKE pattern sees them: lower-cased, split on whitespace only
+    static String[] words(String query) {
+        return Arrays.stream(query.trim().toLowerCase(Locale.ROOT).split("\\s+"))
+            .filter(word -> !word.isEmpty())
+            .toArray(String[]::new);
+    }
+
+    private static long key(DocType type, long id) {
+        return ((long) type.ordinal() << 56) | id;
+    }
+
+    // Sorted, de-duplicated union of the posting lists of every token starting with prefix
+    private static long[] unionOfPrefix(TreeMap<String, long[]> postings, String prefix) {
+        Map<String, long[]> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.isEmpty()) {
+            return new long[0];
+        }
+        if (range.size() == 1) {
+            return range.values().iterator().next();
+        }
+        int total = 0;
+        for (long[] ids : range.values()) {
+            total += ids.length;
+        }
+        long[] merged = new long[total];
+        int size = 0;
+        for (long[] ids : range.values()) {
+            System.arraycopy(ids, 0, merged, size, ids.length);
+            size += ids.length;
+        }
+        Arrays.sort(merged);
+        int distinct = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, distinct);
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static long[] insertSorted(long[] ids, long id) {
+        if (ids == null) {
+            return new long[] { id };
+        }
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        int insertAt = -position - 1;
+        long[] copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = id;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, ids.length - insertAt);
+        return copy;
+    }
+
+    // Null once the last id is gone, so the caller can drop the entry
+    private static long[] removeSorted(long[] ids, long id) {
+        if (ids == null) {
+            return null;
+        }
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        long[] copy = new long[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, position);
+        System.arraycopy(ids, position + 1, copy, position, ids.length - position - 1);
+        return copy;
+    }
+}
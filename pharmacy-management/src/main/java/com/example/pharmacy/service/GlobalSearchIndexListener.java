@@ -0,0 +1,77 @@
+package com.example.pharmacy.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.example.pharmacy.entity.Product;
+import com.example.pharmacy.entity.Sale;
+import com.example.pharmacy.entity.SaleItem;
+import com.example.pharmacy.entity.Stock;
+import com.example.pharmacy.entity.Supplier;
+import com.example.pharmacy.entity.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener feeding writes into {@link GlobalSearchIndex}.
+ *
+ * Hibernate obtains this class through Spring's bean container, so it can be
+ * injected; the index is resolved lazily because the listener is created
+ * while the entity manager factory that the index's repositories need is
+ * still being built.
+ */
+public class GlobalSearchIndexListener {
+    // Stays null if Hibernate instantiates the listener itself (no Spring bean container)
+    @Autowired
+    private ObjectProvider<GlobalSearchIndex> globalSearchIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        GlobalSearchIndex index = globalSearchIndex != null ? globalSearchIndex.getIfAvailable() : null;
+        if (index == null) {
+            return;
+        }
+        if (entity instanceof Product product) {
+            if (product.isActive()) {
+                index.putProduct(product.getProductId(), product.getName(), product.getGenericName());
+            } else {
+                index.remove(GlobalSearchIndex.DocType.PRODUCT, product.getProductId());
+            }
+        } else if (entity instanceof Supplier supplier) {
+            index.putSupplier(supplier.getSupplierId(), supplier.getName(), supplier.getEmail());
+        } else if (entity instanceof User user) {
+            index.putUser(user.getId(), user.getFullName(), user.getEmail());
+        } else if (entity instanceof Sale sale) {
+            index.putSale(sale.getSaleId(), sale.getCustomerName(), sale.getSaleDate(), sale.getTotalAmount());
+        } else if (entity instanceof SaleItem item) {
+            index.putSaleLine(item.getSaleItemId(), item.getSale().getSaleId(), item.getProduct().getProductId());
+        } else if (entity instanceof Stock stock) {
+            // Reading the id off the product proxy does not initialize it
+            index.putStock(stock.getStockId(), stock.getProduct().getProductId(), stock.getQuantity());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        GlobalSearchIndex index = globalSearchIndex != null ? globalSearchIndex.getIfAvailable() : null;
+        if (index == null) {
+            return;
+        }
+        if (entity instanceof Product product) {
+            index.remove(GlobalSearchIndex.DocType.PRODUCT, product.getProductId());
+        } else if (entity instanceof Supplier supplier) {
+            index.remove(GlobalSearchIndex.DocType.SUPPLIER, supplier.getSupplierId());
+        } else if (entity instanceof User user) {
+            index.remove(GlobalSearchIndex.DocType.USER, user.getId());
+        } else if (entity instanceof Sale sale) {
+            index.remove(GlobalSearchIndex.DocType.SALE, sale.getSaleId());
+        } else if (entity instanceof SaleItem item) {
+            index.removeSaleLine(item.getSaleItemId());
+        } else if (entity instanceof Stock stock) {
+            index.remove(GlobalSearchIndex.DocType.STOCK, stock.getStockId());
+        }
+    }
+}
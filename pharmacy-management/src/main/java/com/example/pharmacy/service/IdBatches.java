@@ -0,0 +1,40 @@
+package com.example.pharmacy.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Multi-get helper: loads rows for a list of ids with one {@code IN} query per
+ * chunk and hands them back in the order the ids were requested. Repeated ids
+ * are returned once, unknown ids are skipped.
+ */
+public final class IdBatches {
+    // Keeps IN lists well below driver bind-parameter limits and reasonable for the planner
+    public static final int CHUNK_SIZE = 500;
+
+    private IdBatches() {
+    }
+
+    public static <T> List<T> load(List<Long> ids, Function<List<Long>, List<T>> query, Function<T, Long> idOf) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, T> byId = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size()));
+            for (T row : query.apply(chunk)) {
+                byId.put(idOf.apply(row), row);
+            }
+        }
+        List<T> ordered = new ArrayList<>(byId.size());
+        for (Long id : distinct) {
+            T row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.pharmacy.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.pharmacy.entity.OtpCode;
+import com.example.pharmacy.enums.OtpPurpose;
+import com.example.pharmacy.repository.OtpCodeRepository;
+
+/**
+ * Issues and verifies one-time passwords for login and password reset.
+ *
+ * The otp_codes table is the source of truth, so any node can verify a code
+ * another node issued, and codes survive restarts. A bounded concurrent map
+ * in front of it saves the lookup for codes this node issued. Only a hash of
+ * each code is kept, compared in constant time. A code is accepted only by
+ * the caller whose DELETE removes its row, so it is single-use across nodes.
+ * Expired rows are purged in batches by a scheduled job.
+ */
+@Component
+public class OtpStore {
+    private static final Logger logger = LoggerFactory.getLogger(OtpStore.class);
+
+    private record Key(OtpPurpose purpose, String email) {
+    }
+
+    private record Entry(Long id, byte[] hash, LocalDateTime expiresAt) {
+    }
+
+    private final OtpCodeRepository repository;
+    private final long ttlMinutes;
+    private final int maxCached;
+    private final int purgeBatchSize;
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentHashMap<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OtpStore(OtpCodeRepository repository,
+                    @Value("${pharmacy.otp.ttl-minutes:10}") long ttlMinutes,
+                    @Value("${pharmacy.otp.cache-size:10000}") int maxCached,
+                    @Value("${pharmacy.otp.purge-batch-size:1000}") int purgeBatchSize) {
+        this.repository = repository;
+        this.ttlMinutes = ttlMinutes;
+        this.maxCached = maxCached;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    public long getTtlMinutes() {
+        return ttlMinutes;
+    }
+
+    // Replaces any outstanding code for the same email and purpose; returns the plain code for sending
+    @Transactional
+    public String issue(OtpPurpose purpose, String email) {
+        String code = String.format("%06d", random.nextInt(1_000_000));
+        byte[] hash = hash(purpose, email, code);
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+
+        repository.deleteByEmailAndPurpose(email, purpose);
+        OtpCode saved = repository.save(new OtpCode(email, purpose, HexFormat.of().formatHex(hash), expiresAt));
+
+        Key key = new Key(purpose, email);
+        Entry entry = new Entry(saved.getId(), hash, expiresAt);
+        TransactionCallbacks.afterCommit(() -> cache(key, entry));
+        return code;
+    }
+
+    @Transactional
+    public boolean verify(OtpPurpose purpose, String email, String code) {
+        if (email == null || code == null) {
+            return false;
+        }
+        Key key = new Key(purpose, email);
+        byte[] presented = hash(purpose, email, code);
+        Entry cached = cache.get(key);
+
+        // A cached entry may be stale if another node re-issued the code; the database settles it
+        if (cached != null && accept(key, cached, presented)) {
+            return true;
+        }
+        Optional<Entry> stored = repository.findByEmailAndPurpose(email, purpose)
+            .map(row -> new Entry(row.getId(), HexFormat.of().parseHex(row.getCodeHash()), row.getExpiresAt()));
+        if (stored.isEmpty()) {
+            logger.warn("No {} OTP outstanding for email: {}", purpose, email);
+            return false;
+        }
+        if (cached != null && cached.id().equals(stored.get().id())) {
+            return false;
+        }
+        return accept(key, stored.get(), presented);
+    }
+
+    public int cachedCount() {
+        return cache.size();
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.otp.purge-interval-ms:300000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        cache.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+        int purged = 0;
+        int batch;
+        do {
+            batch = repository.deleteExpiredBatch(now, purgeBatchSize);
+            purged += batch;
+        } while (batch == purgeBatchSize);
+        if (purged > 0) {
+            logger.info("Purged {} expired OTP codes", purged);
+        }
+    }
+
+    private boolean accept(Key key, Entry entry, byte[] presented) {
+        if (!entry.expiresAt().isAfter(LocalDateTime.now()) || !MessageDigest.isEqual(entry.hash(), presented)) {
+            return false;
+        }
+        cache.remove(key, entry);
+        return repository.consume(entry.id(), LocalDateTime.now()) == 1;
+    }
+
+    // Bounded: when full of live codes, new ones are served from the database only
+    private void cache(Key key, Entry entry) {
+        if (cache.size() >= maxCached) {
+            LocalDateTime now = LocalDateTime.now();
+            cache.values().removeIf(e -> !e.expiresAt().isAfter(now));
+            if (cache.size() >= maxCached) {
+                cache.remove(key);
+                return;
+            }
+        }
+        cache.put(key, entry);
+    }
+
+    private static byte[] hash(OtpPurpose purpose, String email, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest((purpose + ":" + email + ":" + code).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
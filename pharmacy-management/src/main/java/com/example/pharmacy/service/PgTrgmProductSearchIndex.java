@@ -0,0 +1,65 @@
+package com.example.pharmacy.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.repository.ProductRepository;
+
+/**
+ * Product search backed by a PostgreSQL pg_trgm GIN index on lower(name),
+ * partial over active products.
+ * The index turns {@code LIKE '%x%'} into an index scan and similarity()
+ * supplies the ranking. Only usable against PostgreSQL.
+ */
+@Component
+@ConditionalOnProperty(name = "pharmacy.search.product-index", havingValue = "pg_trgm")
+public class PgTrgmProductSearchIndex implements ProductSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(PgTrgmProductSearchIndex.class);
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PgTrgmProductSearchIndex(ProductRepository productRepository, JdbcTemplate jdbcTemplate) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createTrigramIndex() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_products_name_trgm");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_products_name_trgm_active "
+                + "ON products USING gin (lower(name) gin_trgm_ops) WHERE active");
+        } catch (Exception e) {
+            logger.warn("Could not create pg_trgm index, product search will scan: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Hit> search(String query, int limit) {
+        String needle = TrigramProductSearchIndex.normalize(query);
+        if (needle.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String pattern = "%" + needle.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return productRepository.searchByTrigram(needle, pattern, limit).stream()
+            .map(match -> new Hit(match.getProductId(), match.getScore()))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+}
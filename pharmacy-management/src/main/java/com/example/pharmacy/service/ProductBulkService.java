@@ -0,0 +1,348 @@
+package com.example.pharmacy.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import com.example.pharmacy.dto.BulkUpsertResultDTO;
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.repository.ProductRepository;
+import com.example.pharmacy.repository.SupplierRepository;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Bulk product upsert keyed on name + dosage + manufacturer (case-insensitive).
+ *
+ * A request costs a fixed number of round trips however many rows it holds:
+ * one query per supplier reference kind, one query to diff against existing
+ * products, then JDBC batches for inserts and updates. The JDBC writes bypass
+ * Hibernate and its entity listeners, so the catalog cache and global search
+ * index are updated here explicitly once the transaction commits.
+ */
+@Service
+public class ProductBulkService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductBulkService.class);
+
+    static final String INSERT_SQL = "INSERT INTO products (name, generic_name, manufacturer, dosage, price, supplier_id, " +
+        "barcode) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    static final String UPDATE_SQL = "UPDATE products SET name = ?, generic_name = ?, manufacturer = ?, dosage = ?, " +
+        "price = ?, supplier_id = ?, barcode = ? WHERE product_id = ? AND active";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final SupplierRepository supplierRepository;
+    private final ProductCatalogCache catalogCache;
+    private final GlobalSearchIndex globalSearchIndex;
+    private final int maxRows;
+    private final int batchSize;
+
+    @Autowired
+    public ProductBulkService(JdbcTemplate jdbcTemplate, ProductRepository productRepository,
+                              SupplierRepository supplierRepository, ProductCatalogCache catalogCache,
+                              GlobalSearchIndex globalSearchIndex,
+                              @Value("${pharmacy.products.bulk.max-rows:5000}") int maxRows,
+                              @Value("${pharmacy.products.bulk.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.supplierRepository = supplierRepository;
+        this.catalogCache = catalogCache;
+        this.globalSearchIndex = globalSearchIndex;
+        this.maxRows = maxRows;
+        this.batchSize = batchSize;
+    }
+
+    @Transactional
+    public BulkUpsertResultDTO upsertCsv(Reader csv) throws IOException {
+        return upsert(ProductCsvReader.read(csv, maxRows));
+    }
+
+    @Transactional
+    public BulkUpsertResultDTO upsert(List<ProductDTO> rows) {
+        if (rows.size() > maxRows) {
+            throw new IllegalArgumentException("At most " + maxRows + " products per request");
+        }
+        BulkUpsertResultDTO result = new BulkUpsertResultDTO();
+        SupplierLookup suppliers = new SupplierLookup(rows);
+
+        // Validate, resolve suppliers and collapse repeated keys (last row wins)
+        Map<String, ProductDTO> byKey = new LinkedHashMap<>();
+        Map<String, Integer> rowNumbers = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ProductDTO row = normalize(rows.get(i));
+            String error = validate(row, suppliers);
+            if (error != null) {
+                result.getErrors().add("Row " + (i + 1) + ": " + error);
+                continue;
+            }
+            byKey.put(naturalKey(row), row);
+            rowNumbers.put(naturalKey(row), i + 1);
+        }
+        rejectBarcodeClashes(byKey, rowNumbers, result);
+        if (byKey.isEmpty()) {
+            return result;
+        }
+
+        Set<String> names = new HashSet<>();
+        byKey.values().forEach(row -> names.add(row.getName().toLowerCase(Locale.ROOT)));
+        Map<String, ProductDTO> existing = new HashMap<>();
+        for (ProductDTO product : productRepository.findAllAsDTOByLowerNameIn(names)) {
+            existing.putIfAbsent(naturalKey(product), product);
+        }
+
+        Map<String, Long> barcodeOwners = findBarcodeOwners(byKey.values());
+        List<ProductDTO> inserts = new ArrayList<>();
+        List<ProductDTO> updates = new ArrayList<>();
+        for (Map.Entry<String, ProductDTO> entry : byKey.entrySet()) {
+            ProductDTO row = entry.getValue();
+            ProductDTO current = existing.get(entry.getKey());
+            if (current != null && row.getBarcode() == null) {
+                row.setBarcode(current.getBarcode()); // a row without a barcode keeps the stored one
+            }
+            Long owner = row.getBarcode() != null ? barcodeOwners.get(row.getBarcode()) : null;
+            if (owner != null && (current == null || !owner.equals(current.getProductId()))) {
+                result.getErrors().add("Row " + rowNumbers.get(entry.getKey())
+                    + ": Barcode already assigned to another product: " + row.getBarcode());
+            } else if (current == null) {
+                inserts.add(row);
+            } else if (sameValues(current, row)) {
+                result.setUnchanged(result.getUnchanged() + 1);
+            } else {
+                row.setProductId(current.getProductId());
+                updates.add(row);
+            }
+        }
+
+        insert(inserts);
+        update(updates);
+        result.setInserted(inserts.size());
+        result.setUpdated(updates.size());
+
+        List<ProductDTO> written = new ArrayList<>(inserts);
+        written.addAll(updates);
+        catalogCache.putAll(written);
+        written.forEach(product ->
+            globalSearchIndex.putProduct(product.getProductId(), product.getName(), product.getGenericName()));
+
+        logger.info("Bulk product upsert: {} inserted, {} updated, {} unchanged, {} rejected",
+            result.getInserted(), result.getUpdated(), result.getUnchanged(), result.getErrors().size());
+        return result;
+    }
+
+    // IDENTITY keys: batched inserts ask the driver for the generated product_id of every row
+    private void insert(List<ProductDTO> products) {
+        for (int from = 0; from < products.size(); from += batchSize) {
+            List<ProductDTO> chunk = products.subList(from, Math.min(from + batchSize, products.size()));
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[] { "product_id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bindColumns(ps, chunk.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                }, keys);
+            List<Map<String, Object>> generated = keys.getKeyList();
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setProductId(((Number) generated.get(i).get("product_id")).longValue());
+            }
+        }
+    }
+
+    private void update(List<ProductDTO> products) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, products, batchSize, (ps, product) -> {
+            bindColumns(ps, product);
+            ps.setLong(8, product.getProductId());
+        });
+    }
+
+    private static void bindColumns(PreparedStatement ps, ProductDTO product) throws SQLException {
+        ps.setString(1, product.getName());
+        setNullableString(ps, 2, product.getGenericName());
+        setNullableString(ps, 3, product.getManufacturer());
+        setNullableString(ps, 4, product.getDosage());
+        ps.setBigDecimal(5, product.getPrice());
+        ps.setLong(6, product.getSupplierId());
+        setNullableString(ps, 7, product.getBarcode());
+    }
+
+    private static void setNullableString(PreparedStatement ps, int index, String value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.VARCHAR);
+        } else {
+            ps.setString(index, value);
+        }
+    }
+
+    private static ProductDTO normalize(ProductDTO row) {
+        ProductDTO copy = new ProductDTO(row);
+        copy.setProductId(null);
+        copy.setName(trimToNull(row.getName()));
+        copy.setGenericName(trimToNull(row.getGenericName()));
+        copy.setManufacturer(trimToNull(row.getManufacturer()));
+        copy.setDosage(trimToNull(row.getDosage()));
+        copy.setSupplierName(trimToNull(row.getSupplierName()));
+        copy.setBarcode(trimToNull(row.getBarcode()));
+        return copy;
+    }
+
+    // Null when the row is valid; fills in the resolved supplier id and name
+    private static String validate(ProductDTO row, SupplierLookup suppliers) {
+        if (row.getName() == null) {
+            return "Product name is required";
+        }
+        if (row.getPrice() == null || row.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Product price must be greater than 0";
+        }
+        try {
+            row.setBarcode(Barcodes.normalize(row.getBarcode()));
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        if (row.getSupplierId() == null && row.getSupplierName() == null) {
+            return "Supplier ID or name is required";
+        }
+        Long supplierId = row.getSupplierId() != null
+            ? row.getSupplierId() : suppliers.idByName(row.getSupplierName());
+        if (supplierId == null || !suppliers.exists(supplierId)) {
+            return "Supplier not found: " + (row.getSupplierId() != null ? row.getSupplierId() : row.getSupplierName());
+        }
+        row.setSupplierId(supplierId);
+        row.setSupplierName(suppliers.nameById(supplierId));
+        return null;
+    }
+
+    static String naturalKey(ProductDTO product) {
+        return keyPart(product.getName()) + '\u0000' + keyPart(product.getDosage()) + '\u0000'
+            + keyPart(product.getManufacturer());
+    }
+
+    private static String keyPart(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean sameValues(ProductDTO current, ProductDTO row) {
+        return Objects.equals(current.getName(), row.getName())
+            && Objects.equals(current.getGenericName(), row.getGenericName())
+            && Objects.equals(current.getManufacturer(), row.getManufacturer())
+            && Objects.equals(current.getDosage(), row.getDosage())
+            && current.getPrice() != null && current.getPrice().compareTo(row.getPrice()) == 0
+            && Objects.equals(current.getSupplierId(), row.getSupplierId())
+            && Objects.equals(current.getBarcode(), row.getBarcode());
+    }
+
+    // Two rows of one request claiming the same barcode: the later row is rejected
+    private static void rejectBarcodeClashes(Map<String, ProductDTO> byKey, Map<String, Integer> rowNumbers,
+                                             BulkUpsertResultDTO result) {
+        Set<String> seen = new HashSet<>();
+        byKey.entrySet().removeIf(entry -> {
+            String barcode = entry.getValue().getBarcode();
+            if (barcode == null || seen.add(barcode)) {
+                return false;
+            }
+            result.getErrors().add("Row " + rowNumbers.get(entry.getKey()) + ": Duplicate barcode in request: " + barcode);
+            return true;
+        });
+    }
+
+    // Current owner of every barcode the batch sets, in one query
+    private Map<String, Long> findBarcodeOwners(Collection<ProductDTO> rows) {
+        Set<String> barcodes = new HashSet<>();
+        rows.forEach(row -> {
+            if (row.getBarcode() != null) {
+                barcodes.add(row.getBarcode());
+            }
+        });
+        Map<String, Long> owners = new HashMap<>();
+        if (!barcodes.isEmpty()) {
+            for (Object[] owner : productRepository.findIdAndBarcodeByBarcodeIn(barcodes)) {
+                owners.put((String) owner[1], (Long) owner[0]);
+            }
+        }
+        return owners;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * Per-request supplier cache: every supplier the batch refers to is
+     * loaded up front with at most one query by id and one by name, instead
+     * of a findById per row.
+     */
+    private final class SupplierLookup {
+        private final Map<Long, String> namesById = new HashMap<>();
+        private final Map<String, Long> idsByName = new HashMap<>();
+
+        SupplierLookup(List<ProductDTO> rows) {
+            Set<Long> ids = new HashSet<>();
+            Set<String> names = new HashSet<>();
+            for (ProductDTO row : rows) {
+                if (row.getSupplierId() != null) {
+                    ids.add(row.getSupplierId());
+                } else if (trimToNull(row.getSupplierName()) != null) {
+                    names.add(row.getSupplierName().trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            if (!ids.isEmpty()) {
+                supplierRepository.findIdAndNameByIdIn(ids).forEach(this::add);
+            }
+            if (!names.isEmpty()) {
+                supplierRepository.findIdAndNameByLowerNameIn(names).forEach(this::add);
+            }
+        }
+
+        private void add(Object[] row) {
+            Long id = (Long) row[0];
+            String name = (String) row[1];
+            namesById.put(id, name);
+            if (name != null) {
+                idsByName.putIfAbsent(name.toLowerCase(Locale.ROOT), id);
+            }
+        }
+
+        boolean exists(Long id) {
+            return namesById.containsKey(id);
+        }
+
+        String nameById(Long id) {
+            return namesById.get(id);
+        }
+
+        Long idByName(String name) {
+            return idsByName.get(name.toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.pharmacy.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.dto.ProductDTO;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * In-memory copy of the product catalog as {@link ProductDTO} snapshots.
+ *
+ * The full list is loaded once (usually at startup) and afterwards every
+ * product write replaces or evicts exactly the affected entry, so catalog
+ * reads no longer reach the database. Snapshots are copied on the way in and
+ * handed out read-only: their setters throw, so no caller can change what
+ * everyone else sees (copy with {@code new ProductDTO(snapshot)} to edit).
+ * Mutations issued inside a
+ * transaction are applied after commit, so a rollback never leaks into the
+ * cache.
+ */
+@Component
+public class ProductCatalogCache implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogCache.class);
+
+    private static final Comparator<ProductDTO> BY_ID = Comparator.comparing(ProductDTO::getProductId);
+
+    /**
+     * Receives every change applied to the cache. Secondary in-memory indexes
+     * (search, price, barcode, ...) register as listeners so they stay in step
+     * with the catalog without querying it themselves.
+     */
+    public interface Listener {
+        void onCatalogLoaded(Collection<ProductDTO> products);
+
+        void onProductUpserted(ProductDTO product);
+
+        void onProductRemoved(Long productId);
+    }
+
+    /**
+     * Immutable view of a cached product. Shared between all readers, so
+     * every setter refuses.
+     */
+    static final class Snapshot extends ProductDTO {
+        Snapshot(ProductDTO source) {
+            super(source);
+        }
+
+        @Override
+        public void setProductId(Long productId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setGenericName(String genericName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setManufacturer(String manufacturer) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDosage(String dosage) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPrice(BigDecimal price) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setSupplierId(Long supplierId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setSupplierName(String supplierName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setBarcode(String barcode) {
+            throw readOnly();
+        }
+
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Cached catalog snapshots are read-only; copy before editing");
+        }
+    }
+
+    private final ConcurrentHashMap<Long, ProductDTO> byId = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+
+    // True once byId holds the whole catalog; only then is a by-id miss authoritative
+    private volatile boolean complete;
+    private volatile List<ProductDTO> allView;
+
+    @Autowired(required = false)
+    public void setListeners(List<Listener> listeners) {
+        this.listeners.addAll(listeners);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public List<ProductDTO> getAll(Supplier<List<ProductDTO>> loader) {
+        List<ProductDTO> view = allView;
+        if (view != null) {
+            hits.incrementAndGet();
+            return view;
+        }
+        if (complete) {
+            hits.incrementAndGet();
+            return rebuildView();
+        }
+
+        misses.incrementAndGet();
+        long startGeneration = generation.get();
+        List<ProductDTO> loaded = loader.get();
+        synchronized (this) {
+            // A write committed while we were loading; our copy may be stale, so don't install it
+            if (generation.get() != startGeneration) {
+                logger.debug("Catalog changed during load, serving uncached result");
+                return Collections.unmodifiableList(copyAll(loaded));
+            }
+            byId.clear();
+            for (ProductDTO product : loaded) {
+                byId.put(product.getProductId(), new Snapshot(product));
+            }
+            complete = true;
+            allView = null;
+        }
+        logger.info("Loaded {} products into catalog cache", loaded.size());
+        Collection<ProductDTO> snapshot = Collections.unmodifiableCollection(byId.values());
+        listeners.forEach(listener -> listener.onCatalogLoaded(snapshot));
+        return rebuildView();
+    }
+
+    public Optional<ProductDTO> get(Long productId, Function<Long, Optional<ProductDTO>> loader) {
+        ProductDTO cached = byId.get(productId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        if (complete) {
+            hits.incrementAndGet();
+            return Optional.empty();
+        }
+        misses.incrementAndGet();
+        return loader.apply(productId).map(ProductDTO::new);
+    }
+
+    // Snapshot lookup without a fallback, for indexes that only hold ids
+    public Optional<ProductDTO> peek(Long productId) {
+        return Optional.ofNullable(byId.get(productId));
+    }
+
+    public boolean isLoaded() {
+        return complete;
+    }
+
+    public void put(ProductDTO product) {
+        ProductDTO snapshot = new Snapshot(product);
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                generation.incrementAndGet();
+                byId.put(snapshot.getProductId(), snapshot);
+                allView = null;
+            }
+            listeners.forEach(listener -> listener.onProductUpserted(snapshot));
+        });
+    }
+
+    // Bulk writes: one after-commit callback for the whole batch
+    public void putAll(Collection<ProductDTO> products) {
+        List<ProductDTO> snapshots = new ArrayList<>(products.size());
+        products.forEach(product -> snapshots.add(new Snapshot(product)));
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                generation.incrementAndGet();
+                for (ProductDTO snapshot : snapshots) {
+                    byId.put(snapshot.getProductId(), snapshot);
+                }
+                allView = null;
+            }
+            snapshots.forEach(snapshot -> listeners.forEach(listener -> listener.onProductUpserted(snapshot)));
+        });
+    }
+
+    // Bulk repricing: patches every cached entry in one after-commit step
+    public void updatePrices(Map<Long, BigDecimal> prices) {
+        Map<Long, BigDecimal> changes = Map.copyOf(prices);
+        TransactionCallbacks.afterCommit(() -> {
+            List<ProductDTO> repriced = new ArrayList<>();
+            synchronized (this) {
+                generation.incrementAndGet();
+                changes.forEach((productId, price) -> {
+                    ProductDTO current = byId.get(productId);
+                    if (current != null) {
+                        ProductDTO copy = new ProductDTO(current);
+                        copy.setPrice(price);
+                        ProductDTO snapshot = new Snapshot(copy);
+                        byId.put(productId, snapshot);
+                        repriced.add(snapshot);
+                    }
+                });
+                allView = null;
+            }
+            logger.info("Repriced {} cached products", repriced.size());
+            repriced.forEach(snapshot -> listeners.forEach(listener -> listener.onProductUpserted(snapshot)));
+        });
+    }
+
+    public void evict(Long productId) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                generation.incrementAndGet();
+                byId.remove(productId);
+                allView = null;
+            }
+            listeners.forEach(listener -> listener.onProductRemoved(productId));
+        });
+    }
+
+    public void renameSupplier(Long supplierId, String supplierName) {
+        TransactionCallbacks.afterCommit(() -> {
+            List<ProductDTO> renamed = new ArrayList<>();
+            synchronized (this) {
+                generation.incrementAndGet();
+                for (ProductDTO product : byId.values()) {
+                    if (supplierId.equals(product.getSupplierId())) {
+                        ProductDTO copy = new ProductDTO(product);
+                        copy.setSupplierName(supplierName);
+                        ProductDTO snapshot = new Snapshot(copy);
+                        byId.put(snapshot.getProductId(), snapshot);
+                        renamed.add(snapshot);
+                    }
+                }
+                allView = null;
+            }
+            logger.info("Renamed supplier {} on {} cached products", supplierId, renamed.size());
+            renamed.forEach(snapshot -> listeners.forEach(listener -> listener.onProductUpserted(snapshot)));
+        });
+    }
+
+    // Drops everything; the next read reloads the catalog
+    public void invalidateAll() {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                generation.incrementAndGet();
+                byId.clear();
+                complete = false;
+                allView = null;
+            }
+            logger.info("Catalog cache invalidated");
+        });
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("pharmacy.catalog.cache.requests", hits, AtomicLong::get)
+            .tag("result", "hit")
+            .description("Catalog reads served from memory")
+            .register(registry);
+        FunctionCounter.builder("pharmacy.catalog.cache.requests", misses, AtomicLong::get)
+            .tag("result", "miss")
+            .description("Catalog reads that had to query the database")
+            .register(registry);
+        Gauge.builder("pharmacy.catalog.cache.size", byId, ConcurrentHashMap::size)
+            .description("Products held in the catalog cache")
+            .register(registry);
+    }
+
+    private List<ProductDTO> rebuildView() {
+        long startGeneration = generation.get();
+        List<ProductDTO> view = new ArrayList<>(byId.values());
+        view.sort(BY_ID);
+        view = Collections.unmodifiableList(view);
+        synchronized (this) {
+            if (generation.get() == startGeneration) {
+                allView = view;
+            }
+        }
+        return view;
+    }
+
+    private static List<ProductDTO> copyAll(List<ProductDTO> products) {
+        List<ProductDTO> copies = new ArrayList<>(products.size());
+        for (ProductDTO product : products) {
+            copies.add(new ProductDTO(product));
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.pharmacy.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.pharmacy.dto.ProductDTO;
+
+/**
+ * Streams RFC 4180 style CSV into {@link ProductDTO} rows.
+ *
+ * The first record is a header naming ProductDTO properties (name,
+ * genericName, manufacturer, dosage, price, supplierId, supplierName, barcode) in any
+ * order. Quoted fields may contain commas, doubled quotes and line breaks.
+ */
+final class ProductCsvReader {
+    private static final List<String> COLUMNS = List.of(
+        "name", "genericName", "manufacturer", "dosage", "price", "supplierId", "supplierName", "barcode");
+
+    private ProductCsvReader() {
+    }
+
+    static List<ProductDTO> read(Reader source, int maxRows) throws IOException {
+        BufferedReader in = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source);
+        List<String> header = nextRecord(in);
+        if (header == null) {
+            return List.of();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim();
+            if (!COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown CSV column: " + column);
+            }
+            columns.put(column, i);
+        }
+
+        List<ProductDTO> rows = new ArrayList<>();
+        List<String> record;
+        while ((record = nextRecord(in)) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            if (rows.size() == maxRows) {
+                throw new IllegalArgumentException("At most " + maxRows + " products per request");
+            }
+            rows.add(toProduct(record, columns, rows.size() + 1));
+        }
+        return rows;
+    }
+
+    private static ProductDTO toProduct(List<String> record, Map<String, Integer> columns, int rowNumber) {
+        ProductDTO product = new ProductDTO();
+        product.setName(value(record, columns, "name"));
+        product.setGenericName(value(record, columns, "genericName"));
+        product.setManufacturer(value(record, columns, "manufacturer"));
+        product.setDosage(value(record, columns, "dosage"));
+        product.setSupplierName(value(record, columns, "supplierName"));
+        product.setBarcode(value(record, columns, "barcode"));
+        String price = value(record, columns, "price");
+        String supplierId = value(record, columns, "supplierId");
+        try {
+            product.setPrice(price != null ? new BigDecimal(price) : null);
+            product.setSupplierId(supplierId != null ? Long.valueOf(supplierId) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Row " + rowNumber + ": invalid number");
+        }
+        return product;
+    }
+
+    private static String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // One record, or null at end of input
+    private static List<String> nextRecord(BufferedReader in) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = in.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                in.mark(1);
+                if (in.read() == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    in.reset();
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
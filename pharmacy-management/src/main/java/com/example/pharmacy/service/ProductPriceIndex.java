@@ -0,0 +1,144 @@
+package com.example.pharmacy.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.dto.ProductDTO;
+
+/**
+ * Products ordered by (price, id) for price-band browsing.
+ *
+ * A range is a sub-set view of a skip list, so a page costs one O(log n)
+ * seek plus the k entries returned. Pages continue from a keyset cursor (the
+ * last key returned) rather than an offset, which keeps deep pages just as
+ * cheap as the first and stable while prices change underneath them.
+ */
+@Component
+public class ProductPriceIndex implements ProductCatalogCache.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(ProductPriceIndex.class);
+
+    // Orders by price, then id so equal prices page deterministically
+    record PriceKey(BigDecimal price, long productId) implements Comparable<PriceKey> {
+        @Override
+        public int compareTo(PriceKey other) {
+            int byPrice = price.compareTo(other.price);
+            return byPrice != 0 ? byPrice : Long.compare(productId, other.productId);
+        }
+    }
+
+    public static class Slice {
+        private final List<Long> productIds;
+        private final String nextCursor;
+
+        Slice(List<Long> productIds, String nextCursor) {
+            this.productIds = productIds;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Long> getProductIds() {
+            return productIds;
+        }
+
+        // Null on the last page
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    private volatile ConcurrentSkipListSet<PriceKey> keys = new ConcurrentSkipListSet<>();
+    private final Map<Long, PriceKey> keyByProduct = new ConcurrentHashMap<>();
+
+    public Slice range(BigDecimal min, BigDecimal max, boolean descending, String cursor, int limit) {
+        if (min.compareTo(max) > 0 || limit <= 0) {
+            return new Slice(List.of(), null);
+        }
+        NavigableSet<PriceKey> view = keys.subSet(
+            new PriceKey(min, Long.MIN_VALUE), true, new PriceKey(max, Long.MAX_VALUE), true);
+        if (descending) {
+            view = view.descendingSet();
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            view = view.tailSet(decodeCursor(cursor), false);
+        }
+
+        List<Long> ids = new ArrayList<>(limit);
+        PriceKey last = null;
+        for (PriceKey key : view) {
+            if (ids.size() == limit) {
+                return new Slice(ids, encodeCursor(last));
+            }
+            ids.add(key.productId());
+            last = key;
+        }
+        return new Slice(ids, null);
+    }
+
+    public int size() {
+        return keyByProduct.size();
+    }
+
+    @Override
+    public synchronized void onCatalogLoaded(Collection<ProductDTO> products) {
+        ConcurrentSkipListSet<PriceKey> rebuilt = new ConcurrentSkipListSet<>();
+        keyByProduct.clear();
+        for (ProductDTO product : products) {
+            if (product.getPrice() != null) {
+                PriceKey key = new PriceKey(product.getPrice(), product.getProductId());
+                rebuilt.add(key);
+                keyByProduct.put(product.getProductId(), key);
+            }
+        }
+        keys = rebuilt;
+        logger.info("Built price index over {} products", rebuilt.size());
+    }
+
+    @Override
+    public synchronized void onProductUpserted(ProductDTO product) {
+        onProductRemoved(product.getProductId());
+        if (product.getPrice() != null) {
+            PriceKey key = new PriceKey(product.getPrice(), product.getProductId());
+            keys.add(key);
+            keyByProduct.put(product.getProductId(), key);
+        }
+    }
+
+    @Override
+    public synchronized void onProductRemoved(Long productId) {
+        PriceKey previous = keyByProduct.remove(productId);
+        if (previous != null) {
+            keys.remove(previous);
+        }
+    }
+
+    // Opaque keyset cursor: "<price>:<id>" of the last product on the page
+    private static String encodeCursor(PriceKey key) {
+        String value = key.price().toPlainString() + ":" + key.productId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static PriceKey decodeCursor(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int colon = value.lastIndexOf(':');
+            if (colon > 0) {
+                return new PriceKey(new BigDecimal(value.substring(0, colon)),
+                    Long.parseLong(value.substring(colon + 1)));
+            }
+        } catch (IllegalArgumentException e) {
+            // Not base64 or not numbers; reported below like any other malformed cursor
+        }
+        throw new IllegalArgumentException("Invalid price cursor");
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.pharmacy.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import com.example.pharmacy.dto.PriceAdjustmentDTO;
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.RepriceResultDTO;
+import com.example.pharmacy.entity.ProductPriceHistory;
+import com.example.pharmacy.repository.ProductPriceHistoryRepository;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Set-based bulk repricing.
+ *
+ * Each request is a single PostgreSQL statement: an UPDATE ... RETURNING
+ * that reports old and new price feeds an INSERT into product_price_history,
+ * so prices and history are written in one round trip however many products
+ * change. Rows whose price would not change are left alone and get no history
+ * entry, as are discontinued products. A percentage adjustment also counts
+ * the products its filter selects, so the result can say how many of them
+ * were skipped. The catalog cache is patched once, after commit.
+ */
+@Service
+public class ProductRepricingService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductRepricingService.class);
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    // The self-join on "old" only supplies the pre-update price for the history row
+    private static final String RECORD_HISTORY =
+        "INSERT INTO product_price_history (product_id, old_price, new_price, source, changed_at) "
+        + "SELECT product_id, old_price, new_price, ?, now() FROM changed RETURNING product_id, new_price";
+
+    static final String SET_PRICES_SQL =
+        "WITH input AS (SELECT * FROM unnest(CAST(? AS bigint[]), CAST(? AS numeric[])) AS i(product_id, price)), "
+        + "changed AS (UPDATE products p SET price = input.price FROM input, products old "
+        + "WHERE p.product_id = input.product_id AND old.product_id = p.product_id AND p.active "
+        + "AND p.price <> input.price "
+        + "RETURNING p.product_id, old.price AS old_price, p.price AS new_price) "
+        + RECORD_HISTORY;
+
+    // %s: supplier / manufacturer filter built from fixed fragments only
+    private static final String COUNT_SELECTED_SQL = "SELECT count(*) FROM products p WHERE p.active AND %s";
+
+    private static final String ADJUST_SQL =
+        "WITH changed AS (UPDATE products p SET price = round(p.price * ?, 2) FROM products old "
+        + "WHERE old.product_id = p.product_id AND p.active AND %s "
+        + "AND round(p.price * ?, 2) > 0 AND round(p.price * ?, 2) <> p.price "
+        + "RETURNING p.product_id, old.price AS old_price, p.price AS new_price) "
+        + RECORD_HISTORY;
+
+    record Repriced(Long productId, BigDecimal price) {
+    }
+
+    private static final RowMapper<Repriced> REPRICED = (rs, rowNum) ->
+        new Repriced(rs.getLong("product_id"), rs.getBigDecimal("new_price"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductCatalogCache catalogCache;
+    private final ProductPriceHistoryRepository priceHistoryRepository;
+    private final int maxRows;
+
+    @Autowired
+    public ProductRepricingService(JdbcTemplate jdbcTemplate, ProductCatalogCache catalogCache,
+                                   ProductPriceHistoryRepository priceHistoryRepository,
+                                   @Value("${pharmacy.products.bulk.max-rows:5000}") int maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogCache = catalogCache;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.maxRows = maxRows;
+    }
+
+    public List<ProductPriceHistory> getPriceHistory(Long productId, int limit) {
+        return priceHistoryRepository.findByProductIdNewestFirst(productId, PageRequest.of(0, limit));
+    }
+
+    // Explicit new prices by product id; a repeated id keeps its last price
+    @Transactional
+    public RepriceResultDTO setPrices(List<ProductDTO> prices) {
+        if (prices.size() > maxRows) {
+            throw new IllegalArgumentException("At most " + maxRows + " prices per request");
+        }
+        Map<Long, BigDecimal> byId = new LinkedHashMap<>();
+        for (int i = 0; i < prices.size(); i++) {
+            ProductDTO row = prices.get(i);
+            if (row.getProductId() == null) {
+                throw new IllegalArgumentException("Row " + (i + 1) + ": Product ID is required");
+            }
+            if (row.getPrice() == null || row.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Row " + (i + 1) + ": Product price must be greater than 0");
+            }
+            byId.put(row.getProductId(), row.getPrice().setScale(2, RoundingMode.HALF_UP));
+        }
+        if (byId.isEmpty()) {
+            return result(0, 0);
+        }
+
+        Long[] ids = byId.keySet().toArray(new Long[0]);
+        BigDecimal[] newPrices = byId.values().toArray(new BigDecimal[0]);
+        List<Repriced> changed = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SET_PRICES_SQL);
+            Array idArray = con.createArrayOf("bigint", ids);
+            Array priceArray = con.createArrayOf("numeric", newPrices);
+            ps.setArray(1, idArray);
+            ps.setArray(2, priceArray);
+            ps.setString(3, ProductPriceHistory.SOURCE_BULK_PRICES);
+            return ps;
+        }, REPRICED);
+        return applied(changed, byId.size());
+    }
+
+    // Percentage change across a supplier and/or manufacturer, rounded half-up to cents
+    @Transactional
+    public RepriceResultDTO adjustPrices(PriceAdjustmentDTO adjustment) {
+        BigDecimal percent = adjustment.getPercent();
+        if (percent == null || percent.signum() == 0) {
+            throw new IllegalArgumentException("A non-zero percent is required");
+        }
+        if (percent.compareTo(HUNDRED.negate()) <= 0) {
+            throw new IllegalArgumentException("Percent must be greater than -100");
+        }
+        String manufacturer = adjustment.getManufacturer() != null && !adjustment.getManufacturer().isBlank()
+            ? adjustment.getManufacturer().trim() : null;
+        if (adjustment.getSupplierId() == null && manufacturer == null) {
+            throw new IllegalArgumentException("Supplier ID or manufacturer is required");
+        }
+
+        List<String> filters = new ArrayList<>();
+        List<Object> filterArgs = new ArrayList<>();
+        if (adjustment.getSupplierId() != null) {
+            filters.add("p.supplier_id = ?");
+            filterArgs.add(adjustment.getSupplierId());
+        }
+        if (manufacturer != null) {
+            filters.add("lower(p.manufacturer) = lower(?)");
+            filterArgs.add(manufacturer);
+        }
+        String filter = String.join(" AND ", filters);
+        Integer selected = jdbcTemplate.queryForObject(String.format(COUNT_SELECTED_SQL, filter), Integer.class,
+            filterArgs.toArray());
+
+        BigDecimal factor = BigDecimal.ONE.add(percent.divide(HUNDRED));
+        List<Object> args = new ArrayList<>();
+        args.add(factor);
+        args.addAll(filterArgs);
+        args.add(factor);
+        args.add(factor);
+        args.add(ProductPriceHistory.SOURCE_BULK_PERCENT);
+
+        List<Repriced> changed = jdbcTemplate.query(String.format(ADJUST_SQL, filter), REPRICED, args.toArray());
+        // A product added between the count and the update must not make skipped negative
+        return applied(changed, Math.max(selected != null ? selected : 0, changed.size()));
+    }
+
+    private RepriceResultDTO applied(List<Repriced> changed, int requested) {
+        Map<Long, BigDecimal> newPrices = new LinkedHashMap<>();
+        changed.forEach(row -> newPrices.put(row.productId(), row.price()));
+        catalogCache.updatePrices(newPrices);
+        logger.info("Bulk repricing: {} products updated, {} skipped", changed.size(), requested - changed.size());
+        return result(changed.size(), requested - changed.size());
+    }
+
+    private static RepriceResultDTO result(int updated, int skipped) {
+        RepriceResultDTO result = new RepriceResultDTO();
+        result.setUpdated(updated);
+        result.setSkipped(skipped);
+        return result;
+    }
+}
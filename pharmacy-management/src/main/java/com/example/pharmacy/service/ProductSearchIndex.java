@@ -0,0 +1,37 @@
+package com.example.pharmacy.service;
+
+import java.util.List;
+
+/**
+ * Substring search over product names, ranked by trigram similarity.
+ *
+ * Selected with {@code pharmacy.search.product-index}: {@code memory} (default)
+ * keeps an n-gram inverted index built from the catalog cache, {@code pg_trgm}
+ * delegates to a PostgreSQL GIN trigram index.
+ */
+public interface ProductSearchIndex {
+
+    // Best matches first, at most limit hits
+    List<Hit> search(String query, int limit);
+
+    // False while the index is still waiting for its first catalog load
+    boolean isReady();
+
+    class Hit {
+        private final Long productId;
+        private final double score;
+
+        public Hit(Long productId, double score) {
+            this.productId = productId;
+            this.score = score;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
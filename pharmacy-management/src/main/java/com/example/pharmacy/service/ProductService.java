@@ -1,21 +1,33 @@
 package com.example.pharmacy.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.example.pharmacy.entity.Product;
+import com.example.pharmacy.entity.ProductPriceHistory;
 import com.example.pharmacy.entity.Supplier;
+import com.example.pharmacy.repository.ProductPriceHistoryRepository;
 import com.example.pharmacy.repository.ProductRepository;
 import com.example.pharmacy.repository.SupplierRepository;
+import com.example.pharmacy.dto.ProductAvailabilityDTO;
 import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.ProductField;
+import com.example.pharmacy.dto.ProductPageDTO;
 
 import jakarta.transaction.Transactional;
 
@@ -24,42 +36,90 @@ public class ProductService {
     private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
     private final ProductRepository productRepository;
     private final SupplierRepository supplierRepository;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductTypeaheadIndex typeaheadIndex;
+    private final ProductPriceIndex priceIndex;
+    private final ProductPriceHistoryRepository priceHistoryRepository;
+    private final GlobalSearchIndex globalSearchIndex;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, SupplierRepository supplierRepository) {
+    public ProductService(ProductRepository productRepository, SupplierRepository supplierRepository,
+                          ProductCatalogCache catalogCache, ProductSearchIndex productSearchIndex,
+                          ProductTypeaheadIndex typeaheadIndex, ProductPriceIndex priceIndex,
+                          ProductPriceHistoryRepository priceHistoryRepository, GlobalSearchIndex globalSearchIndex) {
         this.productRepository = productRepository;
         this.supplierRepository = supplierRepository;
+        this.catalogCache = catalogCache;
+        this.productSearchIndex = productSearchIndex;
+        this.typeaheadIndex = typeaheadIndex;
+        this.priceIndex = priceIndex;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.globalSearchIndex = globalSearchIndex;
+    }
+
+    // Helper method to convert Product to ProductDTO
+    private ProductDTO convertToDTO(Product product) {
+        ProductDTO dto = new ProductDTO();
+        dto.setProductId(product.getProductId());
+        dto.setName(product.getName());
+        dto.setGenericName(product.getGenericName());
+        dto.setManufacturer(product.getManufacturer());
+        dto.setDosage(product.getDosage());
+        dto.setPrice(product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO);
+        dto.setBarcode(product.getBarcode());
+        if (product.getSupplier() != null) {
+            dto.setSupplierId(product.getSupplier().getSupplierId());
+            dto.setSupplierName(product.getSupplier().getName());
+        }
+        return dto;
+    }
+
+    // Load the catalog before the first POS screen asks for it
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmCatalogCache() {
+        try {
+            getAllProducts();
+        } catch (Exception e) {
+            logger.warn("Could not warm catalog cache: {}", e.getMessage());
+        }
     }
 
     public List<ProductDTO> getAllProducts() {
         try {
-            List<Product> products = productRepository.findAll();
-            return products.stream()
-                .map(product -> {
-                    ProductDTO dto = new ProductDTO();
-                    dto.setProductId(product.getProductId());
-                    dto.setName(product.getName());
-                    dto.setGenericName(product.getGenericName());
-                    dto.setManufacturer(product.getManufacturer());
-                    dto.setDosage(product.getDosage());
-                    dto.setPrice(product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO); // Convert Double to BigDecimal
-                    
-                    if (product.getSupplier() != null) {
-                        dto.setSupplierId(product.getSupplier().getSupplierId());
-                        dto.setSupplierName(product.getSupplier().getName());
-                    }
-                    
-                    return dto;
-                })
-                .collect(Collectors.toList());
+            return catalogCache.getAll(productRepository::findAllAsDTO);
         } catch (Exception e) {
             logger.error("Error fetching products: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to fetch products: " + e.getMessage());
         }
     }
 
+    public Optional<ProductDTO> getProductDTOById(Long id) {
+        return catalogCache.get(id, productRepository::findDTOById);
+    }
+
+    // Sparse fieldset by id: from the cached snapshot when loaded, else only the requested columns are selected
+    public Optional<Map<String, Object>> getProductFieldsById(Long id, Set<ProductField> fields) {
+        if (catalogCache.isLoaded()) {
+            return catalogCache.peek(id).map(product -> ProductField.project(product, fields));
+        }
+        return productRepository.findFieldsById(id, fields);
+    }
+
+    // Multi-get in request order: straight from the catalog once loaded, else chunked IN queries
+    public List<ProductDTO> getProductsByIds(List<Long> ids) {
+        if (catalogCache.isLoaded()) {
+            return IdBatches.load(ids, chunk -> {
+                List<ProductDTO> found = new ArrayList<>(chunk.size());
+                chunk.forEach(id -> catalogCache.peek(id).ifPresent(found::add));
+                return found;
+            }, ProductDTO::getProductId);
+        }
+        return IdBatches.load(ids, productRepository::findAllAsDTOByIdIn, ProductDTO::getProductId);
+    }
+
     public Optional<Product> getProductById(Long id) {
-        Optional<Product> product = productRepository.findById(id);
+        Optional<Product> product = productRepository.findByProductIdAndActiveTrue(id);
         // Initialize supplier if product exists
         product.ifPresent(p -> {
             if (p.getSupplier() != null) {
@@ -69,16 +129,52 @@ public class ProductService {
         return product;
     }
 
-    public List<Product> searchProducts(String keyword) {
-        return productRepository.findByNameContaining(keyword);
+    // Substring match on name, best trigram similarity first
+    public List<ProductDTO> searchProducts(String keyword, int limit) {
+        if (!productSearchIndex.isReady()) {
+            getAllProducts(); // loading the catalog builds the in-memory index
+        }
+        List<ProductDTO> results = new ArrayList<>();
+        for (ProductSearchIndex.Hit hit : productSearchIndex.search(keyword, limit)) {
+            getProductDTOById(hit.getProductId()).ifPresent(results::add);
+        }
+        return results;
+    }
+
+    // Best sellers whose name or generic name starts with prefix, straight from the trie
+    public List<ProductDTO> typeahead(String prefix, int limit) {
+        if (!catalogCache.isLoaded()) {
+            getAllProducts(); // loading the catalog builds the trie
+        }
+        List<ProductDTO> results = new ArrayList<>();
+        for (Long productId : typeaheadIndex.suggest(prefix, Math.min(limit, typeaheadIndex.getTopK()))) {
+            catalogCache.peek(productId).ifPresent(results::add);
+        }
+        return results;
+    }
+
+    // POS view: every product with what can be sold right now, one aggregate query per page
+    public Slice<ProductAvailabilityDTO> getProductAvailability(int page, int size, boolean inStockOnly) {
+        return productRepository.findAvailability(LocalDate.now(), inStockOnly, PageRequest.of(page, size));
     }
 
     public List<Product> getProductsBySupplier(Supplier supplier) {
-        return productRepository.findBySupplier(supplier);
+        return productRepository.findBySupplierAndActiveTrue(supplier);
     }
 
-    public List<Product> getProductByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+    // One page of a price band from the sorted price index; fields == null means full ProductDTOs
+    public ProductPageDTO getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, boolean descending,
+                                                  String cursor, int limit, Set<ProductField> fields) {
+        if (!catalogCache.isLoaded()) {
+            getAllProducts(); // loading the catalog builds the price index
+        }
+        ProductPriceIndex.Slice slice = priceIndex.range(minPrice, maxPrice, descending, cursor, limit);
+        List<Object> products = new ArrayList<>(slice.getProductIds().size());
+        for (Long productId : slice.getProductIds()) {
+            catalogCache.peek(productId)
+                .ifPresent(product -> products.add(fields == null ? product : ProductField.project(product, fields)));
+        }
+        return new ProductPageDTO(products, slice.getNextCursor());
     }
 
     @Transactional
@@ -108,6 +204,7 @@ public class ProductService {
             product.setManufacturer(productDTO.getManufacturer());
             product.setDosage(productDTO.getDosage());
             product.setPrice(productDTO.getPrice());
+            product.setBarcode(checkBarcode(productDTO.getBarcode(), null));
             product.setSupplier(supplier);
 
             // Initialize empty lists for relationships
@@ -120,6 +217,7 @@ public class ProductService {
 
             logger.info("Saving new product with supplier ID: {}", supplier.getSupplierId());
             Product savedProduct = productRepository.save(product);
+            catalogCache.put(convertToDTO(savedProduct));
             logger.info("Successfully created product: {}", savedProduct.getName());
 
             return savedProduct;
@@ -149,6 +247,7 @@ public class ProductService {
             Supplier supplier = supplierRepository.findById(product.getSupplier().getSupplierId())
                 .orElseThrow(() -> new RuntimeException("Supplier not found with ID: " + product.getSupplier().getSupplierId()));
             product.setSupplier(supplier);
+            product.setBarcode(checkBarcode(product.getBarcode(), null));
 
             // Initialize empty lists for relationships
             if (product.getStocks() == null) {
@@ -160,6 +259,7 @@ public class ProductService {
 
             logger.info("Saving new product with supplier ID: {}", supplier.getSupplierId());
             Product savedProduct = productRepository.save(product);
+            catalogCache.put(convertToDTO(savedProduct));
             logger.info("Successfully created product: {}", savedProduct.getName());
             
             return savedProduct;
@@ -169,9 +269,13 @@ public class ProductService {
         }
     }
 
+    // Soft delete: a single-row update; stock rows and sales history stay in place
     @Transactional
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        if (productRepository.deactivate(id) > 0) {
+            catalogCache.evict(id);
+            globalSearchIndex.remove(GlobalSearchIndex.DocType.PRODUCT, id);
+        }
     }
 
     @Transactional
@@ -179,26 +283,31 @@ public class ProductService {
         try {
             logger.info("Starting product update for ID: {}", product.getProductId());
             
-            if (!productRepository.existsById(product.getProductId())) {
-                logger.error("Product not found with ID: {}", product.getProductId());
-                throw new RuntimeException("Product not found with id: " + product.getProductId());
-            }
-
-            // Get the existing product to preserve relationships
-            Product existingProduct = productRepository.findById(product.getProductId())
+            // Get the existing product to preserve relationships; discontinued products can't be edited
+            Product existingProduct = productRepository.findByProductIdAndActiveTrue(product.getProductId())
                 .orElseThrow(() -> {
-                    logger.error("Failed to fetch existing product with ID: {}", product.getProductId());
+                    logger.error("Product not found with ID: {}", product.getProductId());
                     return new RuntimeException("Product not found with id: " + product.getProductId());
                 });
 
             logger.info("Found existing product: {}", existingProduct.getName());
 
             // Update only the fields that should be updated
+            if (existingProduct.getPrice() == null || product.getPrice() == null
+                    || existingProduct.getPrice().compareTo(product.getPrice()) != 0) {
+                priceHistoryRepository.save(new ProductPriceHistory(existingProduct.getProductId(),
+                    existingProduct.getPrice(), product.getPrice(), ProductPriceHistory.SOURCE_EDIT, LocalDateTime.now()));
+            }
             existingProduct.setName(product.getName());
             existingProduct.setGenericName(product.getGenericName());
             existingProduct.setManufacturer(product.getManufacturer());
             existingProduct.setDosage(product.getDosage());
             existingProduct.setPrice(product.getPrice());
+            // No barcode in the request (the edit form has none) keeps the stored one, as in bulk upsert
+            String barcode = checkBarcode(product.getBarcode(), product.getProductId());
+            if (barcode != null) {
+                existingProduct.setBarcode(barcode);
+            }
             
             // Handle supplier update
             if (product.getSupplier() != null && product.getSupplier().getSupplierId() != null) {
@@ -212,6 +321,7 @@ public class ProductService {
 
             logger.info("Saving updated product");
             Product savedProduct = productRepository.save(existingProduct);
+            catalogCache.put(convertToDTO(savedProduct));
             logger.info("Successfully updated product: {}", savedProduct.getName());
             
             return savedProduct;
@@ -220,4 +330,14 @@ public class ProductService {
             throw new RuntimeException("Failed to update product: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    // Normalized barcode, rejected if another product already carries it
+    private String checkBarcode(String code, Long productId) {
+        String barcode = Barcodes.normalize(code);
+        if (barcode != null && productRepository.findIdByBarcode(barcode)
+                .filter(ownerId -> !ownerId.equals(productId)).isPresent()) {
+            throw new RuntimeException("Barcode already assigned to another product: " + barcode);
+        }
+        return barcode;
+    }
+}
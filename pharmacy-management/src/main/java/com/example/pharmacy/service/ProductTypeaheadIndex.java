@@ -0,0 +1,332 @@
+package com.example.pharmacy.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.repository.SaleItemRepository;
+
+/**
+ * Compressed prefix trie over product names and generic names for counter
+ * typeahead.
+ *
+ * Each node stores the ids of the top-K products in its subtree, ranked by
+ * units sold, so answering a prefix is a walk down at most prefix-length
+ * characters followed by returning a precomputed array. A node's top-K is
+ * always derivable from its own terminal products plus its children's top-K,
+ * which lets writes recompute only the nodes on the changed key's path.
+ */
+@Component
+public class ProductTypeaheadIndex implements ProductCatalogCache.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(ProductTypeaheadIndex.class);
+
+    private static final long[] NONE = new long[0];
+
+    private static final class Node {
+        String label;
+        final Map<Character, Node> children = new HashMap<>();
+        final Set<Long> terminals = new HashSet<>();
+        long[] top = NONE;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private final SaleItemRepository saleItemRepository;
+    private final int topK;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Long> unitsSold = new ConcurrentHashMap<>();
+    private final Map<Long, String[]> keysByProduct = new HashMap<>();
+    private final Map<Long, String> names = new HashMap<>();
+    private Node root = new Node("");
+
+    @Autowired
+    public ProductTypeaheadIndex(SaleItemRepository saleItemRepository,
+                                 @Value("${pharmacy.typeahead.top-k:10}") int topK) {
+        this.saleItemRepository = saleItemRepository;
+        this.topK = topK;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    // Ids of the most sold products whose name or generic name starts with prefix
+    public List<Long> suggest(String prefix, int limit) {
+        String remaining = TrigramProductSearchIndex.normalize(prefix);
+        if (remaining.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            while (!remaining.isEmpty()) {
+                Node child = node.children.get(remaining.charAt(0));
+                if (child == null) {
+                    return List.of();
+                }
+                if (remaining.startsWith(child.label)) {
+                    remaining = remaining.substring(child.label.length());
+                } else if (child.label.startsWith(remaining)) {
+                    remaining = "";
+                } else {
+                    return List.of();
+                }
+                node = child;
+            }
+            int count = Math.min(limit, node.top.length);
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(node.top[i]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded(Collection<ProductDTO> products) {
+        long start = System.nanoTime();
+        Map<Long, Long> sold = new HashMap<>();
+        try {
+            for (Object[] row : saleItemRepository.sumQuantityByProduct()) {
+                sold.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        } catch (Exception e) {
+            logger.warn("Could not load sales popularity for typeahead: {}", e.getMessage());
+        }
+
+        lock.writeLock().lock();
+        try {
+            unitsSold.clear();
+            unitsSold.putAll(sold);
+            keysByProduct.clear();
+            names.clear();
+            root = new Node("");
+            for (ProductDTO product : products) {
+                String[] keys = keysOf(product);
+                keysByProduct.put(product.getProductId(), keys);
+                names.put(product.getProductId(), keys[0]);
+                for (String key : keys) {
+                    insert(key, product.getProductId());
+                }
+            }
+            recomputeSubtree(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Built typeahead trie over {} products in {} ms",
+            products.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void onProductUpserted(ProductDTO product) {
+        lock.writeLock().lock();
+        try {
+            removeKeys(product.getProductId());
+            String[] keys = keysOf(product);
+            keysByProduct.put(product.getProductId(), keys);
+            names.put(product.getProductId(), keys[0]);
+            for (String key : keys) {
+                recomputePath(insert(key, product.getProductId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeKeys(productId);
+            names.remove(productId);
+            unitsSold.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Applied once the sale commits; a negative quantity reverts units (edited or deleted sales)
+    public void recordSale(Long productId, int quantity) {
+        if (productId == null || quantity == 0) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> applySale(productId, quantity));
+    }
+
+    private void applySale(Long productId, int quantity) {
+        lock.writeLock().lock();
+        try {
+            unitsSold.merge(productId, (long) quantity, Long::sum);
+            String[] keys = keysByProduct.get(productId);
+            if (keys == null) {
+                return;
+            }
+            for (String key : keys) {
+                List<Node> path = pathTo(key);
+                if (path != null) {
+                    recomputePath(path);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeKeys(Long productId) {
+        String[] keys = keysByProduct.remove(productId);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            List<Node> path = pathTo(key);
+            if (path == null) {
+                continue;
+            }
+            path.get(path.size() - 1).terminals.remove(productId);
+            prune(path);
+            recomputePath(path);
+        }
+    }
+
+    // Inserts key -> productId and returns the root-to-terminal path
+    private List<Node> insert(String key, Long productId) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        String remaining = key;
+        while (!remaining.isEmpty()) {
+            Node child = node.children.get(remaining.charAt(0));
+            if (child == null) {
+                child = new Node(remaining);
+                node.children.put(remaining.charAt(0), child);
+                node = child;
+                path.add(node);
+                break;
+            }
+            int common = commonPrefixLength(remaining, child.label);
+            if (common < child.label.length()) {
+                // Split the edge: node -> middle(common part) -> child(rest)
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                middle.top = child.top;
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            remaining = remaining.substring(common);
+            node = child;
+            path.add(node);
+        }
+        node.terminals.add(productId);
+        return path;
+    }
+
+    private List<Node> pathTo(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        String remaining = key;
+        while (!remaining.isEmpty()) {
+            Node child = node.children.get(remaining.charAt(0));
+            if (child == null || !remaining.startsWith(child.label)) {
+                return null;
+            }
+            remaining = remaining.substring(child.label.length());
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Drops empty leaves and folds single-child pass-through nodes back into one edge
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (!node.terminals.isEmpty()) {
+                break;
+            }
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+            } else if (node.children.size() == 1) {
+                Node only = node.children.values().iterator().next();
+                only.label = node.label + only.label;
+                parent.children.put(only.label.charAt(0), only);
+                path.set(i, only);
+                break;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void recomputePath(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            recompute(path.get(i));
+        }
+    }
+
+    private void recomputeSubtree(Node node) {
+        for (Node child : node.children.values()) {
+            recomputeSubtree(child);
+        }
+        recompute(node);
+    }
+
+    private void recompute(Node node) {
+        Set<Long> candidates = new LinkedHashSet<>(node.terminals);
+        for (Node child : node.children.values()) {
+            for (long id : child.top) {
+                candidates.add(id);
+            }
+        }
+        List<Long> ranked = new ArrayList<>(candidates);
+        ranked.sort(Comparator.comparingLong((Long id) -> unitsSold.getOrDefault(id, 0L)).reversed()
+            .thenComparing(id -> names.getOrDefault(id, ""))
+            .thenComparing(id -> id));
+        int count = Math.min(topK, ranked.size());
+        long[] top = new long[count];
+        for (int i = 0; i < count; i++) {
+            top[i] = ranked.get(i);
+        }
+        node.top = top;
+    }
+
+    private static String[] keysOf(ProductDTO product) {
+        String name = TrigramProductSearchIndex.normalize(product.getName());
+        String generic = TrigramProductSearchIndex.normalize(product.getGenericName());
+        if (generic.isEmpty() || generic.equals(name)) {
+            return new String[] { name };
+        }
+        return new String[] { name, generic };
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.pharmacy.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.pharmacy.entity.RefreshToken;
+import com.example.pharmacy.repository.RefreshTokenRepository;
+
+/**
+ * Issues and rotates refresh tokens, which let a client obtain new
+ * short-lived access tokens without logging in again.
+ *
+ * Tokens are random and opaque; only their hash is stored. Each one is good
+ * for a single refresh, which returns its successor. Presenting a token that
+ * was already used means it leaked (or the client raced itself), so every
+ * token of that login is revoked and the user has to sign in again.
+ */
+@Component
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    public record Issued(Long userId, String token) {
+    }
+
+    private final RefreshTokenRepository repository;
+    private final long lifetimeMs;
+    private final int purgeBatchSize;
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository repository,
+                               @Value("${pharmacy.auth.refresh.expiration-ms:1209600000}") long lifetimeMs,
+                               @Value("${pharmacy.auth.refresh.purge-batch-size:1000}") int purgeBatchSize) {
+        this.repository = repository;
+        this.lifetimeMs = lifetimeMs;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    // A new login starts a new family
+    @Transactional
+    public Issued issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    // The revocation of a replayed family must survive the rejection
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Issued rotate(String token) {
+        RefreshToken current = find(token);
+        LocalDateTime now = LocalDateTime.now();
+        if (repository.markUsed(current.getId(), now) != 1) {
+            if (current.getUsedAt() != null || current.getRevokedAt() == null && current.getExpiresAt().isAfter(now)) {
+                logger.warn("Refresh token reuse for user {}, revoking token family {}",
+                    current.getUserId(), current.getFamilyId());
+                repository.revokeFamily(current.getFamilyId(), now);
+            }
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return issue(current.getUserId(), current.getFamilyId());
+    }
+
+    // Logout: the token and any successor become unusable
+    @Transactional
+    public void revoke(String token) {
+        try {
+            repository.revokeFamily(find(token).getFamilyId(), LocalDateTime.now());
+        } catch (BadCredentialsException e) {
+            logger.debug("Ignoring logout with unknown refresh token");
+        }
+    }
+
+    @Transactional
+    public int revokeAll(Long userId) {
+        return repository.revokeAllForUser(userId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.auth.refresh.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        int batch;
+        do {
+            batch = repository.deleteExpiredBatch(now, purgeBatchSize);
+            purged += batch;
+        } while (batch == purgeBatchSize);
+        if (purged > 0) {
+            logger.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    private Issued issue(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(lifetimeMs * 1_000_000);
+        repository.save(new RefreshToken(userId, hash(token), familyId, expiresAt));
+        return new Issued(userId, token);
+    }
+
+    private RefreshToken find(String token) {
+        if (token == null || token.isBlank()) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return repository.findByTokenHash(hash(token))
+            .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
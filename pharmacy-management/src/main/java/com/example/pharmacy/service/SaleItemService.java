@@ -78,7 +78,7 @@ public class SaleItemService {
             // Fetch Sale and Product entities
             Sale sale = saleRepository.findById(saleItemDTO.getSaleId())
                 .orElseThrow(() -> new RuntimeException("Sale not found with ID: " + saleItemDTO.getSaleId()));
-            Product product = productRepository.findById(saleItemDTO.getProductId())
+            Product product = productRepository.findByProductIdAndActiveTrue(saleItemDTO.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found with ID: " + saleItemDTO.getProductId()));
 
             // Create SaleItem entity
@@ -155,8 +155,12 @@ public class SaleItemService {
             // Fetch Sale and Product entities
             Sale sale = saleRepository.findById(saleItemDTO.getSaleId())
                 .orElseThrow(() -> new RuntimeException("Sale not found with ID: " + saleItemDTO.getSaleId()));
-            Product product = productRepository.findById(saleItemDTO.getProductId())
-                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + saleItemDTO.getProductId()));
+            // Switching the line to another product needs an active one; the line may keep a discontinued one
+            Product product = saleItemDTO.getProductId() != null
+                    && saleItemDTO.getProductId().equals(saleItem.getProduct().getProductId())
+                ? saleItem.getProduct()
+                : productRepository.findByProductIdAndActiveTrue(saleItemDTO.getProductId())
+                    .orElseThrow(() -> new RuntimeException("Product not found with ID: " + saleItemDTO.getProductId()));
 
             // Update SaleItem fields
             saleItem.setSale(sale);
@@ -9,10 +9,13 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import com.example.pharmacy.dto.SaleDTO;
 import com.example.pharmacy.dto.SaleItemDTO;
+import com.example.pharmacy.dto.SaleSummaryDTO;
 import com.example.pharmacy.dto.StockDTO;
 import com.example.pharmacy.entity.Product;
 import com.example.pharmacy.entity.Sale;
@@ -33,15 +36,23 @@ public class SaleService {
     private final ProductRepository productRepository;
     private final StockRepository stockRepository;
     private final SaleItemRepository saleItemRepository;
+    private final ProductTypeaheadIndex typeaheadIndex;
+    private final ProductSearchIndex productSearchIndex;
+
+    // Beyond this many matching products the IN list stops paying off; fall back to the name query
+    private static final int MAX_MATCHED_PRODUCTS = 1000;
 
     @Autowired
     public SaleService(SaleRepository saleRepository, StockService stockService, ProductRepository productRepository, 
-                       StockRepository stockRepository, SaleItemRepository saleItemRepository) {
+                       StockRepository stockRepository, SaleItemRepository saleItemRepository,
+                       ProductTypeaheadIndex typeaheadIndex, ProductSearchIndex productSearchIndex) {
         this.saleRepository = saleRepository;
         this.stockService = stockService;
         this.productRepository = productRepository;
         this.stockRepository = stockRepository;
         this.saleItemRepository = saleItemRepository;
+        this.typeaheadIndex = typeaheadIndex;
+        this.productSearchIndex = productSearchIndex;
     }
 
     // Convert Sale to SaleDTO
@@ -86,6 +97,13 @@ public class SaleService {
         }
     }
 
+    // Multi-get in request order (receipts), items fetched in the same query
+    public List<SaleDTO> getSalesByIds(List<Long> ids) {
+        return IdBatches.load(ids, saleRepository::findAllWithItemsByIdIn, Sale::getSaleId).stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
     public List<SaleDTO> getSalesByDate(LocalDate date) {
         try {
             List<Sale> sales = saleRepository.findBySaleDate(date);
@@ -116,6 +134,29 @@ public class SaleService {
         }
     }
 
+    // Newest sales containing a product whose name contains the query, as summaries (no items loaded)
+    public List<SaleSummaryDTO> searchSalesByProductName(String query, int limit) {
+        try {
+            Pageable page = PageRequest.of(0, limit);
+            if (productSearchIndex.isReady()) {
+                // Product names are matched by the product index, sales then found through idx_sale_items_product
+                List<Long> productIds = productSearchIndex.search(query, MAX_MATCHED_PRODUCTS).stream()
+                    .map(ProductSearchIndex.Hit::getProductId)
+                    .collect(Collectors.toList());
+                if (productIds.isEmpty()) {
+                    return List.of();
+                }
+                if (productIds.size() < MAX_MATCHED_PRODUCTS) {
+                    return saleRepository.findSummariesByProductIds(productIds, page);
+                }
+            }
+            return saleRepository.findSummariesByProductName(query, page);
+        } catch (Exception e) {
+            logger.error("Error searching sales by product {}: {}", query, e.getMessage(), e);
+            throw new RuntimeException("Error searching sales by product: " + e.getMessage(), e);
+        }
+    }
+
     @Transactional
 public SaleDTO processSale(SaleDTO saleDTO) {
     try {
@@ -137,7 +178,7 @@ public SaleDTO processSale(SaleDTO saleDTO) {
             if (saleItemDTO.getProductId() == null) {
                 throw new RuntimeException("Product ID is required for sale item");
             }
-            Product product = productRepository.findById(saleItemDTO.getProductId())
+            Product product = productRepository.findByProductIdAndActiveTrue(saleItemDTO.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found with ID: " + saleItemDTO.getProductId()));
             saleItem.setProduct(product);
             saleItem.setQuantity(saleItemDTO.getQuantity());
@@ -165,6 +206,9 @@ public SaleDTO processSale(SaleDTO saleDTO) {
         
         sale.setTotalAmount(totalAmount);
         Sale savedSale = saleRepository.save(sale); // Ensure save is called
+        for (SaleItem item : savedSale.getSaleItems()) {
+            typeaheadIndex.recordSale(item.getProduct().getProductId(), item.getQuantity());
+        }
         logger.info("Successfully processed sale with ID: {}", savedSale.getSaleId());
         return convertToDTO(savedSale);
     } catch (Exception e) {
@@ -203,9 +247,11 @@ public SaleDTO processSale(SaleDTO saleDTO) {
                         .findFirst()
                         .orElseThrow(() -> new RuntimeException("Sale item not found with ID: " + updatedItem.getSaleItemId()));
 
-                    // Fetch product if productId is provided (for validation)
-                    if (updatedItem.getProductId() != null) {
-                        Product product = productRepository.findById(updatedItem.getProductId())
+                    Long oldProductId = saleItem.getProduct().getProductId();
+
+                    // Switching the line to another product needs an active one; the line may keep a discontinued one
+                    if (updatedItem.getProductId() != null && !updatedItem.getProductId().equals(oldProductId)) {
+                        Product product = productRepository.findByProductIdAndActiveTrue(updatedItem.getProductId())
                             .orElseThrow(() -> new RuntimeException("Product not found with ID: " + updatedItem.getProductId()));
                         saleItem.setProduct(product);
                     }
@@ -221,6 +267,10 @@ public SaleDTO processSale(SaleDTO saleDTO) {
                     if (quantityChange != 0) {
                         adjustStockAfterUpdate(saleItem, quantityChange);
                     }
+
+                    // Keep typeahead popularity in step with the edited line
+                    typeaheadIndex.recordSale(oldProductId, -oldQuantity);
+                    typeaheadIndex.recordSale(saleItem.getProduct().getProductId(), saleItem.getQuantity());
                 }
 
                 // Recalculate total amount
@@ -321,6 +371,11 @@ public SaleDTO processSale(SaleDTO saleDTO) {
     public void deleteSale(Long id) {
         try {
             logger.info("Deleting sale with ID: {}", id);
+            saleRepository.findById(id).ifPresent(sale -> {
+                for (SaleItem item : sale.getSaleItems()) {
+                    typeaheadIndex.recordSale(item.getProduct().getProductId(), -item.getQuantity());
+                }
+            });
             saleRepository.deleteById(id);
             logger.info("Successfully deleted sale with ID: {}", id);
         } catch (Exception e) {
@@ -0,0 +1,92 @@
+package com.example.pharmacy.service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.ScanResultDTO;
+import com.example.pharmacy.dto.StockDTO;
+
+/**
+ * POS barcode scans answered from memory: {@link BarcodeIndex} resolves the
+ * code and holds the batches, the catalog cache supplies the product.
+ * The database is only touched if either has not been loaded yet.
+ */
+@Service
+public class ScanService {
+    // First-expiry-first-out; batches without an expiry date go last
+    private static final Comparator<StockDTO> FEFO = Comparator
+        .comparing(StockDTO::getExpiryDate, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(StockDTO::getStockId);
+
+    private final ProductService productService;
+    private final ProductCatalogCache catalogCache;
+    private final BarcodeIndex barcodeIndex;
+
+    @Autowired
+    public ScanService(ProductService productService, ProductCatalogCache catalogCache, BarcodeIndex barcodeIndex) {
+        this.productService = productService;
+        this.catalogCache = catalogCache;
+        this.barcodeIndex = barcodeIndex;
+    }
+
+    public Optional<ScanResultDTO> scan(String code) {
+        String barcode = Barcodes.normalize(code);
+        if (barcode == null) {
+            throw new IllegalArgumentException("Barcode is required");
+        }
+        if (!catalogCache.isLoaded()) {
+            productService.getAllProducts();
+        }
+        if (!barcodeIndex.isBatchesLoaded()) {
+            barcodeIndex.loadBatches();
+        }
+
+        Optional<BarcodeIndex.Hit> hit = barcodeIndex.lookup(barcode);
+        if (hit.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<ProductDTO> product = catalogCache.peek(hit.get().productId());
+        if (product.isEmpty()) {
+            return Optional.empty();
+        }
+
+        LocalDate today = LocalDate.now();
+        long sellable = 0;
+        StockDTO preferred = null;
+        for (StockDTO batch : barcodeIndex.batches(product.get().getProductId())) {
+            if (isSellable(batch, today)) {
+                sellable += batch.getQuantity();
+                if (preferred == null || FEFO.compare(batch, preferred) < 0) {
+                    preferred = batch;
+                }
+            }
+        }
+        // A scanned batch label names the physical pack in hand; sell from it if we can
+        Long scannedStockId = hit.get().stockId();
+        if (scannedStockId != null) {
+            StockDTO scanned = barcodeIndex.batch(scannedStockId).orElse(null);
+            if (scanned != null && isSellable(scanned, today)) {
+                preferred = scanned;
+            }
+        }
+
+        ScanResultDTO result = new ScanResultDTO();
+        result.setCode(barcode);
+        result.setProduct(product.get());
+        result.setPrice(product.get().getPrice());
+        result.setSellableQuantity(sellable);
+        result.setPreferredBatch(preferred);
+        result.setScannedStockId(scannedStockId);
+        return Optional.of(result);
+    }
+
+    private static boolean isSellable(StockDTO batch, LocalDate today) {
+        return batch.getQuantity() != null && batch.getQuantity() > 0
+            && (batch.getExpiryDate() == null || !batch.getExpiryDate().isBefore(today));
+    }
+}
@@ -1,21 +1,44 @@
 package com.example.pharmacy.service;
 
+import com.example.pharmacy.dto.SaleSummaryDTO;
+import com.example.pharmacy.dto.SearchResponseDTO;
 import com.example.pharmacy.dto.SearchResultDTO;
+import com.example.pharmacy.entity.Product;
 import com.example.pharmacy.entity.Stock;
-import com.example.pharmacy.entity.Sale;
 import com.example.pharmacy.entity.Supplier;
 import com.example.pharmacy.entity.User;
+import com.example.pharmacy.repository.OffsetPageRequest;
+import com.example.pharmacy.repository.ProductRepository;
 import com.example.pharmacy.repository.StockRepository;
 import com.example.pharmacy.repository.SaleRepository;
 import com.example.pharmacy.repository.SupplierRepository;
 import com.example.pharmacy.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class SearchService {
@@ -24,6 +47,9 @@ public class SearchService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
     @Autowired
     private StockRepository stockRepository;
 
@@ -33,61 +59,314 @@ public class SearchService {
     @Autowired
     private SupplierRepository supplierRepository;
 
-    public List<SearchResultDTO> search(String query) {
-        List<SearchResultDTO> results = new ArrayList<>();
+    @Autowired
+    private GlobalSearchIndex globalSearchIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Deadline shared by all sources of one search; a source still running after it is dropped
+    @Value("${pharmacy.search.source-timeout-ms:500}")
+    private long sourceTimeoutMs;
+
+    private TransactionTemplate readOnlyTransaction;
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // Becomes the JDBC query timeout, so an abandoned source also stops on the database side
+        readOnlyTransaction.setTimeout((int) TimeUnit.MILLISECONDS.toSeconds(sourceTimeoutMs) + 1);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public SearchResponseDTO search(String query, String cursor, int limit, int perType) {
+        long[] offsets = decodeCursor(cursor);
+        int cap = Math.min(perType, limit);
+        // One extra row per source tells us whether that source has more beyond this page
+        int fetch = cap + 1;
+
+        List<String> incomplete = new ArrayList<>();
+        List<List<SearchResultDTO>> fetched = globalSearchIndex.isReady()
+            ? fetchFromIndex(query, offsets, fetch)
+            : fetchFromDatabase(query, offsets, fetch, incomplete);
+
+        // Every source is already ranked, so a k-way merge on score keeps each
+        // source's order intact and the per-source offsets in the cursor stay exact
+        int[] consumed = new int[fetched.size()];
+        List<SearchResultDTO> results = new ArrayList<>(limit);
+        while (results.size() < limit) {
+            int best = -1;
+            for (int i = 0; i < fetched.size(); i++) {
+                if (consumed[i] < cap && consumed[i] < fetched.get(i).size()
+                        && (best < 0 || fetched.get(i).get(consumed[i]).getScore() > fetched.get(best).get(consumed[best]).getScore())) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            results.add(fetched.get(best).get(consumed[best]++));
+        }
+
+        boolean hasMore = false;
+        long[] nextOffsets = new long[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            nextOffsets[i] = offsets[i] + consumed[i];
+            hasMore |= fetched.get(i).size() > consumed[i];
+        }
+        SearchResponseDTO response = new SearchResponseDTO(results, incomplete);
+        response.setNextCursor(hasMore ? encodeCursor(nextOffsets) : null);
+        return response;
+    }
+
+    // All sources from memory: one index lookup, then each ranked list is sliced at its cursor offset
+    private List<List<SearchResultDTO>> fetchFromIndex(String query, long[] offsets, int fetch) {
+        Map<GlobalSearchIndex.DocType, List<GlobalSearchIndex.Match>> matches = globalSearchIndex.search(query);
+        List<List<SearchResultDTO>> fetched = new ArrayList<>();
+        for (Source source : Source.values()) {
+            List<GlobalSearchIndex.Match> ranked = matches.get(GlobalSearchIndex.DocType.valueOf(source.name()));
+            int from = (int) Math.min(offsets[source.ordinal()], ranked.size());
+            List<SearchResultDTO> rows = new ArrayList<>();
+            for (GlobalSearchIndex.Match match : ranked.subList(from, Math.min(from + fetch, ranked.size()))) {
+                rows.add(scored(new SearchResultDTO(
+                    String.valueOf(match.getId()),
+                    source.name(),
+                    match.getTitle(),
+                    match.getDescription(),
+                    source.link(match.getId()),
+                    null
+                ), source, match.getTier()));
+            }
+            fetched.add(rows);
+        }
+        return fetched;
+    }
+
+    // Fallback while the index is building or disabled: one LIKE query per source, run concurrently
+    private List<List<SearchResultDTO>> fetchFromDatabase(String query, long[] offsets, int fetch, List<String> incomplete) {
+        // Each source runs (and maps lazy associations) inside its own read-only transaction,
+        // since the caller's persistence context does not follow work onto other threads
+        Map<Source, Future<List<SearchResultDTO>>> sources = new EnumMap<>(Source.class);
+        String pattern = wordStartPattern(query);
+        for (Source source : Source.values()) {
+            Pageable page = OffsetPageRequest.of(offsets[source.ordinal()], fetch);
+            sources.put(source, submit(status -> fetch(source, query, pattern, page)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sourceTimeoutMs);
+        List<List<SearchResultDTO>> fetched = new ArrayList<>();
+        for (Map.Entry<Source, Future<List<SearchResultDTO>>> source : sources.entrySet()) {
+            Future<List<SearchResultDTO>> future = source.getValue();
+            List<SearchResultDTO> rows = List.of();
+            try {
+                rows = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                incomplete.add(source.getKey().name());
+                logger.warn("Search source {} missed the {} ms deadline for query: {}", source.getKey(), sourceTimeoutMs, query);
+            } catch (ExecutionException e) {
+                incomplete.add(source.getKey().name());
+                logger.error("Search source {} failed: {}", source.getKey(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sources.values().forEach(pending -> pending.cancel(true));
+                throw new RuntimeException("Search interrupted", e);
+            }
+            fetched.add(rows);
+        }
+        return fetched;
+    }
 
-        // Search Users
-        List<User> users = userRepository.findByFullNameContainingIgnoreCase(query);
+    private Future<List<SearchResultDTO>> submit(TransactionCallback<List<SearchResultDTO>> source) {
+        return executor.submit(() -> readOnlyTransaction.execute(source));
+    }
+
+    private List<SearchResultDTO> fetch(Source source, String query, String pattern, Pageable page) {
+        switch (source) {
+            case USER:
+                return searchUsers(query, pattern, page);
+            case STOCK:
+                return searchStocks(query, pattern, page);
+            case SALE:
+                return searchSales(query, pattern, page);
+            case SUPPLIER:
+                return searchSuppliers(query, pattern, page);
+            default:
+                return searchProducts(query, pattern, page);
+        }
+    }
+
+    private List<SearchResultDTO> searchUsers(String query, String pattern, Pageable page) {
+        List<SearchResultDTO> results = new ArrayList<>();
+        List<User> users = userRepository.searchByFullName(query, pattern, page);
         for (User user : users) {
-            results.add(new SearchResultDTO(
+            results.add(scored(new SearchResultDTO(
                 user.getId().toString(),
                 "USER",
                 user.getFullName(),
                 user.getEmail(),
                 "/users/update/" + user.getId(),
                 null
-            ));
+            ), Source.USER, matchTier(user.getFullName(), query)));
         }
+        return results;
+    }
 
-        // Search Stocks
-        List<Stock> stocks = stockRepository.findByProductNameContainingIgnoreCase(query);
+    private List<SearchResultDTO> searchStocks(String query, String pattern, Pageable page) {
+        List<SearchResultDTO> results = new ArrayList<>();
+        List<Stock> stocks = stockRepository.searchByProductName(query, pattern, page);
         for (Stock stock : stocks) {
-            results.add(new SearchResultDTO(
+            results.add(scored(new SearchResultDTO(
                 stock.getStockId().toString(),
                 "STOCK",
                 stock.getProduct().getName(),
                 "Quantity: " + stock.getQuantity(),
                 "/stocks",
                 null
-            ));
+            ), Source.STOCK, productTier(stock.getProduct(), query)));
         }
+        return results;
+    }
 
-        // Search Sales
-        List<Sale> sales = saleRepository.findByProductNameContainingIgnoreCase(query);
-        for (Sale sale : sales) {
-            results.add(new SearchResultDTO(
+    private List<SearchResultDTO> searchSales(String query, String pattern, Pageable page) {
+        List<SearchResultDTO> results = new ArrayList<>();
+        // Sales match on the customer name or the products they contain, so the tier comes from SQL
+        for (SaleSummaryDTO sale : saleRepository.searchByCustomerOrProductName(query, pattern, page)) {
+            results.add(scored(new SearchResultDTO(
                 sale.getSaleId().toString(),
                 "SALE",
                 sale.getCustomerName(),
                 "Total: " + sale.getTotalAmount(),
                 "/sales",
                 null
-            ));
+            ), Source.SALE, sale.getMatchTier()));
         }
+        return results;
+    }
 
-        // Search Suppliers
-        List<Supplier> suppliers = supplierRepository.findByNameContainingIgnoreCase(query);
+    private List<SearchResultDTO> searchSuppliers(String query, String pattern, Pageable page) {
+        List<SearchResultDTO> results = new ArrayList<>();
+        List<Supplier> suppliers = supplierRepository.searchByName(query, pattern, page);
         for (Supplier supplier : suppliers) {
-            results.add(new SearchResultDTO(
+            results.add(scored(new SearchResultDTO(
                 supplier.getSupplierId().toString(),
                 "SUPPLIER",
                 supplier.getName(),
                 supplier.getEmail(),
                 "/suppliers",
                 null
-            ));
+            ), Source.SUPPLIER, matchTier(supplier.getName(), query)));
         }
+        return results;
+    }
 
+    private List<SearchResultDTO> searchProducts(String query, String pattern, Pageable page) {
+        List<SearchResultDTO> results = new ArrayList<>();
+        for (Product product : productRepository.searchByNameOrGenericName(query, pattern, page)) {
+            results.add(scored(new SearchResultDTO(
+                product.getProductId().toString(),
+                "PRODUCT",
+                product.getName(),
+                product.getGenericName(),
+                Source.PRODUCT.link(product.getProductId()),
+                null
+            ), Source.PRODUCT, productTier(product, query)));
+        }
         return results;
     }
-}
\ No newline at end of file
+
+    /**
+     * LIKE pattern for concat(' ', lower(value)) that holds when every query
+     * word starts a word of the value, in query order: the match
+     * GlobalSearchIndex makes, so both paths find the same rows. The query's
+     * own %, _ and \ match literally.
+     */
+    static String wordStartPattern(String query) {
+        StringBuilder pattern = new StringBuilder("%");
+        for (String word : GlobalSearchIndex.words(query)) {
+            pattern.append(' ')
+                .append(word.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_"))
+                .append('%');
+        }
+        return pattern.toString();
+    }
+
+    // A product ranks by the better of its name and generic name, as ProductRepository.SEARCH_TIER does
+    private static int productTier(Product product, String query) {
+        return Math.min(matchTier(product.getName(), query), matchTier(product.getGenericName(), query));
+    }
+
+    // Mirrors the ORDER BY CASE in the repository queries: 0 exact, 1 prefix, 2 a later word
+    static int matchTier(String value, String query) {
+        String haystack = value == null ? "" : value.toLowerCase(Locale.ROOT);
+        String needle = query.toLowerCase(Locale.ROOT);
+        if (haystack.equals(needle)) {
+            return 0;
+        }
+        return haystack.startsWith(needle) ? 1 : 2;
+    }
+
+    private static SearchResultDTO scored(SearchResultDTO result, Source source, int tier) {
+        result.setScore((3 - tier) * source.weight);
+        return result;
+    }
+
+    // Opaque cursor: the number of rows already returned from each source
+    private static String encodeCursor(long[] offsets) {
+        StringBuilder value = new StringBuilder();
+        for (long offset : offsets) {
+            value.append(value.length() == 0 ? "" : ".").append(offset);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long[] decodeCursor(String cursor) {
+        long[] offsets = new long[Source.values().length];
+        if (cursor == null || cursor.isBlank()) {
+            return offsets;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split("\\.");
+            if (parts.length == offsets.length) {
+                for (int i = 0; i < parts.length; i++) {
+                    offsets[i] = Long.parseLong(parts[i]);
+                }
+                if (Arrays.stream(offsets).allMatch(offset -> offset >= 0)) {
+                    return offsets;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Not base64 or not numbers; reported below like any other malformed cursor
+        }
+        throw new IllegalArgumentException("Invalid search cursor");
+    }
+
+    // Fan-out order; the weight scales a match's tier so e.g. an exact stock hit outranks an exact user hit
+    private enum Source {
+        USER(0.8, "/users/update/"),
+        STOCK(1.0, "/stocks"),
+        SALE(0.7, "/sales"),
+        SUPPLIER(0.9, "/suppliers"),
+        PRODUCT(0.95, "/products/edit/");
+
+        private final double weight;
+        private final String link;
+
+        Source(double weight, String link) {
+            this.weight = weight;
+            this.link = link;
+        }
+
+        // Detail pages take the id; list pages don't
+        String link(long id) {
+            return link.endsWith("/") ? link + id : link;
+        }
+    }
+}
@@ -37,6 +37,7 @@ public class StockService {
         dto.setBatchNumber(stock.getBatchNumber());
         dto.setQuantity(stock.getQuantity());
         dto.setExpiryDate(stock.getExpiryDate());
+        dto.setBarcode(stock.getBarcode());
         return dto;
     }
 
@@ -54,7 +55,7 @@ public class StockService {
             }
 
             // Fetch the product from the database
-            Product product = productRepository.findById(stockDTO.getProductId())
+            Product product = productRepository.findByProductIdAndActiveTrue(stockDTO.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found with ID: " + stockDTO.getProductId()));
 
             // Create the stock entity
@@ -63,6 +64,7 @@ public class StockService {
             stock.setBatchNumber(stockDTO.getBatchNumber());
             stock.setQuantity(stockDTO.getQuantity());
             stock.setExpiryDate(stockDTO.getExpiryDate());
+            stock.setBarcode(checkBarcode(stockDTO.getBarcode(), null));
 
             Stock savedStock = stockRepository.save(stock);
             return convertToDTO(savedStock);
@@ -89,7 +91,7 @@ public class StockService {
             }
 
             // Fetch the product
-            Product product = productRepository.findById(stockDTO.getProductId())
+            Product product = productRepository.findByProductIdAndActiveTrue(stockDTO.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found with ID: " + stockDTO.getProductId()));
 
             // Update stock fields
@@ -97,6 +99,11 @@ public class StockService {
             stock.setBatchNumber(stockDTO.getBatchNumber());
             stock.setQuantity(stockDTO.getQuantity());
             stock.setExpiryDate(stockDTO.getExpiryDate());
+            // No barcode in the request keeps the batch's stored one
+            String barcode = checkBarcode(stockDTO.getBarcode(), id);
+            if (barcode != null) {
+                stock.setBarcode(barcode);
+            }
 
             Stock updatedStock = stockRepository.save(stock);
             return convertToDTO(updatedStock);
@@ -108,7 +115,7 @@ public class StockService {
 
     public List<StockDTO> getAllStocks() {
         try {
-            List<Stock> stocks = stockRepository.findAll();
+            List<Stock> stocks = stockRepository.findAllOfActiveProducts();
             return stocks.stream().map(this::convertToDTO).collect(Collectors.toList());
         } catch (Exception e) {
             logger.error("Error fetching all stocks: {}", e.getMessage(), e);
@@ -118,7 +125,7 @@ public class StockService {
 
     public StockDTO getStockById(Long id) {
         try {
-            Stock stock = stockRepository.findById(id)
+            Stock stock = stockRepository.findOfActiveProductById(id)
                 .orElseThrow(() -> new RuntimeException("Stock not found with ID: " + id));
             return convertToDTO(stock);
         } catch (Exception e) {
@@ -127,6 +134,13 @@ public class StockService {
         }
     }
 
+    // Multi-get in request order, one IN query per chunk
+    public List<StockDTO> getStocksByIds(List<Long> ids) {
+        return IdBatches.load(ids, stockRepository::findAllWithProductByIdIn, Stock::getStockId).stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
     public List<StockDTO> getStockByProduct(Product product) {
         try {
             List<Stock> stocks = stockRepository.findByProduct(product);
@@ -199,4 +213,16 @@ public class StockService {
             throw new RuntimeException("Error deleting stock: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    // Normalized batch barcode, rejected if another live batch already carries it
+    private String checkBarcode(String code, Long stockId) {
+        String barcode = Barcodes.normalize(code);
+        if (barcode != null) {
+            if (stockRepository.findIdByBarcode(barcode).filter(ownerId -> !ownerId.equals(stockId)).isPresent()) {
+                throw new RuntimeException("Barcode already assigned to another batch: " + barcode);
+            }
+            stockRepository.releaseDiscontinuedBarcode(barcode);
+        }
+        return barcode;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.pharmacy.service;
 
 import com.example.pharmacy.dto.SupplierDTO;
 import com.example.pharmacy.entity.Supplier;
+import com.example.pharmacy.repository.ProductRepository;
 import com.example.pharmacy.repository.SupplierRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +20,12 @@ public class SupplierService {
     @Autowired
     private SupplierRepository supplierRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
     @Transactional(readOnly = true)
     public List<SupplierDTO> getAllSuppliers() {
         try {
@@ -113,11 +120,15 @@ public class SupplierService {
             Supplier supplier = supplierRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Supplier not found with id: " + id));
 
+            boolean renamed = !supplierDTO.getName().equals(supplier.getName());
             supplier.setName(supplierDTO.getName());
             supplier.setContactNumber(supplierDTO.getContactNumber());
             supplier.setEmail(supplierDTO.getEmail());
 
             Supplier updatedSupplier = supplierRepository.save(supplier);
+            if (renamed) {
+                productCatalogCache.renameSupplier(updatedSupplier.getSupplierId(), updatedSupplier.getName());
+            }
             SupplierDTO dto = new SupplierDTO();
             dto.setSupplierId(updatedSupplier.getSupplierId());
             dto.setName(updatedSupplier.getName());
@@ -137,6 +148,15 @@ public class SupplierService {
             logger.info("Deleting supplier with ID: {}", id);
             Supplier supplier = supplierRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Supplier not found with id: " + id));
+            // Products are soft-deleted and keep their supplier for sales history, so only an unused supplier can go
+            long activeProducts = productRepository.countBySupplier_SupplierIdAndActiveTrue(id);
+            if (activeProducts > 0) {
+                throw new RuntimeException("Supplier still has " + activeProducts
+                    + " active products; discontinue or reassign them first");
+            }
+            if (productRepository.existsBySupplier_SupplierId(id)) {
+                throw new RuntimeException("Supplier is referenced by discontinued products kept for sales history");
+            }
             supplierRepository.delete(supplier);
             logger.info("Successfully deleted supplier with ID: {}", id);
         } catch (Exception e) {
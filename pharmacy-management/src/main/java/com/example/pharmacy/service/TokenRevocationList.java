@@ -0,0 +1,181 @@
+package com.example.pharmacy.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.pharmacy.entity.RevokedToken;
+import com.example.pharmacy.repository.RevokedTokenRepository;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Revoked access tokens, checked on every authenticated request.
+ *
+ * The revoked_tokens table is the source of truth and stays small: a row
+ * revokes one token (logout) or every token a user was issued so far
+ * (password change, deletion, role change), and is purged once those tokens
+ * have expired. Each node keeps a Bloom filter of the live keys, so a token
+ * that was never revoked - nearly every request - is cleared in memory. Only
+ * a filter hit is confirmed against the table. Local revocations enter the
+ * filter on commit; those made on other nodes are picked up by a sync every
+ * couple of seconds. The filter is rebuilt periodically to shed expired keys.
+ */
+@Component
+public class TokenRevocationList implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private static final String TOKEN_KEY = "jti:";
+    private static final String USER_KEY = "user:";
+
+    // Revocations committed on another node can carry an earlier timestamp than our last sync
+    private static final long SYNC_OVERLAP_MS = 60_000;
+
+    private final RevokedTokenRepository repository;
+    private final long tokenLifetimeMs;
+    private final int expectedKeys;
+    private final double falsePositiveRate;
+    private final int purgeBatchSize;
+
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private volatile BloomFilter filter;
+    private LocalDateTime lastSyncStart;
+
+    @Autowired
+    public TokenRevocationList(RevokedTokenRepository repository,
+                               @Value("${pharmacy.app.jwtExpirationMs}") long tokenLifetimeMs,
+                               @Value("${pharmacy.auth.revocation.expected-keys:100000}") int expectedKeys,
+                               @Value("${pharmacy.auth.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${pharmacy.auth.revocation.purge-batch-size:1000}") int purgeBatchSize) {
+        this.repository = repository;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.purgeBatchSize = purgeBatchSize;
+        this.filter = new BloomFilter(expectedKeys, falsePositiveRate);
+    }
+
+    /**
+     * True when the token was revoked by id, or issued to a user at or before
+     * that user's latest revocation. JWT iat is truncated to whole seconds, so
+     * the revocation time is truncated too and a token issued in the same
+     * second counts as issued before it: it may predate the change, and the
+     * cost of the guess is one refresh.
+     */
+    public boolean isRevoked(Claims claims) {
+        BloomFilter current = filter;
+        String jti = claims.getId();
+        if (jti != null && current.mightContain(TOKEN_KEY + jti)) {
+            if (latestRevocation(TOKEN_KEY + jti) != null) {
+                return true;
+            }
+        }
+        Object id = claims.get("id");
+        if (id instanceof Number userId && current.mightContain(USER_KEY + userId.longValue())) {
+            LocalDateTime revokedAt = latestRevocation(USER_KEY + userId.longValue());
+            Date issuedAt = claims.getIssuedAt();
+            return revokedAt != null
+                && (issuedAt == null || issuedAt.getTime() / 1000 <= toEpochMs(revokedAt) / 1000);
+        }
+        return false;
+    }
+
+    // Logout: revoke one access token until it would have expired anyway
+    @Transactional
+    public void revokeToken(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null || expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        String key = TOKEN_KEY + jti;
+        LocalDateTime expires = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        repository.save(new RevokedToken(key, LocalDateTime.now(), expires));
+        TransactionCallbacks.afterCommit(() -> filter.put(key));
+    }
+
+    // Every access token issued to the user until now
+    @Transactional
+    public void revokeUser(Long userId) {
+        String key = USER_KEY + userId;
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(new RevokedToken(key, now, now.plusNanos(tokenLifetimeMs * 1_000_000)));
+        TransactionCallbacks.afterCommit(() -> filter.put(key));
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.auth.revocation.sync-ms:2000}")
+    public synchronized void sync() {
+        if (lastSyncStart == null) {
+            return;
+        }
+        LocalDateTime start = LocalDateTime.now();
+        List<String> keys = repository.findKeysRevokedSince(lastSyncStart.minusNanos(SYNC_OVERLAP_MS * 1_000_000));
+        BloomFilter current = filter;
+        keys.forEach(current::put);
+        lastSyncStart = start;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${pharmacy.auth.revocation.rebuild-ms:600000}",
+        initialDelayString = "${pharmacy.auth.revocation.rebuild-ms:600000}")
+    public synchronized void rebuild() {
+        LocalDateTime start = LocalDateTime.now();
+        int purged = 0;
+        int batch;
+        do {
+            batch = repository.deleteExpiredBatch(start, purgeBatchSize);
+            purged += batch;
+        } while (batch == purgeBatchSize);
+
+        List<String> keys = repository.findLiveKeys(start);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedKeys, keys.size() * 2), falsePositiveRate);
+        keys.forEach(rebuilt::put);
+        filter = rebuilt;
+        lastSyncStart = start;
+        logger.info("Token revocation filter rebuilt with {} keys ({} expired rows purged)", keys.size(), purged);
+    }
+
+    public long getConfirmedCount() {
+        return confirmed.get();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositives.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("pharmacy.auth.revocation.lookups", confirmed, AtomicLong::get)
+            .tag("result", "revoked")
+            .description("Revocation filter hits confirmed by the revoked_tokens table")
+            .register(registry);
+        FunctionCounter.builder("pharmacy.auth.revocation.lookups", falsePositives, AtomicLong::get)
+            .tag("result", "false_positive")
+            .description("Revocation filter hits the revoked_tokens table did not confirm")
+            .register(registry);
+    }
+
+    private LocalDateTime latestRevocation(String key) {
+        LocalDateTime revokedAt = repository.findLatestRevocation(key, LocalDateTime.now());
+        (revokedAt != null ? confirmed : falsePositives).incrementAndGet();
+        return revokedAt;
+    }
+
+    private static long toEpochMs(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
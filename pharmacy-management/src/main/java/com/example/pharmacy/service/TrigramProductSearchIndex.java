@@ -0,0 +1,281 @@
+package com.example.pharmacy.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.pharmacy.dto.ProductDTO;
+
+/**
+ * In-process trigram inverted index over product names.
+ *
+ * Every lower-cased name is split into overlapping three-character grams;
+ * each gram maps to a sorted array of product ids. A query of three or more
+ * characters intersects the posting lists of its own grams, so only names
+ * that can contain the query are ever looked at. Names are also posted under
+ * each distinct one- and two-character substring, so a shorter query reads
+ * its single posting list: exactly the names containing it.
+ *
+ * Hits are ranked by trigram similarity (shared grams over the union, as in
+ * pg_trgm): since every hit contains all query grams this is simply the query
+ * gram count over the name gram count, so tighter names rank first.
+ */
+@Component
+@ConditionalOnProperty(name = "pharmacy.search.product-index", havingValue = "memory", matchIfMissing = true)
+public class TrigramProductSearchIndex implements ProductSearchIndex, ProductCatalogCache.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(TrigramProductSearchIndex.class);
+
+    // Short gram keys carry a tag above the 48 bits a packed trigram uses
+    private static final long UNIGRAM = 1L << 49;
+    private static final long BIGRAM = 1L << 50;
+
+    private static final class Entry {
+        final String name;
+        final int trigramCount;
+        final long[] keys; // trigrams, then short grams: every posting list the product is on
+
+        Entry(String name, long[] trigrams, long[] shortGrams) {
+            this.name = name;
+            this.trigramCount = trigrams.length;
+            this.keys = Arrays.copyOf(trigrams, trigrams.length + shortGrams.length);
+            System.arraycopy(shortGrams, 0, keys, trigrams.length, shortGrams.length);
+        }
+    }
+
+    private static final class Index {
+        final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        final Map<Long, long[]> postings = new ConcurrentHashMap<>();
+    }
+
+    private volatile Index index = new Index();
+    private volatile boolean ready;
+
+    @Override
+    public void onCatalogLoaded(Collection<ProductDTO> products) {
+        long start = System.nanoTime();
+        List<ProductDTO> sorted = new ArrayList<>(products);
+        sorted.sort(Comparator.comparing(ProductDTO::getProductId));
+
+        // Appending ids in ascending order keeps every posting list sorted without a final sort
+        Index rebuilt = new Index();
+        Map<Long, long[]> postings = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+        for (ProductDTO product : sorted) {
+            Entry entry = toEntry(product);
+            rebuilt.entries.put(product.getProductId(), entry);
+            for (long gram : entry.keys) {
+                int size = sizes.getOrDefault(gram, 0);
+                long[] ids = postings.get(gram);
+                if (ids == null) {
+                    ids = new long[4];
+                } else if (ids.length == size) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size] = product.getProductId();
+                postings.put(gram, ids);
+                sizes.put(gram, size + 1);
+            }
+        }
+        postings.forEach((gram, ids) -> rebuilt.postings.put(gram, Arrays.copyOf(ids, sizes.get(gram))));
+
+        synchronized (this) {
+            index = rebuilt;
+            ready = true;
+        }
+        logger.info("Built trigram index over {} products ({} grams) in {} ms",
+            rebuilt.entries.size(), rebuilt.postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public synchronized void onProductUpserted(ProductDTO product) {
+        Index current = index;
+        removeFrom(current, product.getProductId());
+        Entry entry = toEntry(product);
+        current.entries.put(product.getProductId(), entry);
+        for (long gram : entry.keys) {
+            current.postings.compute(gram, (key, ids) -> insertSorted(ids, product.getProductId()));
+        }
+    }
+
+    @Override
+    public synchronized void onProductRemoved(Long productId) {
+        removeFrom(index, productId);
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public List<Hit> search(String query, int limit) {
+        String needle = normalize(query);
+        if (needle.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Index current = index;
+        List<Match> matches = new ArrayList<>();
+
+        if (needle.length() < 3) {
+            long[] ids = current.postings.get(shortGram(needle));
+            for (long id : ids == null ? new long[0] : ids) {
+                Entry entry = current.entries.get(id);
+                if (entry != null) {
+                    matches.add(new Match(id, (double) needle.length() / entry.name.length(), entry.name));
+                }
+            }
+        } else {
+            long[] queryGrams = grams(needle);
+            long[][] lists = new long[queryGrams.length][];
+            for (int i = 0; i < queryGrams.length; i++) {
+                lists[i] = current.postings.get(queryGrams[i]);
+                if (lists[i] == null) {
+                    return List.of();
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(ids -> ids.length));
+
+            for (long id : lists[0]) {
+                if (!containedInAll(lists, id)) {
+                    continue;
+                }
+                Entry entry = current.entries.get(id);
+                // Grams can match out of order ("abcab" vs "cabc"), so confirm the real substring
+                if (entry != null && entry.name.contains(needle)) {
+                    matches.add(new Match(id, (double) queryGrams.length / entry.trigramCount, entry.name));
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble((Match match) -> match.score).reversed()
+            .thenComparing(match -> match.name));
+        List<Hit> hits = new ArrayList<>(Math.min(limit, matches.size()));
+        for (Match match : matches.subList(0, Math.min(limit, matches.size()))) {
+            hits.add(new Hit(match.productId, match.score));
+        }
+        return hits;
+    }
+
+    private static final class Match {
+        final Long productId;
+        final double score;
+        final String name;
+
+        Match(Long productId, double score, String name) {
+            this.productId = productId;
+            this.score = score;
+            this.name = name;
+        }
+    }
+
+    private static boolean containedInAll(long[][] lists, long id) {
+        for (int i = 1; i < lists.length; i++) {
+            if (Arrays.binarySearch(lists[i], id) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void removeFrom(Index current, Long productId) {
+        Entry previous = current.entries.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (long gram : previous.keys) {
+            current.postings.computeIfPresent(gram, (key, ids) -> removeSorted(ids, productId));
+        }
+    }
+
+    private static long[] insertSorted(long[] ids, long id) {
+        if (ids == null) {
+            return new long[] { id };
+        }
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        int insertAt = -position - 1;
+        long[] copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = id;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, ids.length - insertAt);
+        return copy;
+    }
+
+    // Returning null from computeIfPresent drops the gram entirely once its last product is gone
+    private static long[] removeSorted(long[] ids, long id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        long[] copy = new long[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, position);
+        System.arraycopy(ids, position + 1, copy, position, ids.length - position - 1);
+        return copy;
+    }
+
+    private static Entry toEntry(ProductDTO product) {
+        String name = normalize(product.getName());
+        return new Entry(name, grams(name), shortGrams(name));
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Distinct trigrams, each packed into a long as three 16-bit chars
+    static long[] grams(String value) {
+        if (value.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[value.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2);
+        }
+        return distinct(grams);
+    }
+
+    private static long[] distinct(long[] grams) {
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    // Distinct one- and two-character substrings, as tagged keys
+    static long[] shortGrams(String value) {
+        long[] grams = new long[Math.max(0, 2 * value.length() - 1)];
+        for (int i = 0; i < value.length(); i++) {
+            grams[2 * i] = shortGram(value.substring(i, i + 1));
+            if (i + 1 < value.length()) {
+                grams[2 * i + 1] = shortGram(value.substring(i, i + 2));
+            }
+        }
+        return distinct(grams);
+    }
+
+    private static long shortGram(String value) {
+        return value.length() == 1
+            ? UNIGRAM | value.charAt(0)
+            : BIGRAM | ((long) value.charAt(0) << 16) | value.charAt(1);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.pharmacy.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived cache of {@link UserDetailsImpl} for request authentication,
+ * plus a record of when each user's account last changed.
+ *
+ * Deactivation, role changes and deletion call {@link #invalidate} after
+ * commit: the cached entry is dropped and the change time is remembered, so
+ * JWTs issued before it are no longer trusted on their claims alone. Change
+ * times are kept only as long as a token can live.
+ *
+ * The state is per node. Password changes, role changes and deletion also
+ * call {@link TokenRevocationList#revokeUser}, which every node honours within
+ * seconds. A change that only reaches this cache, such as a deactivation seen
+ * by {@link UserDetailsCacheListener}, is different on other nodes: a cached
+ * entry there is reloaded once its TTL passes, but in claims mode a token
+ * issued before the change is trusted until it expires.
+ */
+@Component
+public class UserDetailsCache {
+
+    private record Entry(UserDetailsImpl user, long loadedAtMs) {
+    }
+
+    private final long ttlMs;
+    private final int maxSize;
+    private final long tokenLifetimeMs;
+    private final ConcurrentHashMap<String, Entry> byEmail = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> changedAtMs = new ConcurrentHashMap<>();
+
+    public UserDetailsCache(@Value("${pharmacy.app.userDetailsCacheTtlMs:60000}") long ttlMs,
+                            @Value("${pharmacy.app.userDetailsCacheSize:10000}") int maxSize,
+                            @Value("${pharmacy.app.jwtExpirationMs}") long tokenLifetimeMs) {
+        this.ttlMs = ttlMs;
+        this.maxSize = maxSize;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+    }
+
+    public UserDetailsImpl get(String email, Function<String, UserDetailsImpl> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = byEmail.get(email);
+        if (entry != null && now - entry.loadedAtMs() < ttlMs && !isStale(entry.user().getId(), entry.loadedAtMs())) {
+            return entry.user();
+        }
+
+        UserDetailsImpl user = loader.apply(email);
+        if (byEmail.size() >= maxSize) {
+            byEmail.values().removeIf(e -> now - e.loadedAtMs() >= ttlMs);
+            if (byEmail.size() >= maxSize) {
+                byEmail.clear();
+            }
+        }
+        byEmail.put(email, new Entry(user, now));
+        return user;
+    }
+
+    /**
+     * True when the user's account changed after, or possibly after, the given
+     * time. JWT iat is truncated to whole seconds, so both sides are compared
+     * in seconds and a token issued in the second of the change counts as
+     * issued before it: the cost of that guess is one reload from the database.
+     */
+    public boolean isStale(Long userId, long issuedAtMs) {
+        Long changed = userId != null ? changedAtMs.get(userId) : null;
+        return changed != null && issuedAtMs / 1000 <= changed / 1000;
+    }
+
+    public void invalidate(Long userId, String email) {
+        TransactionCallbacks.afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            if (userId != null) {
+                changedAtMs.put(userId, now);
+                // Any token issued before these entries has expired by now
+                changedAtMs.values().removeIf(changed -> now - changed > tokenLifetimeMs);
+            }
+            if (email != null) {
+                byEmail.remove(email);
+            }
+        });
+    }
+
+    public int size() {
+        return byEmail.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.pharmacy.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.example.pharmacy.entity.User;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener invalidating {@link UserDetailsCache} whenever a user
+ * row changes or is deleted (deactivation, email or password changes).
+ * Role-only changes do not dirty the row, so UserService invalidates those
+ * itself.
+ */
+public class UserDetailsCacheListener {
+    // Stays null if Hibernate instantiates the listener itself (no Spring bean container)
+    @Autowired
+    private ObjectProvider<UserDetailsCache> userDetailsCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        UserDetailsCache cache = userDetailsCache != null ? userDetailsCache.getIfAvailable() : null;
+        if (cache != null) {
+            cache.invalidate(user.getId(), user.getEmail());
+        }
+    }
+}
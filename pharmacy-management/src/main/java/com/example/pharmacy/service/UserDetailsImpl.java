@@ -24,6 +24,8 @@ public class UserDetailsImpl implements UserDetails {
     private String fullName;
     private String phoneNumber;
     private boolean active;
+    // Compiled permissions from the JWT; null when the principal was loaded from the database
+    private Long permissionMask;
 
     public UserDetailsImpl(Long id, String username, String email, String password,
                           Collection<? extends GrantedAuthority> authorities, String fullName, 
@@ -89,6 +91,14 @@ public class UserDetailsImpl implements UserDetails {
         return active;
     }
 
+    public Long getPermissionMask() {
+        return permissionMask;
+    }
+
+    public void setPermissionMask(Long permissionMask) {
+        this.permissionMask = permissionMask;
+    }
+
     @Override
     public boolean isAccountNonExpired() {
         return true;
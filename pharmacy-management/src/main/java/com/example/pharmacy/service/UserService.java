@@ -1,29 +1,23 @@
 package com.example.pharmacy.service;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.pharmacy.controller.UserController.LoginRequest;
-import com.example.pharmacy.entity.OtpVerification;
 import com.example.pharmacy.entity.Role;
 import com.example.pharmacy.entity.User;
 import com.example.pharmacy.enums.ERole;
-import com.example.pharmacy.repository.OtpVerificationRepository;
+import com.example.pharmacy.enums.OtpPurpose;
 import com.example.pharmacy.repository.RoleRepository;
 import com.example.pharmacy.repository.UserRepository;
 @Service
@@ -32,31 +26,26 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
-    private final OtpVerificationRepository otpVerificationRepository;
-    private final JavaMailSender mailSender;
+    private final OtpStore otpStore;
+    private final EmailOutbox emailOutbox;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final RefreshTokenService refreshTokenService;
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
-    private final Map<String, OtpData> otpStorage = new HashMap<>();
-
-    private static class OtpData {
-        String otp;
-        LocalDateTime expiry;
-        String newPassword;
-
-        OtpData(String otp, LocalDateTime expiry) {
-            this.otp = otp;
-            this.expiry = expiry;
-        }
-    }
-
 
     @Autowired
     public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
-                       OtpVerificationRepository otpVerificationRepository, JavaMailSender mailSender) {
+                       OtpStore otpStore, EmailOutbox emailOutbox,
+                       UserDetailsCache userDetailsCache, TokenRevocationList tokenRevocationList,
+                       RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
-        this.otpVerificationRepository = otpVerificationRepository;
-        this.mailSender = mailSender;
+        this.otpStore = otpStore;
+        this.emailOutbox = emailOutbox;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenRevocationList = tokenRevocationList;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @Autowired
@@ -94,6 +83,7 @@ public class UserService {
             throw new RuntimeException("User not found with id: " + id);
         }
         userRepository.deleteById(id);
+        endSessions(id);
     }
 
     @Transactional
@@ -107,6 +97,7 @@ public class UserService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        endSessions(userId);
     }
 
     @Transactional
@@ -130,6 +121,10 @@ public class UserService {
         Set<Role> roles = new HashSet<>();
         roles.add(role);
         user.setRoles(roles);
+        // A join-table change alone doesn't fire the entity listener
+        userDetailsCache.invalidate(user.getId(), user.getEmail());
+        // Outstanding access tokens carry the old roles; a refresh picks up the new ones
+        tokenRevocationList.revokeUser(user.getId());
 
         return userRepository.save(user);
     }
@@ -175,55 +170,24 @@ public class UserService {
             throw new RuntimeException("User with email " + email + " not found");
         }
 
-        // Generate 6-digit OTP
-        String otp = String.format("%06d", new Random().nextInt(999999));
-        LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(10); // OTP valid for 10 minutes
+        // Replaces any outstanding login OTP for this email
+        String otp = otpStore.issue(OtpPurpose.LOGIN, email);
 
-        // Clean up existing OTP records
-        Optional<OtpVerification> existingOtp = otpVerificationRepository.findByEmail(email);
-        if (existingOtp.isPresent()) {
-            logger.info("Deleting existing OTP for email: " + email);
-            otpVerificationRepository.deleteByEmail(email);
-        }
-
-        // Save new OTP
-        logger.info("Saving new OTP for email: " + email);
-        OtpVerification otpVerification = new OtpVerification(email, otp, expiryTime, false);
-        otpVerificationRepository.save(otpVerification);
-
-        // Send OTP via email
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(email);
-        message.setSubject("Your OTP for Login");
-        message.setText("Your OTP is: " + otp + ". It is valid for 10 minutes.");
-        try {
-            mailSender.send(message);
-            logger.info("OTP email sent to: " + email);
-        } catch (Exception e) {
-            logger.error("Failed to send OTP email: " + e.getMessage());
-            throw new RuntimeException("Failed to send OTP email: " + e.getMessage());
-        }
+        // Queued with the OTP in this transaction; EmailOutboxSender delivers it after commit
+        emailOutbox.enqueue(email, "Your OTP for Login",
+            "Your OTP is: " + otp + ". It is valid for " + otpStore.getTtlMinutes() + " minutes.", false,
+            Duration.ofMinutes(otpStore.getTtlMinutes()));
+        logger.info("OTP email queued for: " + email);
 
         return otp;
     }
 
     @Transactional
     public boolean verifyOtp(String email, String otp) {
-        Optional<OtpVerification> otpOpt = otpVerificationRepository.findByEmailAndOtp(email, otp);
-        if (otpOpt.isEmpty()) {
-            logger.warn("No matching OTP found for email: " + email);
-            return false;
-        }
-
-        OtpVerification otpVerification = otpOpt.get();
-        if (LocalDateTime.now().isAfter(otpVerification.getExpiryTime()) || otpVerification.isVerified()) {
-            logger.warn("OTP for email {} is expired or already verified", email);
+        if (!otpStore.verify(OtpPurpose.LOGIN, email, otp)) {
+            logger.warn("OTP for email {} is invalid, expired or already used", email);
             return false;
         }
-
-        otpVerification.setVerified(true);
-        otpVerificationRepository.save(otpVerification);
-        otpVerificationRepository.deleteByEmail(email); // Clean up after verification
         logger.info("OTP verified successfully for email: " + email);
         return true;
     }
@@ -252,6 +216,17 @@ public class UserService {
         return user;
     }
 
+    // For callers that already verified the password (AuthenticationManager), so BCrypt runs once per login
+    @Transactional
+    public String sendLoginOtp(String email) {
+        User user = userRepository.findByEmail(email)
+            .orElseThrow(() -> new RuntimeException("Invalid email or password"));
+        checkLoginRole(user);
+        generateAndSendOtp(user.getEmail());
+        logger.info("OTP sent for email: {}", user.getEmail());
+        return "OTP sent to " + user.getEmail();
+    }
+
     public User loginWithPassword(String email, String password) {
         logger.info("Attempting to validate email: {} with password", email);
         User user = userRepository.findByEmail(email)
@@ -259,10 +234,17 @@ public class UserService {
         logger.info("User found: {} with roles: {}", user.getEmail(), user.getRoles());
     
         if (!passwordEncoder.matches(password, user.getPassword())) {
-            logger.error("Password mismatch for email: {}. Provided password: {}, stored hash: {}", email, password, user.getPassword());
+            logger.error("Password mismatch for email: {}", email);
             throw new RuntimeException("Invalid email or password");
         }
-    
+
+        checkLoginRole(user);
+        logger.info("Email and password validated successfully for email: {}", email);
+        return user;
+    }
+
+    private void checkLoginRole(User user) {
+        String email = user.getEmail();
         // Validate role
         boolean hasValidRole = user.getRoles().stream()
             .anyMatch(role -> {
@@ -274,9 +256,6 @@ public class UserService {
             logger.error("User {} has no valid role for login. Roles: {}", email, user.getRoles());
             throw new RuntimeException("User does not have a valid role for login (must be ROLE_PHARMACIST or ROLE_STAFF)");
         }
-    
-        logger.info("Email and password validated successfully for email: {}", email);
-        return user;
     }
     @Transactional(readOnly = true)
     public User getUserByEmail(String email) {
@@ -284,45 +263,35 @@ public class UserService {
             .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
     }
 
+    @Transactional
     public void initiatePasswordReset(String email) {
         logger.info("Initiating password reset for email: {}", email);
         User user = userRepository.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
 
-        String otp = generateOtp();
-        LocalDateTime expiry = LocalDateTime.now().plusMinutes(10);
-        otpStorage.put(email, new OtpData(otp, expiry));
-
+        String otp = otpStore.issue(OtpPurpose.PASSWORD_RESET, email);
         emailService.sendOtpEmail(email, otp);
     }
 
+    @Transactional
     public void resetPassword(String email, String otp, String newPassword) {
         logger.info("Resetting password for email: {}", email);
-        OtpData otpData = otpStorage.get(email);
-        if (otpData == null) {
-            throw new RuntimeException("No OTP found for email: " + email);
-        }
-
-        if (LocalDateTime.now().isAfter(otpData.expiry)) {
-            otpStorage.remove(email);
-            throw new RuntimeException("OTP has expired");
-        }
-
-        if (!otpData.otp.equals(otp)) {
-            throw new RuntimeException("Invalid OTP");
-        }
-
         User user = userRepository.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
 
+        if (!otpStore.verify(OtpPurpose.PASSWORD_RESET, email, otp)) {
+            throw new RuntimeException("Invalid or expired OTP");
+        }
+
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
-        otpStorage.remove(email);
+        endSessions(user.getId());
         logger.info("Password reset successful for email: {}", email);
     }
 
-    private String generateOtp() {
-        return String.format("%06d", new Random().nextInt(999999));
+    // Access tokens stop working within seconds on every node; refresh tokens immediately
+    private void endSessions(Long userId) {
+        tokenRevocationList.revokeUser(userId);
+        refreshTokenService.revokeAll(userId);
     }
-
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.pharmacy.controller;
+
+import com.example.pharmacy.dto.ApiKeyDTO;
+import com.example.pharmacy.repository.RoleRepository;
+import com.example.pharmacy.security.AuthEntryPointJwt;
+import com.example.pharmacy.security.JwtUtils;
+import com.example.pharmacy.service.ApiKeyService;
+import com.example.pharmacy.service.UserDetailsImpl;
+import com.example.pharmacy.service.UserDetailsServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for ApiKeyController
+ * Tests that keys are managed only by logged-in admins, never through an API key
+ */
+@WebMvcTest(ApiKeyController.class)
+@Import(MethodSecurityTestConfig.class)
+class ApiKeyControllerTest {
+
+    private static final String CREATE_BODY = "{\"name\":\"Till 2\",\"role\":\"ROLE_STAFF\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    @MockBean
+    private JwtUtils jwtUtils;
+
+    @MockBean
+    private AuthEntryPointJwt unauthorizedHandler;
+
+    @MockBean
+    private RoleRepository roleRepository;
+
+    @MockBean
+    private ApiKeyService apiKeyService;
+
+    @Test
+    void testCreateKey_AdminUserAllowed() throws Exception {
+        // Arrange
+        UserDetailsImpl admin = new UserDetailsImpl(1L, "admin", "admin@example.com", "x",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), "Admin", null, true);
+        when(apiKeyService.createKey(any(), any(), any())).thenReturn(new ApiKeyDTO());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/api-keys")
+                .with(authentication(new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities())))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(CREATE_BODY))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void testCreateKey_ApiKeyPrincipalForbiddenEvenWithAdminRole() throws Exception {
+        // Arrange
+        UsernamePasswordAuthenticationToken terminal = new UsernamePasswordAuthenticationToken(
+                "terminal:till-1", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/api-keys")
+                .with(authentication(terminal))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(CREATE_BODY))
+                .andExpect(status().isForbidden());
+        verify(apiKeyService, never()).createKey(any(), any(), any());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.pharmacy.controller;
+
+import com.example.pharmacy.repository.RoleRepository;
+import com.example.pharmacy.security.AppPermissionEvaluator;
+import com.example.pharmacy.security.RolePermissions;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+
+/**
+ * Enables @PreAuthorize in WebMvcTest slices, which leave out SecurityConfig,
+ * with the real permission evaluator over the default role permissions.
+ * Tests importing it must provide a (mock) RoleRepository.
+ */
+@TestConfiguration
+@EnableMethodSecurity
+class MethodSecurityTestConfig {
+
+    @Bean
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler(RoleRepository roleRepository) {
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        handler.setPermissionEvaluator(new AppPermissionEvaluator(new RolePermissions(roleRepository)));
+        return handler;
+    }
+}
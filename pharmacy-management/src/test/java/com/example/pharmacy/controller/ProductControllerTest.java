@@ -1,7 +1,14 @@
 package com.example.pharmacy.controller;
 
+import com.example.pharmacy.dto.BulkUpsertResultDTO;
+import com.example.pharmacy.dto.ProductAvailabilityDTO;
 import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.ProductField;
+import com.example.pharmacy.dto.ProductPageDTO;
+import com.example.pharmacy.dto.RepriceResultDTO;
 import com.example.pharmacy.entity.Product;
+import com.example.pharmacy.service.ProductBulkService;
+import com.example.pharmacy.service.ProductRepricingService;
 import com.example.pharmacy.service.ProductService;
 import com.example.pharmacy.service.UserDetailsServiceImpl;
 import com.example.pharmacy.security.JwtUtils;
@@ -12,15 +19,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -57,6 +68,12 @@ class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductBulkService productBulkService;
+
+    @MockBean
+    private ProductRepricingService repricingService;
+
     private ProductDTO testProductDTO;
     private Product testProduct;
 
@@ -95,21 +112,51 @@ class ProductControllerTest {
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     void testGetProductById_Success() throws Exception {
         // Arrange
-        when(productService.getProductById(1L)).thenReturn(Optional.of(testProduct));
+        when(productService.getProductDTOById(1L)).thenReturn(Optional.of(testProductDTO));
 
         // Act & Assert
         mockMvc.perform(get("/api/products/1")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Test Medicine"))
-                .andExpect(jsonPath("$.price").value(99.99));
+                .andExpect(jsonPath("$.price").value(99.99))
+                .andExpect(jsonPath("$.supplierId").value(1))
+                .andExpect(jsonPath("$.stocks").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testGetProductById_SparseFields() throws Exception {
+        // Arrange
+        Set<ProductField> fields = ProductField.parse("name,price");
+        when(productService.getProductFieldsById(1L, fields))
+                .thenReturn(Optional.of(ProductField.project(testProductDTO, fields)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/1")
+                .param("fields", "name,price")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Test Medicine"))
+                .andExpect(jsonPath("$.genericName").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testGetProductById_UnknownFieldIsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/products/1")
+                .param("fields", "name,stocks")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown product field: stocks"));
     }
 
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     void testGetProductById_NotFound() throws Exception {
         // Arrange
-        when(productService.getProductById(999L)).thenReturn(Optional.empty());
+        when(productService.getProductDTOById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         mockMvc.perform(get("/api/products/999")
@@ -167,8 +214,8 @@ class ProductControllerTest {
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     void testSearchProducts_Success() throws Exception {
         // Arrange
-        List<Product> products = Arrays.asList(testProduct);
-        when(productService.searchProducts("Test")).thenReturn(products);
+        List<ProductDTO> products = Arrays.asList(testProductDTO);
+        when(productService.searchProducts("Test", 50)).thenReturn(products);
 
         // Act & Assert
         mockMvc.perform(get("/api/products/search")
@@ -177,4 +224,137 @@ class ProductControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].name").value("Test Medicine"));
     }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testSearchProducts_LimitIsCapped() throws Exception {
+        // Arrange
+        when(productService.searchProducts("Test", 200)).thenReturn(Arrays.asList(testProductDTO));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/search")
+                .param("keyword", "Test")
+                .param("limit", "1000000")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Test Medicine"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testTypeahead_LimitIsCapped() throws Exception {
+        // Arrange
+        when(productService.typeahead("Te", 200)).thenReturn(Arrays.asList(testProductDTO));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/typeahead")
+                .param("prefix", "Te")
+                .param("limit", "1000000")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Test Medicine"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testGetProductsByPriceRange_PagesDescending() throws Exception {
+        // Arrange
+        when(productService.getProductsByPriceRange(new BigDecimal("10"), new BigDecimal("100"), true, null, 20, null))
+                .thenReturn(new ProductPageDTO(Arrays.asList(testProductDTO), "abc"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/price-range")
+                .param("min", "10")
+                .param("max", "100")
+                .param("sort", "desc")
+                .param("limit", "20")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].name").value("Test Medicine"))
+                .andExpect(jsonPath("$.nextCursor").value("abc"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testBulkUpsertProducts_Csv() throws Exception {
+        // Arrange
+        BulkUpsertResultDTO result = new BulkUpsertResultDTO();
+        result.setInserted(2);
+        when(productBulkService.upsertCsv(any())).thenReturn(result);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/products/bulk")
+                .with(csrf())
+                .contentType("text/csv")
+                .content("name,price,supplierId\nAspirin,1.00,1\nIbuprofen,2.00,1\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testAdjustPrices_InvalidPercentRejected() throws Exception {
+        // Arrange
+        when(repricingService.adjustPrices(any()))
+                .thenThrow(new IllegalArgumentException("Percent must be greater than -100"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/products/prices/adjust")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"supplierId\": 1, \"percent\": -100}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Percent must be greater than -100"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testSetPrices_Success() throws Exception {
+        // Arrange
+        RepriceResultDTO result = new RepriceResultDTO();
+        result.setUpdated(2);
+        when(repricingService.setPrices(any())).thenReturn(result);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/products/prices")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"productId\": 1, \"price\": 4.20}, {\"productId\": 2, \"price\": 1.10}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testGetProductAvailability_Success() throws Exception {
+        // Arrange
+        ProductAvailabilityDTO availability = new ProductAvailabilityDTO(1L, "Test Medicine", null, "500mg",
+                new BigDecimal("99.99"), 40L, LocalDate.of(2030, 1, 31), 2L);
+        when(productService.getProductAvailability(0, 50, true))
+                .thenReturn(new SliceImpl<>(Arrays.asList(availability), PageRequest.of(0, 50), false));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/availability")
+                .param("inStockOnly", "true")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].sellableQuantity").value(40))
+                .andExpect(jsonPath("$.content[0].nearestExpiry").value("2030-01-31"))
+                .andExpect(jsonPath("$.content[0].batchCount").value(2))
+                .andExpect(jsonPath("$.last").value(true));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testGetProductsByIds_Success() throws Exception {
+        // Arrange
+        when(productService.getProductsByIds(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(testProductDTO));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products")
+                .param("ids", "2,1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productId").value(1));
+    }
 }
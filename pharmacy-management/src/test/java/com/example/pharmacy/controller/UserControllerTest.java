@@ -0,0 +1,127 @@
+package com.example.pharmacy.controller;
+
+import com.example.pharmacy.entity.User;
+import com.example.pharmacy.repository.RoleRepository;
+import com.example.pharmacy.security.AuthEntryPointJwt;
+import com.example.pharmacy.security.JwtUtils;
+import com.example.pharmacy.service.RefreshTokenService;
+import com.example.pharmacy.service.TokenRevocationList;
+import com.example.pharmacy.service.UserDetailsServiceImpl;
+import com.example.pharmacy.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for UserController
+ * Tests that user management endpoints are guarded by USER_* permissions
+ */
+@WebMvcTest(UserController.class)
+@Import(MethodSecurityTestConfig.class)
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    @MockBean
+    private JwtUtils jwtUtils;
+
+    @MockBean
+    private AuthEntryPointJwt unauthorizedHandler;
+
+    @MockBean
+    private RoleRepository roleRepository;
+
+    @MockBean
+    private AuthenticationManager authenticationManager;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
+    @Test
+    @WithMockUser(username = "staff", roles = { "STAFF" })
+    void testUpdateUserRole_StaffForbidden() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/users/2/role")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"role\":\"admin\"}"))
+                .andExpect(status().isForbidden());
+        verify(userService, never()).updateUserRole(anyLong(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "staff", roles = { "STAFF" })
+    void testUpdateUser_StaffForbidden() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/users/2")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"taken@example.com\"}"))
+                .andExpect(status().isForbidden());
+        verify(userService, never()).updateUser(any());
+    }
+
+    @Test
+    @WithMockUser(username = "staff", roles = { "STAFF" })
+    void testDeleteUser_StaffForbidden() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/api/users/2").with(csrf()))
+                .andExpect(status().isForbidden());
+        verify(userService, never()).deleteUser(anyLong());
+    }
+
+    @Test
+    @WithMockUser(username = "staff", roles = { "STAFF" })
+    void testGetAllUsers_StaffForbidden() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/users"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "pharmacist", roles = { "PHARMACIST" })
+    void testGetAllUsers_PharmacistAllowed() throws Exception {
+        // Arrange
+        when(userService.getAllUsers()).thenReturn(List.of(new User()));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void testDeleteUser_AdminAllowed() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/api/users/2").with(csrf()))
+                .andExpect(status().isNoContent());
+        verify(userService).deleteUser(2L);
+    }
+}
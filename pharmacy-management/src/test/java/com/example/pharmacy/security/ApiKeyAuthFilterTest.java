@@ -0,0 +1,247 @@
+package com.example.pharmacy.security;
+
+import com.example.pharmacy.entity.ApiKey;
+import com.example.pharmacy.enums.ERole;
+import com.example.pharmacy.repository.ApiKeyRepository;
+import com.example.pharmacy.service.ApiKeyRegistry;
+import com.example.pharmacy.service.ApiKeyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ApiKeyAuthFilter and ApiKeyRegistry
+ * Tests that admin keys are never created or loaded, key lookup before the body is read, HMAC verification, clock skew, replay protection, body replay and key reloads
+ */
+@ExtendWith(MockitoExtension.class)
+class ApiKeyAuthFilterTest {
+
+    private static final String SECRET = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+    @Mock
+    private ApiKeyRepository repository;
+
+    private ApiKeyRegistry registry;
+    private ApiKeyAuthFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ApiKey key = new ApiKey("pk_test", SECRET, "Till 1", "till-1", ERole.ROLE_STAFF);
+        key.setId(1L);
+        when(repository.findLastChange()).thenReturn(key.getUpdatedAt());
+        when(repository.findByActiveTrue()).thenReturn(List.of(key));
+        registry = new ApiKeyRegistry(repository, 300, 1000);
+        registry.reload();
+        filter = new ApiKeyAuthFilter(registry, 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static String sign(String method, String path, long timestamp, String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getUrlDecoder().decode(SECRET), "HmacSHA256"));
+        mac.update((method + "\n" + path + "\n" + timestamp + "\n").getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MockHttpServletRequest signedPost(String body, long timestamp, String signature) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/sales");
+        request.addHeader("X-Api-Key", "pk_test");
+        request.addHeader("X-Timestamp", String.valueOf(timestamp));
+        request.addHeader("X-Signature", signature);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    @Test
+    void testSignedRequest_AuthenticatedWithKeyRoleAndBodyReplayed() throws Exception {
+        // Arrange
+        long now = System.currentTimeMillis() / 1000;
+        String body = "{\"items\":[]}";
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(signedPost(body, now, sign("POST", "/api/sales", now, body)),
+                new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertNotNull(chain.getRequest());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals("terminal:till-1", authentication.getPrincipal());
+        assertEquals("ROLE_STAFF", authentication.getAuthorities().iterator().next().getAuthority());
+        assertEquals(body, new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSignedRequest_ReplayRejected() throws Exception {
+        // Arrange
+        long now = System.currentTimeMillis() / 1000;
+        String signature = sign("POST", "/api/sales", now, "{}");
+        filter.doFilter(signedPost("{}", now, signature), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Act
+        MockHttpServletResponse replay = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(signedPost("{}", now, signature), replay, chain);
+
+        // Assert
+        assertEquals(401, replay.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void testSignedRequest_TamperedBodyOrStaleTimestampRejected() throws Exception {
+        // Arrange
+        long now = System.currentTimeMillis() / 1000;
+        long stale = now - 600;
+
+        // Act
+        MockHttpServletResponse tampered = new MockHttpServletResponse();
+        filter.doFilter(signedPost("{\"total\":1}", now, sign("POST", "/api/sales", now, "{\"total\":9}")),
+                tampered, new MockFilterChain());
+        MockHttpServletResponse late = new MockHttpServletResponse();
+        filter.doFilter(signedPost("{}", stale, sign("POST", "/api/sales", stale, "{}")),
+                late, new MockFilterChain());
+
+        // Assert
+        assertEquals(401, tampered.getStatus());
+        assertEquals(401, late.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void testUnknownKey_RejectedWithoutReadingBody() throws Exception {
+        // Arrange
+        long now = System.currentTimeMillis() / 1000;
+        MockHttpServletRequest request = signedPost("{}", now, sign("POST", "/api/sales", now, "{}"));
+        request.removeHeader("X-Api-Key");
+        request.addHeader("X-Api-Key", "pk_unknown");
+        HttpServletRequest unread = new HttpServletRequestWrapper(request) {
+            @Override
+            public ServletInputStream getInputStream() {
+                throw new AssertionError("body read for an unknown key");
+            }
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(unread, response, new MockFilterChain());
+
+        // Assert
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void testReplayCacheFull_RefusesNewSignaturesAndStillRejectsReplays() throws Exception {
+        // Arrange
+        registry = new ApiKeyRegistry(repository, 300, 2);
+        registry.reload();
+        filter = new ApiKeyAuthFilter(registry, 1024);
+        long now = System.currentTimeMillis() / 1000;
+        String first = sign("POST", "/api/sales", now, "{\"n\":1}");
+        filter.doFilter(signedPost("{\"n\":1}", now, first), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(signedPost("{\"n\":2}", now, sign("POST", "/api/sales", now, "{\"n\":2}")),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        // Act
+        MockHttpServletResponse third = new MockHttpServletResponse();
+        filter.doFilter(signedPost("{\"n\":3}", now, sign("POST", "/api/sales", now, "{\"n\":3}")),
+                third, new MockFilterChain());
+        MockHttpServletResponse replay = new MockHttpServletResponse();
+        filter.doFilter(signedPost("{\"n\":1}", now, first), replay, new MockFilterChain());
+
+        // Assert
+        assertEquals(401, third.getStatus());
+        assertEquals(401, replay.getStatus());
+    }
+
+    @Test
+    void testReload_AdminKeyNeverLoaded() throws Exception {
+        // Arrange
+        ApiKey admin = new ApiKey("pk_admin", SECRET, "Old integration", null, ERole.ROLE_ADMIN);
+        admin.setId(2L);
+        when(repository.findByActiveTrue()).thenReturn(List.of(admin));
+        long now = System.currentTimeMillis() / 1000;
+        MockHttpServletRequest request = signedPost("{}", now, sign("POST", "/api/sales", now, "{}"));
+        request.removeHeader("X-Api-Key");
+        request.addHeader("X-Api-Key", "pk_admin");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        registry.reload();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        // Assert
+        assertEquals(0, registry.size());
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void testCreateKey_AdminRoleRejected() {
+        // Arrange
+        ApiKeyService service = new ApiKeyService(repository, registry);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> service.createKey("Integration", null, "ROLE_ADMIN"));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testUnsignedRequest_PassesThroughUntouched() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertSame(request, chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void testRefreshIfChanged_DeactivatedKeyStopsWorking() throws Exception {
+        // Arrange
+        when(repository.findLastChange()).thenReturn(LocalDateTime.now().plusSeconds(1));
+        when(repository.findByActiveTrue()).thenReturn(List.of());
+        long now = System.currentTimeMillis() / 1000;
+
+        // Act
+        registry.refreshIfChanged();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(signedPost("{}", now, sign("POST", "/api/sales", now, "{}")),
+                response, new MockFilterChain());
+
+        // Assert
+        assertEquals(0, registry.size());
+        assertEquals(401, response.getStatus());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.pharmacy.security;
+
+import com.example.pharmacy.entity.AppPermission;
+import com.example.pharmacy.entity.Role;
+import com.example.pharmacy.enums.EPermission;
+import com.example.pharmacy.enums.ERole;
+import com.example.pharmacy.repository.RoleRepository;
+import com.example.pharmacy.service.UserDetailsImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for AppPermissionEvaluator and RolePermissions
+ * Tests mask checks for JWT principals, the role fallback and compiling permissions from the database
+ */
+@ExtendWith(MockitoExtension.class)
+class AppPermissionEvaluatorTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    private RolePermissions rolePermissions;
+    private AppPermissionEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() {
+        rolePermissions = new RolePermissions(roleRepository);
+        evaluator = new AppPermissionEvaluator(rolePermissions);
+    }
+
+    private static Authentication authenticate(Object principal, String... authorities) {
+        return new UsernamePasswordAuthenticationToken(principal, null, AuthorityUtils.createAuthorityList(authorities));
+    }
+
+    @Test
+    void testHasPermission_JwtPrincipalUsesEmbeddedMask() {
+        // Arrange
+        UserDetailsImpl user = new UserDetailsImpl(1L, "staff", "staff@example.com", null,
+                AuthorityUtils.createAuthorityList("ROLE_STAFF"), null, null, true);
+        user.setPermissionMask(RolePermissions.toMask(EnumSet.of(EPermission.PRODUCT_DELETE)));
+        Authentication authentication = authenticate(user, "ROLE_STAFF");
+
+        // Act & Assert
+        assertTrue(evaluator.hasPermission(authentication, null, "PRODUCT_DELETE"));
+        assertFalse(evaluator.hasPermission(authentication, null, "PRODUCT_READ"));
+    }
+
+    @Test
+    void testHasPermission_FallsBackToRoleAuthorities() {
+        // Arrange
+        Authentication admin = authenticate("admin", "ROLE_ADMIN");
+        Authentication staff = authenticate("staff", "ROLE_STAFF");
+
+        // Act & Assert
+        assertTrue(evaluator.hasPermission(admin, null, "USER_DELETE"));
+        assertTrue(evaluator.hasPermission(staff, null, EPermission.SALE_CREATE));
+        assertFalse(evaluator.hasPermission(staff, null, "PRODUCT_UPDATE"));
+        assertFalse(evaluator.hasPermission(admin, null, "NOT_A_PERMISSION"));
+    }
+
+    @Test
+    void testReload_DatabasePermissionsReplaceDefaults() {
+        // Arrange
+        Role staff = new Role(3, ERole.ROLE_STAFF,
+                Set.of(new AppPermission(1, EPermission.REPORT_STOCK)));
+        Role pharmacist = new Role(2, ERole.ROLE_PHARMACIST, Set.of());
+        when(roleRepository.findAllWithPermissions()).thenReturn(List.of(staff, pharmacist));
+
+        // Act
+        rolePermissions.reload();
+
+        // Assert
+        assertEquals(EnumSet.of(EPermission.REPORT_STOCK),
+                RolePermissions.fromMask(rolePermissions.maskOf(ERole.ROLE_STAFF)));
+        assertTrue(RolePermissions.fromMask(rolePermissions.maskOf(ERole.ROLE_PHARMACIST))
+                .contains(EPermission.PRODUCT_UPDATE));
+        assertEquals(EnumSet.allOf(EPermission.class),
+                RolePermissions.fromMask(rolePermissions.maskOf(ERole.ROLE_ADMIN)));
+    }
+}
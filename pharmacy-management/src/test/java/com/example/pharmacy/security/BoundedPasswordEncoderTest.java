@@ -0,0 +1,113 @@
+package com.example.pharmacy.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BoundedPasswordEncoder
+ * Tests delegation, fast rejection when the queue is full, and (on demand) the BCrypt cost benchmark
+ */
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.destroy();
+    }
+
+    @Test
+    void testEncodeAndMatches_DelegateToBCrypt() {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1);
+
+        // Act
+        String hash = encoder.encode("secret");
+
+        // Assert
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+    }
+
+    @Test
+    void testMatches_RejectsAtOnceWhenQueueIsFull() throws Exception {
+        // Arrange
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(running, release), 1, 1);
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> encoder.matches("a", "a"));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> encoder.matches("b", "b"));
+        while (encoder.queued() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> encoder.matches("c", "c"));
+        assertEquals(1, encoder.getRejectedCount());
+        release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+    }
+
+    // mvn test -Dbcrypt.benchmark=true [-Dbcrypt.strength=12]: checks one hash costs 25 ms..1 s on this machine
+    @Test
+    @EnabledIfSystemProperty(named = "bcrypt.benchmark", matches = "true")
+    void benchmarkBCryptStrength(TestReporter reporter) {
+        // Arrange
+        int strength = Integer.getInteger("bcrypt.strength", 10);
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), 1, 1);
+        String hash = encoder.encode("warm-up");
+        int rounds = 10;
+
+        // Act
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            encoder.matches("warm-up", hash);
+        }
+        long perHashMs = (System.nanoTime() - start) / rounds / 1_000_000;
+
+        // Assert
+        reporter.publishEntry("BCrypt strength " + strength, perHashMs + " ms per verification");
+        assertTrue(perHashMs >= 25, "BCrypt strength " + strength + " too cheap: " + perHashMs + " ms");
+        assertTrue(perHashMs <= 1000, "BCrypt strength " + strength + " too slow: " + perHashMs + " ms");
+    }
+
+    private static final class BlockingEncoder implements PasswordEncoder {
+        private final CountDownLatch running;
+        private final CountDownLatch release;
+
+        BlockingEncoder(CountDownLatch running, CountDownLatch release) {
+            this.running = running;
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 /**
@@ -32,6 +33,9 @@ class JwtUtilsTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private RolePermissions rolePermissions;
+
     private UserDetailsImpl userDetails;
 
     @BeforeEach
@@ -96,6 +100,35 @@ class JwtUtilsTest {
         assertTrue(isValid);
     }
 
+    @Test
+    void testGenerateJwtToken_UniqueTokenId() {
+        // Arrange
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+
+        // Act
+        String first = jwtUtils.generateJwtToken(authentication);
+        String second = jwtUtils.generateJwtToken(authentication);
+
+        // Assert
+        String firstId = jwtUtils.getValidClaims(first).getId();
+        assertNotNull(firstId);
+        assertNotEquals(firstId, jwtUtils.getValidClaims(second).getId());
+    }
+
+    @Test
+    void testGetUserDetails_CarriesPermissionMask() {
+        // Arrange
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(rolePermissions.maskFor(any())).thenReturn(0b1011L);
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        // Act
+        UserDetailsImpl fromToken = jwtUtils.getUserDetails(jwtUtils.getValidClaims(token));
+
+        // Assert
+        assertEquals(0b1011L, fromToken.getPermissionMask());
+    }
+
     @Test
     void testValidateJwtToken_InvalidToken() {
         // Arrange
@@ -132,6 +165,55 @@ class JwtUtilsTest {
         assertFalse(isValid);
     }
 
+    @Test
+    void testValidateJwtToken_VerifiedTokenIsCached() {
+        // Arrange
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        // Act
+        boolean first = jwtUtils.validateJwtToken(token);
+        boolean second = jwtUtils.validateJwtToken(token);
+
+        // Assert
+        assertTrue(first);
+        assertTrue(second);
+        assertEquals(1, jwtUtils.verifiedCacheSize());
+        assertEquals("test@example.com", jwtUtils.getValidClaims(token).getSubject());
+    }
+
+    @Test
+    void testValidateJwtToken_ExpiredOrTamperedTokenNotCached() {
+        // Arrange
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        String valid = jwtUtils.generateJwtToken(authentication);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", -1000);
+        String expired = jwtUtils.generateJwtToken(authentication);
+        String tampered = valid.substring(0, valid.length() - 2) + (valid.endsWith("AA") ? "BB" : "AA");
+
+        // Act & Assert
+        assertFalse(jwtUtils.validateJwtToken(expired));
+        assertFalse(jwtUtils.validateJwtToken(tampered));
+        assertNull(jwtUtils.getValidClaims(tampered));
+        assertEquals(0, jwtUtils.verifiedCacheSize());
+    }
+
+    @Test
+    void testGetUserDetails_RebuildsPrincipalFromClaims() {
+        // Arrange
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        // Act
+        UserDetailsImpl principal = jwtUtils.getUserDetails(jwtUtils.getValidClaims(token));
+
+        // Assert
+        assertEquals(1L, principal.getId());
+        assertEquals("test@example.com", principal.getUsername());
+        assertEquals("ROLE_USER", principal.getAuthorities().iterator().next().getAuthority());
+        assertNull(principal.getPassword());
+    }
+
     @Test
     void testJwtTokenContainsUserInformation() {
         // Arrange
@@ -0,0 +1,174 @@
+package com.example.pharmacy.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.pharmacy.security.TokenBucketRateLimiter.Limit;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RateLimitFilter
+ * Tests per-IP and per-account token buckets, the 429 and 413 responses and body replay
+ */
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter(new TokenBucketRateLimiter(1000),
+                new Limit(3, 0.001), new Limit(2, 0.001), new Limit(1, 0.001));
+    }
+
+    @Test
+    void testLogin_LimitedPerEmailAndBodyReplayed() throws Exception {
+        // Act
+        MockHttpServletResponse first = login("10.0.0.1", "Test@Example.com");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(loginRequest("10.0.0.2", "test@example.com"), new MockHttpServletResponse(), chain);
+        MockHttpServletResponse third = login("10.0.0.3", "test@example.com");
+        MockHttpServletResponse otherUser = login("10.0.0.3", "other@example.com");
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        String replayed = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(replayed.contains("\"password\":\"secret\""));
+        assertEquals(429, third.getStatus());
+        assertEquals("1000", third.getHeader("Retry-After"));
+        assertTrue(third.getContentAsString().contains("Too Many Requests"));
+        assertEquals(200, otherUser.getStatus());
+    }
+
+    @Test
+    void testSignin_LimitedPerUsername() throws Exception {
+        // Act
+        MockHttpServletResponse first = signin("10.0.0.1", "Pharmacist");
+        MockHttpServletResponse second = signin("10.0.0.2", "pharmacist");
+        MockHttpServletResponse third = signin("10.0.0.3", "pharmacist");
+        MockHttpServletResponse otherUser = signin("10.0.0.3", "cashier");
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        assertEquals(200, second.getStatus());
+        assertEquals(429, third.getStatus());
+        assertEquals(200, otherUser.getStatus());
+    }
+
+    @Test
+    void testLogin_OversizedBodyRefused() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "a@example.com" + " ".repeat(5000));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void testLogin_ReplayedBodyServesReadListener() throws Exception {
+        // Arrange
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(loginRequest("10.0.0.1", "a@example.com"), new MockHttpServletResponse(), chain);
+        ServletInputStream in = chain.getRequest().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        boolean[] allRead = new boolean[1];
+
+        // Act
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (in.isReady() && !in.isFinished()) {
+                    read.write(in.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allRead[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+        });
+
+        // Assert
+        assertTrue(allRead[0]);
+        assertTrue(read.toString(StandardCharsets.UTF_8).contains("\"email\":\"a@example.com\""));
+    }
+
+    @Test
+    void testLogin_LimitedPerIpWhateverTheEmail() throws Exception {
+        // Act
+        login("10.0.0.1", "a@example.com");
+        login("10.0.0.1", "b@example.com");
+        login("10.0.0.1", "c@example.com");
+        MockHttpServletResponse fourth = login("10.0.0.1", "d@example.com");
+
+        // Assert
+        assertEquals(429, fourth.getStatus());
+    }
+
+    @Test
+    void testSearch_LimitedPerIpAndOtherPathsUntouched() throws Exception {
+        // Act
+        MockHttpServletResponse first = get("/api/search");
+        MockHttpServletResponse second = get("/api/products/search");
+        MockHttpServletResponse typeahead = get("/api/products/typeahead");
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertEquals(200, typeahead.getStatus());
+    }
+
+    private MockHttpServletResponse login(String ip, String email) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(ip, email), response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletResponse signin(String ip, String username) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/signin");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"secret\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest loginRequest(String ip, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse get(String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr("10.0.0.9");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.entity.OutboxEmail;
+import com.example.pharmacy.repository.OutboxEmailRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmailOutboxSender
+ * Tests batched delivery over one connection against an in-process SMTP stand-in, retry backoff and the circuit breaker
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxSenderTest {
+
+    @Mock
+    private OutboxEmailRepository repository;
+
+    private SmtpStandIn smtp;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new SmtpStandIn();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtp.close();
+    }
+
+    @Test
+    void testDrain_SendsBatchOverOneConnectionAndSchedulesRetryForRejected() {
+        // Arrange
+        EmailOutboxSender sender = sender(smtp.port(), 3);
+        when(repository.claimDue(any(), any(), eq(50))).thenReturn(Arrays.asList(
+                row(1L, "a@example.com"), row(2L, "bounce@example.com"), row(3L, "b@example.com")));
+        ArgumentCaptor<List<OutboxEmail>> retries = captor();
+
+        // Act
+        LocalDateTime before = LocalDateTime.now();
+        sender.drain();
+
+        // Assert
+        assertEquals(1, smtp.connections());
+        assertEquals(Arrays.asList("a@example.com", "b@example.com"), smtp.delivered());
+        verify(repository).deleteAllByIdInBatch(List.of(1L, 3L));
+        verify(repository).saveAll(retries.capture());
+        OutboxEmail bounced = retries.getValue().get(0);
+        assertEquals(2L, bounced.getId());
+        assertEquals(1, bounced.getAttempts());
+        assertEquals(OutboxEmail.STATUS_PENDING, bounced.getStatus());
+        assertTrue(bounced.getNextAttemptAt().isAfter(before.plusSeconds(4)));
+        assertEquals(2, sender.getSentCount());
+        assertFalse(sender.isCircuitOpen());
+    }
+
+    @Test
+    void testDrain_LastAttemptMarksFailed() {
+        // Arrange
+        EmailOutboxSender sender = sender(smtp.port(), 3);
+        OutboxEmail row = row(4L, "bounce@example.com");
+        row.setAttempts(7);
+        when(repository.claimDue(any(), any(), anyInt())).thenReturn(List.of(row));
+
+        // Act
+        sender.drain();
+
+        // Assert
+        assertEquals(OutboxEmail.STATUS_FAILED, row.getStatus());
+        assertEquals(8, row.getAttempts());
+        assertEquals(OutboxEmail.REDACTED_BODY, row.getBody());
+        verify(repository, never()).deleteAllByIdInBatch(anyCollection());
+    }
+
+    @Test
+    void testDrain_ExpiredRowIsDroppedUnsent() {
+        // Arrange
+        EmailOutboxSender sender = sender(smtp.port(), 3);
+        OutboxEmail stale = row(6L, "a@example.com", LocalDateTime.now().minusSeconds(1));
+        when(repository.claimDue(any(), any(), anyInt())).thenReturn(List.of(stale));
+
+        // Act
+        sender.drain();
+
+        // Assert
+        assertEquals(0, smtp.connections());
+        verify(repository).deleteAllByIdInBatch(List.of(6L));
+        verify(repository, never()).saveAll(anyCollection());
+        assertEquals(1, sender.getExpiredCount());
+        assertFalse(sender.isCircuitOpen());
+    }
+
+    @Test
+    void testDrain_FailureIsNotRetriedPastExpiry() {
+        // Arrange
+        EmailOutboxSender sender = sender(smtp.port(), 3);
+        OutboxEmail otp = row(7L, "bounce@example.com", LocalDateTime.now().plusSeconds(2));
+        when(repository.claimDue(any(), any(), anyInt())).thenReturn(List.of(otp));
+
+        // Act
+        sender.drain();
+
+        // Assert
+        verify(repository).deleteAllByIdInBatch(List.of(7L));
+        verify(repository, never()).saveAll(anyCollection());
+        assertEquals(1, sender.getFailedCount());
+        assertEquals(1, sender.getExpiredCount());
+    }
+
+    @Test
+    void testPurgeExpired_LoopsUntilShortBatch() {
+        // Arrange
+        EmailOutboxSender sender = sender(smtp.port(), 3);
+        when(repository.deleteExpiredBatch(any(), any(), eq(1000))).thenReturn(1000, 12);
+
+        // Act
+        sender.purgeExpired();
+
+        // Assert
+        verify(repository, times(2)).deleteExpiredBatch(any(), any(), eq(1000));
+    }
+
+    @Test
+    void testDrain_ServerDownOpensCircuitAndStopsClaiming() throws Exception {
+        // Arrange
+        int closedPort = smtp.port();
+        smtp.close();
+        EmailOutboxSender sender = sender(closedPort, 1);
+        when(repository.claimDue(any(), any(), anyInt())).thenReturn(List.of(row(5L, "a@example.com")));
+
+        // Act
+        sender.drain();
+        sender.drain();
+
+        // Assert
+        assertTrue(sender.isCircuitOpen());
+        verify(repository, times(1)).claimDue(any(), any(), anyInt());
+        verify(repository).saveAll(anyCollection());
+        assertEquals(1, sender.getFailedCount());
+    }
+
+    private EmailOutboxSender sender(int port, int breakerThreshold) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        Properties properties = new Properties();
+        properties.put("mail.smtp.from", "pharmacy@example.com");
+        properties.put("mail.smtp.connectiontimeout", "2000");
+        properties.put("mail.smtp.timeout", "2000");
+        mailSender.setJavaMailProperties(properties);
+        return new EmailOutboxSender(repository, mailSender, 50, 8, 5000, 600000, breakerThreshold, 60000, 120000,
+                604800000, 1000);
+    }
+
+    private static OutboxEmail row(Long id, String to) {
+        return row(id, to, null);
+    }
+
+    private static OutboxEmail row(Long id, String to, LocalDateTime expiresAt) {
+        OutboxEmail row = new OutboxEmail(to, "Your OTP for Login", "Your OTP is: 123456", false, expiresAt);
+        row.setId(id);
+        return row;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static ArgumentCaptor<List<OutboxEmail>> captor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    }
+}
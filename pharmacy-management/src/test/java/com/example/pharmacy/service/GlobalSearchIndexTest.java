@@ -0,0 +1,175 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.repository.ProductRepository;
+import com.example.pharmacy.repository.SaleRepository;
+import com.example.pharmacy.repository.StockRepository;
+import com.example.pharmacy.repository.SupplierRepository;
+import com.example.pharmacy.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for GlobalSearchIndex
+ * Tests word-start matching, ranking, stock and sale expansion and incremental updates
+ */
+class GlobalSearchIndexTest {
+
+    private GlobalSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        SupplierRepository supplierRepository = mock(SupplierRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        SaleRepository saleRepository = mock(SaleRepository.class);
+        StockRepository stockRepository = mock(StockRepository.class);
+
+        when(productRepository.findSearchIndexRows()).thenReturn(Arrays.asList(
+                new Object[] { 1L, "Amoxicillin 500mg", "Amoxicillin" },
+                new Object[] { 2L, "Panadol", "Paracetamol" }));
+        when(supplierRepository.findSearchIndexRows()).thenReturn(List.<Object[]>of(
+                new Object[] { 1L, "Amox Pharma Ltd", "sales@amox.test" }));
+        when(userRepository.findSearchIndexRows()).thenReturn(List.<Object[]>of(
+                new Object[] { 1L, "Paula Smith", "paula@test.com" }));
+        when(saleRepository.findSearchIndexRows()).thenReturn(Arrays.asList(
+                new Object[] { 1L, "John Pan", new BigDecimal("12.50"), LocalDate.of(2024, 1, 10) },
+                new Object[] { 2L, "Mary Amos", new BigDecimal("30.00"), LocalDate.of(2024, 2, 1) }));
+        when(saleRepository.findSearchIndexLineRows()).thenReturn(Arrays.asList(
+                new Object[] { 100L, 1L, 2L },
+                new Object[] { 101L, 2L, 1L },
+                new Object[] { 102L, 2L, 2L }));
+        when(stockRepository.findSearchIndexRows()).thenReturn(Arrays.asList(
+                new Object[] { 10L, 1L, 40 },
+                new Object[] { 11L, 1L, 5 }));
+
+        index = new GlobalSearchIndex(productRepository, supplierRepository, userRepository,
+                saleRepository, stockRepository, true);
+        index.build();
+    }
+
+    @Test
+    void testSearch_MatchesWordPrefixesAcrossTypes() {
+        // Act
+        Map<GlobalSearchIndex.DocType, List<GlobalSearchIndex.Match>> results = index.search("AMOX");
+
+        // Assert
+        assertEquals(Arrays.asList(1L), ids(results, GlobalSearchIndex.DocType.PRODUCT));
+        assertEquals(Arrays.asList(1L), ids(results, GlobalSearchIndex.DocType.SUPPLIER));
+        assertEquals(Arrays.asList(10L, 11L), ids(results, GlobalSearchIndex.DocType.STOCK));
+        assertTrue(results.get(GlobalSearchIndex.DocType.USER).isEmpty());
+    }
+
+    @Test
+    void testSearch_IntersectsEveryQueryWord() {
+        // Act & Assert
+        assertEquals(Arrays.asList(1L), ids(index.search("amox 500"), GlobalSearchIndex.DocType.PRODUCT));
+        assertTrue(ids(index.search("amox 250"), GlobalSearchIndex.DocType.PRODUCT).isEmpty());
+    }
+
+    @Test
+    void testSearch_QueryWordsMustStartWordsInOrder() {
+        // Act & Assert: the same match SearchService.wordStartPattern gives the database fallback
+        assertTrue(ids(index.search("cillin"), GlobalSearchIndex.DocType.PRODUCT).isEmpty());
+        assertTrue(ids(index.search("ol"), GlobalSearchIndex.DocType.PRODUCT).isEmpty());
+        assertTrue(ids(index.search("500 amox"), GlobalSearchIndex.DocType.PRODUCT).isEmpty());
+        assertEquals(Arrays.asList(1L), ids(index.search("amoxicillin 50"), GlobalSearchIndex.DocType.PRODUCT));
+    }
+
+    @Test
+    void testSearch_MatchesGenericNameAndRanksByTier() {
+        // Act
+        Map<GlobalSearchIndex.DocType, List<GlobalSearchIndex.Match>> results = index.search("pa");
+
+        // Assert: generic name "Paracetamol" and name "Panadol" both start with "pa"
+        assertEquals(Arrays.asList(2L), ids(results, GlobalSearchIndex.DocType.PRODUCT));
+        assertEquals(1, results.get(GlobalSearchIndex.DocType.PRODUCT).get(0).getTier());
+        // Sales take the tier of the product they hold
+        assertEquals(Arrays.asList(2L, 1L), ids(results, GlobalSearchIndex.DocType.SALE));
+        assertEquals(1, results.get(GlobalSearchIndex.DocType.SALE).get(0).getTier());
+        assertEquals(0, index.search("panadol").get(GlobalSearchIndex.DocType.PRODUCT).get(0).getTier());
+    }
+
+    @Test
+    void testSearch_FindsSalesThroughTheirProducts() {
+        // Act
+        Map<GlobalSearchIndex.DocType, List<GlobalSearchIndex.Match>> results = index.search("panadol");
+
+        // Assert: newest first within a tier, titled by customer
+        assertEquals(Arrays.asList(2L, 1L), ids(results, GlobalSearchIndex.DocType.SALE));
+        assertEquals("Mary Amos", results.get(GlobalSearchIndex.DocType.SALE).get(0).getTitle());
+        assertEquals("Total: 30.00", results.get(GlobalSearchIndex.DocType.SALE).get(0).getDescription());
+        assertEquals(0, results.get(GlobalSearchIndex.DocType.SALE).get(0).getTier());
+    }
+
+    @Test
+    void testSearch_FindsSalesByCustomerName() {
+        // Act
+        Map<GlobalSearchIndex.DocType, List<GlobalSearchIndex.Match>> byCustomer = index.search("john");
+
+        // Assert: sale 1 matches "pan" by its customer and through Panadol, sale 2 only through Panadol
+        assertEquals(Arrays.asList(1L), ids(byCustomer, GlobalSearchIndex.DocType.SALE));
+        assertEquals("John Pan", byCustomer.get(GlobalSearchIndex.DocType.SALE).get(0).getTitle());
+        assertEquals(Arrays.asList(2L, 1L), ids(index.search("pan"), GlobalSearchIndex.DocType.SALE));
+    }
+
+    @Test
+    void testUpdates_SaleLinesApplyIncrementally() {
+        // Act
+        index.putSale(3L, "Ann Lee", LocalDate.of(2024, 3, 1), new BigDecimal("5.00"));
+        index.putSaleLine(103L, 3L, 1L);
+        index.removeSaleLine(101L);
+        index.remove(GlobalSearchIndex.DocType.SALE, 1L);
+
+        // Assert
+        assertEquals(Arrays.asList(3L), ids(index.search("ann lee"), GlobalSearchIndex.DocType.SALE));
+        assertTrue(ids(index.search("john"), GlobalSearchIndex.DocType.SALE).isEmpty());
+        assertEquals(Arrays.asList(3L), ids(index.search("amox"), GlobalSearchIndex.DocType.SALE));
+        assertEquals(Arrays.asList(2L), ids(index.search("panadol"), GlobalSearchIndex.DocType.SALE));
+    }
+
+    @Test
+    void testUpdates_ApplyIncrementally() {
+        // Act
+        index.putProduct(2L, "Calpol", "Paracetamol");
+        index.putUser(2L, "Amos Brown", "amos@test.com");
+        index.remove(GlobalSearchIndex.DocType.SUPPLIER, 1L);
+        index.remove(GlobalSearchIndex.DocType.STOCK, 10L);
+
+        // Assert
+        assertTrue(ids(index.search("panadol"), GlobalSearchIndex.DocType.PRODUCT).isEmpty());
+        assertEquals(Arrays.asList(2L), ids(index.search("calp"), GlobalSearchIndex.DocType.PRODUCT));
+        Map<GlobalSearchIndex.DocType, List<GlobalSearchIndex.Match>> results = index.search("amo");
+        assertEquals(Arrays.asList(2L), ids(results, GlobalSearchIndex.DocType.USER));
+        assertTrue(results.get(GlobalSearchIndex.DocType.SUPPLIER).isEmpty());
+        assertEquals(Arrays.asList(11L), ids(results, GlobalSearchIndex.DocType.STOCK));
+    }
+
+    @Test
+    void testSearch_NotReadyBeforeBuild() {
+        // Arrange
+        GlobalSearchIndex unbuilt = new GlobalSearchIndex(mock(ProductRepository.class), mock(SupplierRepository.class),
+                mock(UserRepository.class), mock(SaleRepository.class), mock(StockRepository.class), true);
+
+        // Act
+        unbuilt.putProduct(1L, "Amoxicillin", null);
+
+        // Assert
+        assertFalse(unbuilt.isReady());
+        assertTrue(unbuilt.search("amox").get(GlobalSearchIndex.DocType.PRODUCT).isEmpty());
+    }
+
+    private static List<Long> ids(Map<GlobalSearchIndex.DocType, List<GlobalSearchIndex.Match>> results,
+                                  GlobalSearchIndex.DocType type) {
+        return results.get(type).stream().map(GlobalSearchIndex.Match::getId).collect(Collectors.toList());
+    }
+}
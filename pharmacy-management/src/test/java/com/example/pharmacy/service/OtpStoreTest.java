@@ -0,0 +1,111 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.entity.OtpCode;
+import com.example.pharmacy.enums.OtpPurpose;
+import com.example.pharmacy.repository.OtpCodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OtpStore
+ * Tests hashed storage, single-use verification, cross-node lookups and batch purging
+ */
+@ExtendWith(MockitoExtension.class)
+class OtpStoreTest {
+
+    @Mock
+    private OtpCodeRepository repository;
+
+    private OtpStore otpStore;
+
+    @BeforeEach
+    void setUp() {
+        otpStore = new OtpStore(repository, 10, 100, 2);
+    }
+
+    @Test
+    void testIssueAndVerify_StoresHashAndConsumesOnce() {
+        // Arrange
+        ArgumentCaptor<OtpCode> saved = ArgumentCaptor.forClass(OtpCode.class);
+        when(repository.save(saved.capture())).thenAnswer(invocation -> {
+            OtpCode row = invocation.getArgument(0);
+            row.setId(5L);
+            return row;
+        });
+        when(repository.consume(eq(5L), any())).thenReturn(1);
+
+        // Act
+        String code = otpStore.issue(OtpPurpose.LOGIN, "test@example.com");
+        boolean first = otpStore.verify(OtpPurpose.LOGIN, "test@example.com", code);
+
+        // Assert
+        assertTrue(code.matches("\\d{6}"));
+        assertNotEquals(code, saved.getValue().getCodeHash());
+        assertEquals(64, saved.getValue().getCodeHash().length());
+        verify(repository).deleteByEmailAndPurpose("test@example.com", OtpPurpose.LOGIN);
+        assertTrue(first);
+        verify(repository, never()).findByEmailAndPurpose(any(), any());
+        assertEquals(0, otpStore.cachedCount());
+    }
+
+    @Test
+    void testVerify_CodeIssuedOnAnotherNodeReadFromDatabase() {
+        // Arrange
+        when(repository.save(any(OtpCode.class))).thenAnswer(invocation -> {
+            OtpCode row = invocation.getArgument(0);
+            row.setId(7L);
+            return row;
+        });
+        OtpStore otherNode = new OtpStore(repository, 10, 100, 2);
+        String code = otherNode.issue(OtpPurpose.PASSWORD_RESET, "test@example.com");
+        ArgumentCaptor<OtpCode> row = ArgumentCaptor.forClass(OtpCode.class);
+        verify(repository).save(row.capture());
+        when(repository.findByEmailAndPurpose("test@example.com", OtpPurpose.PASSWORD_RESET))
+                .thenReturn(Optional.of(row.getValue()));
+        when(repository.findByEmailAndPurpose("test@example.com", OtpPurpose.LOGIN)).thenReturn(Optional.empty());
+        when(repository.consume(eq(7L), any())).thenReturn(1);
+
+        // Act & Assert
+        assertFalse(otpStore.verify(OtpPurpose.LOGIN, "test@example.com", code));
+        assertTrue(otpStore.verify(OtpPurpose.PASSWORD_RESET, "test@example.com", code));
+    }
+
+    @Test
+    void testVerify_WrongOrExpiredCodeRejectedWithoutConsuming() {
+        // Arrange
+        OtpCode expired = new OtpCode("test@example.com", OtpPurpose.LOGIN,
+                "0".repeat(64), LocalDateTime.now().minusMinutes(1));
+        expired.setId(9L);
+        when(repository.findByEmailAndPurpose("test@example.com", OtpPurpose.LOGIN)).thenReturn(Optional.of(expired));
+
+        // Act & Assert
+        assertFalse(otpStore.verify(OtpPurpose.LOGIN, "test@example.com", "123456"));
+        assertFalse(otpStore.verify(OtpPurpose.LOGIN, "test@example.com", null));
+        verify(repository, never()).consume(any(), any());
+    }
+
+    @Test
+    void testPurgeExpired_DeletesInBatchesUntilShortBatch() {
+        // Arrange
+        when(repository.deleteExpiredBatch(any(), anyInt())).thenReturn(2, 2, 1);
+
+        // Act
+        otpStore.purgeExpired();
+
+        // Assert
+        verify(repository, times(3)).deleteExpiredBatch(any(), eq(2));
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.dto.BulkUpsertResultDTO;
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.repository.ProductRepository;
+import com.example.pharmacy.repository.SupplierRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ProductBulkService
+ * Tests natural-key diffing, supplier resolution, CSV parsing and batched writes
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductBulkServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private SupplierRepository supplierRepository;
+
+    @Mock
+    private GlobalSearchIndex globalSearchIndex;
+
+    private ProductCatalogCache catalogCache;
+    private ProductBulkService productBulkService;
+
+    @BeforeEach
+    void setUp() {
+        catalogCache = new ProductCatalogCache();
+        productBulkService = new ProductBulkService(jdbcTemplate, productRepository, supplierRepository,
+                catalogCache, globalSearchIndex, 100, 50);
+    }
+
+    @Test
+    void testUpsert_InsertsUpdatesAndSkipsUnchangedRows() {
+        // Arrange
+        supplierIds(row(7L, "Acme"));
+        when(productRepository.findAllAsDTOByLowerNameIn(anyCollection())).thenReturn(Arrays.asList(
+                new ProductDTO(1L, "Amoxicillin", null, "Acme", "500mg", new BigDecimal("4.00"), 7L, "Acme"),
+                new ProductDTO(2L, "Paracetamol", null, "Acme", "500mg", new BigDecimal("1.00"), 7L, "Acme")));
+        generateKeys(100L);
+
+        // Act
+        BulkUpsertResultDTO result = productBulkService.upsert(Arrays.asList(
+                product("amoxicillin ", "500MG", "acme", "4.50", 7L, null),
+                product("Paracetamol", "500mg", "Acme", "1.00", 7L, null),
+                product("Ibuprofen", "200mg", "Acme", "2.00", 7L, null)));
+
+        // Assert
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals("Ibuprofen", catalogCache.peek(100L).get().getName());
+        verify(jdbcTemplate).batchUpdate(eq(ProductBulkService.UPDATE_SQL),
+                argThat((Collection<ProductDTO> rows) -> rows.size() == 1 && rows.iterator().next().getProductId() == 1L),
+                eq(50), any());
+        verify(productRepository, times(1)).findAllAsDTOByLowerNameIn(anyCollection());
+        assertEquals(new BigDecimal("4.50"), catalogCache.peek(1L).get().getPrice());
+        assertEquals("Acme", catalogCache.peek(100L).get().getSupplierName());
+        verify(globalSearchIndex).putProduct(100L, "Ibuprofen", null);
+    }
+
+    @Test
+    void testUpsert_ResolvesSuppliersOncePerRequestAndReportsBadRows() {
+        // Arrange
+        when(supplierRepository.findIdAndNameByLowerNameIn(anyCollection()))
+                .thenReturn(Collections.singletonList(row(7L, "Acme")));
+        when(productRepository.findAllAsDTOByLowerNameIn(anyCollection())).thenReturn(List.of());
+        generateKeys(100L, 101L);
+
+        // Act
+        BulkUpsertResultDTO result = productBulkService.upsert(Arrays.asList(
+                product("Ibuprofen", "200mg", null, "2.00", null, "ACME"),
+                product("Cetirizine", "10mg", null, "3.00", null, "acme"),
+                product("", "10mg", null, "3.00", 7L, null),
+                product("Loratadine", "10mg", null, "3.00", null, "Unknown")));
+
+        // Assert
+        assertEquals(2, result.getInserted());
+        assertEquals(Arrays.asList("Row 3: Product name is required", "Row 4: Supplier not found: Unknown"),
+                result.getErrors());
+        verify(supplierRepository, times(1)).findIdAndNameByLowerNameIn(anyCollection());
+        verify(supplierRepository, never()).findById(any());
+        assertEquals(7L, catalogCache.peek(101L).get().getSupplierId());
+        assertEquals("Acme", catalogCache.peek(101L).get().getSupplierName());
+    }
+
+    @Test
+    void testUpsert_KeepsStoredBarcodeAndRejectsClashes() {
+        // Arrange
+        supplierIds(row(7L, "Acme"));
+        ProductDTO stored = new ProductDTO(1L, "Aspirin", null, "Acme", "100mg", new BigDecimal("2.00"), 7L, "Acme",
+                "04006381333931");
+        when(productRepository.findAllAsDTOByLowerNameIn(anyCollection())).thenReturn(List.of(stored));
+        when(productRepository.findIdAndBarcodeByBarcodeIn(anyCollection()))
+                .thenReturn(Collections.singletonList(new Object[] { 1L, "04006381333931" }));
+        ProductDTO taken = product("Ibuprofen", "200mg", "Acme", "2.00", 7L, null);
+        taken.setBarcode("4006381333931");
+        ProductDTO duplicate = product("Cetirizine", "10mg", "Acme", "3.00", 7L, null);
+        duplicate.setBarcode("4006381333931");
+        ProductDTO badCheckDigit = product("Loratadine", "10mg", "Acme", "3.00", 7L, null);
+        badCheckDigit.setBarcode("4006381333932");
+
+        // Act
+        BulkUpsertResultDTO result = productBulkService.upsert(Arrays.asList(
+                product("Aspirin", "100mg", "Acme", "2.20", 7L, null), taken, duplicate, badCheckDigit));
+
+        // Assert
+        assertEquals(1, result.getUpdated());
+        assertEquals(0, result.getInserted());
+        assertEquals(Arrays.asList("Row 4: Invalid GTIN check digit: 4006381333932",
+                "Row 3: Duplicate barcode in request: 04006381333931",
+                "Row 2: Barcode already assigned to another product: 04006381333931"), result.getErrors());
+        assertEquals("04006381333931", catalogCache.peek(1L).get().getBarcode());
+    }
+
+    @Test
+    void testUpsertCsv_ParsesQuotedFieldsAndCollapsesDuplicateKeys() throws Exception {
+        // Arrange
+        supplierIds(row(7L, "Acme"));
+        when(productRepository.findAllAsDTOByLowerNameIn(anyCollection())).thenReturn(List.of());
+        generateKeys(100L);
+        String csv = "name,dosage,manufacturer,price,supplierId\r\n"
+                + "\"ZINC, CHELATED\",50MG,\"ACME \"\"LABS\"\"\",1.00,7\r\n"
+                + "\r\n"
+                + "\"Zinc, chelated\",50mg,\"Acme \"\"Labs\"\"\",1.25,7\n";
+
+        // Act
+        BulkUpsertResultDTO result = productBulkService.upsertCsv(new StringReader(csv));
+
+        // Assert
+        assertEquals(1, result.getInserted());
+        assertEquals("Zinc, chelated", catalogCache.peek(100L).get().getName());
+        assertEquals("Acme \"Labs\"", catalogCache.peek(100L).get().getManufacturer());
+        assertEquals(new BigDecimal("1.25"), catalogCache.peek(100L).get().getPrice());
+    }
+
+    @Test
+    void testUpsertCsv_UnknownColumnRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> productBulkService.upsertCsv(new StringReader("name,colour\nAspirin,red\n")));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void generateKeys(Long... ids) {
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+                    KeyHolder keys = invocation.getArgument(2);
+                    for (Long id : ids) {
+                        keys.getKeyList().add(Map.of("product_id", id));
+                    }
+                    return new int[ids.length];
+                });
+        lenient().when(jdbcTemplate.batchUpdate(eq(ProductBulkService.UPDATE_SQL), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenReturn(new int[0][]);
+    }
+
+    private void supplierIds(Object[] supplier) {
+        when(supplierRepository.findIdAndNameByIdIn(anyCollection()))
+                .thenReturn(Collections.singletonList(supplier));
+    }
+
+    private static Object[] row(Long id, String name) {
+        return new Object[] { id, name };
+    }
+
+    private static ProductDTO product(String name, String dosage, String manufacturer, String price,
+                                      Long supplierId, String supplierName) {
+        return new ProductDTO(null, name, null, manufacturer, dosage, new BigDecimal(price), supplierId, supplierName);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProductPriceIndex
+ * Tests range lookups, sort order, keyset paging and incremental maintenance
+ */
+class ProductPriceIndexTest {
+
+    private ProductPriceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductPriceIndex();
+        index.onCatalogLoaded(Arrays.asList(
+                product(1L, "5.00"),
+                product(2L, "12.50"),
+                product(3L, "12.5"),
+                product(4L, "30.00"),
+                product(5L, null)));
+    }
+
+    @Test
+    void testRange_InclusiveBoundsAscending() {
+        // Act
+        ProductPriceIndex.Slice slice = index.range(new BigDecimal("5"), new BigDecimal("12.50"), false, null, 10);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L, 3L), slice.getProductIds());
+        assertNull(slice.getNextCursor());
+    }
+
+    @Test
+    void testRange_Descending() {
+        // Act
+        ProductPriceIndex.Slice slice = index.range(BigDecimal.ZERO, new BigDecimal("100"), true, null, 10);
+
+        // Assert
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), slice.getProductIds());
+    }
+
+    @Test
+    void testRange_CursorContinuesAcrossEqualPrices() {
+        // Act
+        ProductPriceIndex.Slice first = index.range(BigDecimal.ZERO, new BigDecimal("100"), false, null, 2);
+        ProductPriceIndex.Slice second = index.range(BigDecimal.ZERO, new BigDecimal("100"), false,
+                first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L), first.getProductIds());
+        assertEquals(Arrays.asList(3L, 4L), second.getProductIds());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testRange_MalformedCursorRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> index.range(BigDecimal.ZERO, BigDecimal.TEN, false, "not-a-cursor", 10));
+    }
+
+    @Test
+    void testUpsertAndRemove_MoveProductsBetweenBands() {
+        // Act
+        index.onProductUpserted(product(1L, "40.00"));
+        index.onProductRemoved(4L);
+
+        // Assert
+        assertEquals(Arrays.asList(1L),
+                index.range(new BigDecimal("20"), new BigDecimal("50"), false, null, 10).getProductIds());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testRange_LargeCatalogPagesFromLowerBound() {
+        // Arrange
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            products.add(product(id, BigDecimal.valueOf(id, 2).toPlainString()));
+        }
+        index.onCatalogLoaded(products);
+
+        // Act
+        ProductPriceIndex.Slice slice = index.range(new BigDecimal("500"), new BigDecimal("600"), false, null, 20);
+
+        // Assert
+        assertEquals(20, slice.getProductIds().size());
+        assertEquals(50_000L, slice.getProductIds().get(0));
+        assertEquals(50_019L, slice.getProductIds().get(19));
+        assertNotNull(slice.getNextCursor());
+    }
+
+    private static ProductDTO product(Long id, String price) {
+        return new ProductDTO(id, "Product " + id, null, null, null,
+                price != null ? new BigDecimal(price) : null, 1L, "Supplier");
+    }
+}
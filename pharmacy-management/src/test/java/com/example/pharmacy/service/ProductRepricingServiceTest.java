@@ -0,0 +1,123 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.dto.PriceAdjustmentDTO;
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.RepriceResultDTO;
+import com.example.pharmacy.repository.ProductPriceHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ProductRepricingService
+ * Tests request validation, filter building and the single cache patch
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductRepricingServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ProductPriceHistoryRepository priceHistoryRepository;
+
+    private ProductCatalogCache catalogCache;
+    private ProductRepricingService repricingService;
+
+    @BeforeEach
+    void setUp() {
+        catalogCache = new ProductCatalogCache();
+        catalogCache.getAll(() -> Arrays.asList(product(1L, "4.00"), product(2L, "1.00"), product(3L, "9.00")));
+        repricingService = new ProductRepricingService(jdbcTemplate, catalogCache, priceHistoryRepository, 10);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSetPrices_OneStatementAndCachePatchedForChangedRows() {
+        // Arrange
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenReturn(List.of(
+                new ProductRepricingService.Repriced(1L, new BigDecimal("4.50"))));
+
+        // Act
+        RepriceResultDTO result = repricingService.setPrices(Arrays.asList(
+                product(1L, "4.20"), product(1L, "4.499"), product(2L, "1.00"), product(99L, "3.00")));
+
+        // Assert
+        assertEquals(1, result.getUpdated());
+        assertEquals(2, result.getSkipped());
+        assertEquals(new BigDecimal("4.50"), catalogCache.peek(1L).get().getPrice());
+        assertEquals(new BigDecimal("1.00"), catalogCache.peek(2L).get().getPrice());
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+    }
+
+    @Test
+    void testSetPrices_InvalidRowRejectsWholeRequest() {
+        // Act & Assert
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> repricingService.setPrices(Arrays.asList(product(1L, "4.20"), product(2L, "0"))));
+        assertEquals("Row 2: Product price must be greater than 0", e.getMessage());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAdjustPrices_FiltersBySupplierAndManufacturer() {
+        // Arrange
+        PriceAdjustmentDTO adjustment = new PriceAdjustmentDTO();
+        adjustment.setSupplierId(7L);
+        adjustment.setManufacturer(" Acme ");
+        adjustment.setPercent(new BigDecimal("12.5"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(Object[].class))).thenReturn(4);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(
+                new ProductRepricingService.Repriced(3L, new BigDecimal("10.13"))));
+
+        // Act
+        RepriceResultDTO result = repricingService.adjustPrices(adjustment);
+
+        // Assert: four products selected, one changed
+        assertEquals(1, result.getUpdated());
+        assertEquals(3, result.getSkipped());
+        assertEquals(new BigDecimal("10.13"), catalogCache.peek(3L).get().getPrice());
+        BigDecimal factor = new BigDecimal("1.125");
+        verify(jdbcTemplate).query(argThat((String sql) ->
+                        sql.contains("p.supplier_id = ? AND lower(p.manufacturer) = lower(?)")),
+                any(RowMapper.class), eq(factor), eq(7L), eq("Acme"), eq(factor), eq(factor), eq("BULK_PERCENT"));
+        verify(jdbcTemplate).queryForObject(argThat((String sql) ->
+                        sql.contains("p.active AND p.supplier_id = ? AND lower(p.manufacturer) = lower(?)")),
+                eq(Integer.class), eq(7L), eq("Acme"));
+    }
+
+    @Test
+    void testAdjustPrices_RequiresFilterAndSanePercent() {
+        // Arrange
+        PriceAdjustmentDTO unfiltered = new PriceAdjustmentDTO();
+        unfiltered.setPercent(BigDecimal.TEN);
+        PriceAdjustmentDTO wipeout = new PriceAdjustmentDTO();
+        wipeout.setSupplierId(7L);
+        wipeout.setPercent(new BigDecimal("-100"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> repricingService.adjustPrices(unfiltered));
+        assertThrows(IllegalArgumentException.class, () -> repricingService.adjustPrices(wipeout));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static ProductDTO product(Long id, String price) {
+        return new ProductDTO(id, "Product " + id, null, "Acme", null, new BigDecimal(price), 7L, "Acme");
+    }
+}
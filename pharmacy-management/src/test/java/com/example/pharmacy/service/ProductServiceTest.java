@@ -1,8 +1,12 @@
 package com.example.pharmacy.service;
 
 import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.ProductField;
+import com.example.pharmacy.dto.ProductPageDTO;
 import com.example.pharmacy.entity.Product;
 import com.example.pharmacy.entity.Supplier;
+import com.example.pharmacy.entity.ProductPriceHistory;
+import com.example.pharmacy.repository.ProductPriceHistoryRepository;
 import com.example.pharmacy.repository.ProductRepository;
 import com.example.pharmacy.repository.SupplierRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,12 +14,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,6 +43,24 @@ class ProductServiceTest {
     @Mock
     private SupplierRepository supplierRepository;
 
+    @Spy
+    private ProductCatalogCache catalogCache = new ProductCatalogCache();
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductTypeaheadIndex typeaheadIndex;
+
+    @Mock
+    private ProductPriceIndex priceIndex;
+
+    @Mock
+    private ProductPriceHistoryRepository priceHistoryRepository;
+
+    @Mock
+    private GlobalSearchIndex globalSearchIndex;
+
     @InjectMocks
     private ProductService productService;
 
@@ -68,8 +94,8 @@ class ProductServiceTest {
     @Test
     void testGetAllProducts_Success() {
         // Arrange
-        List<Product> products = Arrays.asList(testProduct);
-        when(productRepository.findAll()).thenReturn(products);
+        List<ProductDTO> products = Arrays.asList(testProductDTO);
+        when(productRepository.findAllAsDTO()).thenReturn(products);
 
         // Act
         List<ProductDTO> result = productService.getAllProducts();
@@ -78,13 +104,152 @@ class ProductServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Test Medicine", result.get(0).getName());
-        verify(productRepository, times(1)).findAll();
+        verify(productRepository, times(1)).findAllAsDTO();
+    }
+
+    @Test
+    void testGetAllProducts_ServedFromCacheAfterFirstLoad() {
+        // Arrange
+        when(productRepository.findAllAsDTO()).thenReturn(Arrays.asList(testProductDTO));
+
+        // Act
+        productService.getAllProducts();
+        List<ProductDTO> result = productService.getAllProducts();
+
+        // Assert
+        assertEquals(1, result.size());
+        verify(productRepository, times(1)).findAllAsDTO();
+        assertEquals(1, catalogCache.getMissCount());
+        assertEquals(1, catalogCache.getHitCount());
+    }
+
+    @Test
+    void testGetAllProducts_CachedSnapshotsAreReadOnly() {
+        // Arrange
+        when(productRepository.findAllAsDTO()).thenReturn(Arrays.asList(testProductDTO));
+        ProductDTO cached = productService.getAllProducts().get(0);
+
+        // Act
+        assertThrows(UnsupportedOperationException.class, () -> cached.setPrice(BigDecimal.ONE));
+        testProductDTO.setName("Changed After Load");
+        ProductDTO copy = new ProductDTO(cached);
+        copy.setName("Local Edit");
+
+        // Assert
+        ProductDTO reread = productService.getAllProducts().get(0);
+        assertEquals("Test Medicine", reread.getName());
+        assertEquals(new BigDecimal("99.99"), reread.getPrice());
+    }
+
+    @Test
+    void testUpdateProduct_RefreshesCachedEntry() {
+        // Arrange
+        when(productRepository.findAllAsDTO()).thenReturn(Arrays.asList(testProductDTO));
+        productService.getAllProducts();
+
+        Product update = new Product();
+        update.setProductId(1L);
+        update.setName("Renamed Medicine");
+        update.setPrice(new BigDecimal("120.00"));
+        when(productRepository.findByProductIdAndActiveTrue(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        productService.updateProduct(update);
+        List<ProductDTO> result = productService.getAllProducts();
+
+        // Assert
+        assertEquals("Renamed Medicine", result.get(0).getName());
+        assertEquals("Test Supplier", result.get(0).getSupplierName());
+        verify(priceHistoryRepository).save(argThat((ProductPriceHistory h) ->
+                h.getOldPrice().compareTo(new BigDecimal("99.99")) == 0
+                        && h.getNewPrice().compareTo(new BigDecimal("120.00")) == 0));
+        verify(productRepository, times(1)).findAllAsDTO();
+    }
+
+    @Test
+    void testUpdateProduct_WithoutBarcodeKeepsStoredOne() {
+        // Arrange: the edit form sends no barcode
+        testProduct.setBarcode("04006381333931");
+        Product update = new Product();
+        update.setProductId(1L);
+        update.setName("Test Medicine");
+        update.setPrice(new BigDecimal("99.99"));
+        when(productRepository.findByProductIdAndActiveTrue(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Product saved = productService.updateProduct(update);
+
+        // Assert
+        assertEquals("04006381333931", saved.getBarcode());
+        verify(productRepository, never()).findIdByBarcode(any());
+    }
+
+    @Test
+    void testDeleteProduct_EvictsCachedEntry() {
+        // Arrange
+        when(productRepository.findAllAsDTO()).thenReturn(Arrays.asList(testProductDTO));
+        productService.getAllProducts();
+        when(productRepository.deactivate(1L)).thenReturn(1);
+
+        // Act
+        productService.deleteProduct(1L);
+
+        // Assert
+        assertTrue(productService.getAllProducts().isEmpty());
+        assertFalse(productService.getProductDTOById(1L).isPresent());
+        verify(productRepository, never()).findDTOById(anyLong());
+    }
+
+    @Test
+    void testGetProductsByIds_PreservesRequestedOrder() {
+        // Arrange
+        ProductDTO other = new ProductDTO(3L, "Other Medicine", null, null, null, BigDecimal.ONE, 1L, "Test Supplier");
+        when(productRepository.findAllAsDTOByIdIn(Arrays.asList(3L, 2L, 1L)))
+                .thenReturn(Arrays.asList(testProductDTO, other));
+
+        // Act
+        List<ProductDTO> result = productService.getProductsByIds(Arrays.asList(3L, 2L, 1L, 3L));
+
+        // Assert
+        assertEquals(Arrays.asList(3L, 1L), result.stream().map(ProductDTO::getProductId).toList());
+    }
+
+    @Test
+    void testGetProductsByIds_ChunksLargeIdLists() {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1200; id++) {
+            ids.add(id);
+        }
+        when(productRepository.findAllAsDTOByIdIn(any())).thenReturn(List.of());
+
+        // Act
+        productService.getProductsByIds(ids);
+
+        // Assert
+        verify(productRepository, times(3)).findAllAsDTOByIdIn(any());
+    }
+
+    @Test
+    void testGetProductsByIds_ServedFromLoadedCatalog() {
+        // Arrange
+        when(productRepository.findAllAsDTO()).thenReturn(Arrays.asList(testProductDTO));
+        productService.getAllProducts();
+
+        // Act
+        List<ProductDTO> result = productService.getProductsByIds(Arrays.asList(2L, 1L));
+
+        // Assert
+        assertEquals(1, result.size());
+        verify(productRepository, never()).findAllAsDTOByIdIn(any());
     }
 
     @Test
     void testGetProductById_Success() {
         // Arrange
-        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.findByProductIdAndActiveTrue(1L)).thenReturn(Optional.of(testProduct));
 
         // Act
         Optional<Product> result = productService.getProductById(1L);
@@ -92,20 +257,20 @@ class ProductServiceTest {
         // Assert
         assertTrue(result.isPresent());
         assertEquals("Test Medicine", result.get().getName());
-        verify(productRepository, times(1)).findById(1L);
+        verify(productRepository, times(1)).findByProductIdAndActiveTrue(1L);
     }
 
     @Test
     void testGetProductById_NotFound() {
         // Arrange
-        when(productRepository.findById(999L)).thenReturn(Optional.empty());
+        when(productRepository.findByProductIdAndActiveTrue(999L)).thenReturn(Optional.empty());
 
         // Act
         Optional<Product> result = productService.getProductById(999L);
 
         // Assert
         assertFalse(result.isPresent());
-        verify(productRepository, times(1)).findById(999L);
+        verify(productRepository, times(1)).findByProductIdAndActiveTrue(999L);
     }
 
     @Test
@@ -128,57 +293,107 @@ class ProductServiceTest {
     @Test
     void testDeleteProduct_Success() {
         // Arrange
-        doNothing().when(productRepository).deleteById(1L);
+        when(productRepository.deactivate(1L)).thenReturn(1);
 
         // Act
         productService.deleteProduct(1L);
 
         // Assert
-        verify(productRepository, times(1)).deleteById(1L);
+        verify(productRepository, times(1)).deactivate(1L);
+        verify(productRepository, never()).deleteById(any());
+        verify(catalogCache).evict(1L);
+        verify(globalSearchIndex).remove(GlobalSearchIndex.DocType.PRODUCT, 1L);
+    }
+
+    @Test
+    void testDeleteProduct_AlreadyInactiveLeavesIndexesAlone() {
+        // Arrange
+        when(productRepository.deactivate(2L)).thenReturn(0);
+
+        // Act
+        productService.deleteProduct(2L);
+
+        // Assert
+        verify(catalogCache, never()).evict(any());
+        verifyNoInteractions(globalSearchIndex);
     }
 
     @Test
     void testSearchProducts_Success() {
         // Arrange
-        List<Product> products = Arrays.asList(testProduct);
-        when(productRepository.findByNameContaining("Test"))
-                .thenReturn(products);
+        when(productRepository.findAllAsDTO()).thenReturn(Arrays.asList(testProductDTO));
+        productService.getAllProducts();
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("Test", 50))
+                .thenReturn(Arrays.asList(new ProductSearchIndex.Hit(1L, 0.5)));
 
         // Act
-        List<Product> result = productService.searchProducts("Test");
+        List<ProductDTO> result = productService.searchProducts("Test", 50);
 
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Test Medicine", result.get(0).getName());
-        verify(productRepository, times(1)).findByNameContaining("Test");
+        verify(productSearchIndex, times(1)).search("Test", 50);
+        verify(productRepository, never()).findByNameContaining(any());
     }
 
     @Test
-    void testGetProductByPriceRange_Success() {
+    void testGetProductsByPriceRange_ServedFromPriceIndex() {
         // Arrange
         BigDecimal minPrice = new BigDecimal("50.00");
         BigDecimal maxPrice = new BigDecimal("150.00");
-        List<Product> products = Arrays.asList(testProduct);
-        when(productRepository.findByPriceBetween(minPrice, maxPrice))
-                .thenReturn(products);
+        when(productRepository.findAllAsDTO()).thenReturn(Arrays.asList(testProductDTO));
+        when(priceIndex.range(minPrice, maxPrice, false, null, 10))
+                .thenReturn(new ProductPriceIndex.Slice(Arrays.asList(1L), "next"));
 
         // Act
-        List<Product> result = productService.getProductByPriceRange(minPrice, maxPrice);
+        ProductPageDTO result = productService.getProductsByPriceRange(minPrice, maxPrice, false, null, 10, null);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertTrue(result.get(0).getPrice().compareTo(minPrice) >= 0);
-        assertTrue(result.get(0).getPrice().compareTo(maxPrice) <= 0);
-        verify(productRepository, times(1)).findByPriceBetween(minPrice, maxPrice);
+        assertEquals(1, result.getProducts().size());
+        assertInstanceOf(ProductDTO.class, result.getProducts().get(0));
+        assertEquals("next", result.getNextCursor());
+        verify(productRepository, never()).findByPriceBetween(any(), any());
+    }
+
+    @Test
+    void testGetProductFieldsById_ServedFromLoadedCatalog() {
+        // Arrange
+        when(productRepository.findAllAsDTO()).thenReturn(Arrays.asList(testProductDTO));
+        productService.getAllProducts();
+
+        // Act
+        Optional<Map<String, Object>> result =
+                productService.getProductFieldsById(1L, ProductField.parse("name,price"));
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(Arrays.asList("name", "price"), new ArrayList<>(result.get().keySet()));
+        assertEquals("Test Medicine", result.get().get("name"));
+        verify(productRepository, never()).findFieldsById(anyLong(), any());
+    }
+
+    @Test
+    void testGetProductFieldsById_PushesFieldsIntoQueryBeforeCatalogLoads() {
+        // Arrange
+        Set<ProductField> fields = ProductField.parse("name");
+        when(productRepository.findFieldsById(1L, fields))
+                .thenReturn(Optional.of(Map.of("name", "Test Medicine")));
+
+        // Act
+        Optional<Map<String, Object>> result = productService.getProductFieldsById(1L, fields);
+
+        // Assert
+        assertEquals("Test Medicine", result.get().get("name"));
+        verify(productRepository, never()).findDTOById(anyLong());
     }
 
     @Test
     void testGetProductsBySupplier_Success() {
         // Arrange
         List<Product> products = Arrays.asList(testProduct);
-        when(productRepository.findBySupplier(testSupplier)).thenReturn(products);
+        when(productRepository.findBySupplierAndActiveTrue(testSupplier)).thenReturn(products);
 
         // Act
         List<Product> result = productService.getProductsBySupplier(testSupplier);
@@ -187,6 +402,6 @@ class ProductServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(testSupplier.getSupplierId(), result.get(0).getSupplier().getSupplierId());
-        verify(productRepository, times(1)).findBySupplier(testSupplier);
+        verify(productRepository, times(1)).findBySupplierAndActiveTrue(testSupplier);
     }
 }
@@ -0,0 +1,116 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.repository.SaleItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ProductTypeaheadIndex
+ * Tests prefix lookup, popularity ranking and incremental trie maintenance
+ */
+class ProductTypeaheadIndexTest {
+
+    private ProductTypeaheadIndex index;
+
+    @BeforeEach
+    void setUp() {
+        SaleItemRepository saleItemRepository = mock(SaleItemRepository.class);
+        when(saleItemRepository.sumQuantityByProduct()).thenReturn(Arrays.asList(
+                new Object[] { 1L, 5L },
+                new Object[] { 2L, 50L }));
+
+        index = new ProductTypeaheadIndex(saleItemRepository, 3);
+        index.onCatalogLoaded(Arrays.asList(
+                product(1L, "Amoxicillin 500mg", "Amoxicillin"),
+                product(2L, "Amoxil", "Amoxicillin"),
+                product(3L, "Panadol", "Paracetamol"),
+                product(4L, "Paracetamol 500mg", null)));
+    }
+
+    @Test
+    void testSuggest_RanksByUnitsSold() {
+        // Act & Assert
+        assertEquals(Arrays.asList(2L, 1L), index.suggest("AMOX", 10));
+    }
+
+    @Test
+    void testSuggest_MatchesGenericName() {
+        // Act
+        List<Long> ids = index.suggest("parac", 10);
+
+        // Assert: Panadol via its generic name, ties broken by name
+        assertEquals(Arrays.asList(3L, 4L), ids);
+    }
+
+    @Test
+    void testSuggest_PrefixEndingInsideEdge() {
+        // Act & Assert: "amoxi" ends part-way along the compressed "amoxi..." edges
+        assertEquals(Arrays.asList(2L, 1L), index.suggest("amoxi", 10));
+        assertTrue(index.suggest("amoxz", 10).isEmpty());
+        assertTrue(index.suggest("", 10).isEmpty());
+    }
+
+    @Test
+    void testRecordSale_ReordersSuggestions() {
+        // Act
+        index.recordSale(1L, 100);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L), index.suggest("amox", 10));
+    }
+
+    @Test
+    void testUpsertAndRemove_UpdateTrieIncrementally() {
+        // Act
+        index.onProductUpserted(product(3L, "Calpol", "Paracetamol"));
+        index.onProductRemoved(4L);
+
+        // Assert
+        assertTrue(index.suggest("pana", 10).isEmpty());
+        assertEquals(Arrays.asList(3L), index.suggest("calp", 10));
+        assertEquals(Arrays.asList(3L), index.suggest("para", 10));
+    }
+
+    @Test
+    void testSuggest_KeepsOnlyTopK() {
+        // Arrange
+        for (long id = 10; id < 20; id++) {
+            index.onProductUpserted(product(id, "Amox generic " + id, null));
+        }
+
+        // Act & Assert: K = 3, best sellers survive
+        List<Long> ids = index.suggest("amox", 10);
+        assertEquals(3, ids.size());
+        assertEquals(Arrays.asList(2L, 1L), ids.subList(0, 2));
+    }
+
+    @Test
+    void testSuggest_LargeCatalogReturnsOnlyMatches() {
+        // Arrange
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            products.add(product(id, "Product " + id + " tablets", "Generic " + id));
+        }
+        index.onCatalogLoaded(products);
+
+        // Act
+        List<Long> ids = index.suggest("product 9", 10);
+
+        // Assert
+        assertEquals(3, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id.toString().startsWith("9")), ids.toString());
+    }
+
+    private static ProductDTO product(Long id, String name, String genericName) {
+        return new ProductDTO(id, name, genericName, null, null, BigDecimal.ONE, 1L, "Supplier");
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.entity.RefreshToken;
+import com.example.pharmacy.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RefreshTokenService
+ * Tests hashed storage, rotation within a token family and reuse detection
+ */
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository repository;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(repository, 3_600_000, 100);
+    }
+
+    private RefreshToken stored(Long id, String familyId) {
+        RefreshToken row = new RefreshToken(4L, "hash", familyId, LocalDateTime.now().plusHours(1));
+        row.setId(id);
+        return row;
+    }
+
+    @Test
+    void testIssue_StoresHashOnly() {
+        // Arrange
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        when(repository.save(saved.capture())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        RefreshTokenService.Issued issued = refreshTokenService.issue(4L);
+
+        // Assert
+        assertEquals(4L, issued.userId());
+        assertNotEquals(issued.token(), saved.getValue().getTokenHash());
+        assertEquals(64, saved.getValue().getTokenHash().length());
+        assertNotNull(saved.getValue().getFamilyId());
+    }
+
+    @Test
+    void testRotate_IssuesSuccessorInSameFamily() {
+        // Arrange
+        when(repository.findByTokenHash(anyString())).thenReturn(Optional.of(stored(9L, "family-1")));
+        when(repository.markUsed(eq(9L), any())).thenReturn(1);
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        when(repository.save(saved.capture())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        RefreshTokenService.Issued issued = refreshTokenService.rotate("presented");
+
+        // Assert
+        assertEquals(4L, issued.userId());
+        assertNotEquals("presented", issued.token());
+        assertEquals("family-1", saved.getValue().getFamilyId());
+        verify(repository, never()).revokeFamily(anyString(), any());
+    }
+
+    @Test
+    void testRotate_ReusedTokenRevokesFamily() {
+        // Arrange
+        RefreshToken used = stored(9L, "family-1");
+        used.setUsedAt(LocalDateTime.now().minusMinutes(1));
+        when(repository.findByTokenHash(anyString())).thenReturn(Optional.of(used));
+        when(repository.markUsed(eq(9L), any())).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("presented"));
+        verify(repository).revokeFamily(eq("family-1"), any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testRotate_RevokedTokenRejectedWithoutRevokingAgain() {
+        // Arrange
+        RefreshToken revoked = stored(9L, "family-1");
+        revoked.setRevokedAt(LocalDateTime.now().minusMinutes(1));
+        when(repository.findByTokenHash(anyString())).thenReturn(Optional.of(revoked));
+        when(repository.markUsed(eq(9L), any())).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("presented"));
+        verify(repository, never()).revokeFamily(anyString(), any());
+    }
+
+    @Test
+    void testRotate_UnknownTokenRejected() {
+        // Arrange
+        when(repository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("unknown"));
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(null));
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.dto.SaleDTO;
+import com.example.pharmacy.dto.SaleItemDTO;
+import com.example.pharmacy.dto.SaleSummaryDTO;
+import com.example.pharmacy.entity.Product;
+import com.example.pharmacy.entity.Sale;
+import com.example.pharmacy.entity.SaleItem;
+import com.example.pharmacy.repository.ProductRepository;
+import com.example.pharmacy.repository.SaleItemRepository;
+import com.example.pharmacy.repository.SaleRepository;
+import com.example.pharmacy.repository.StockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SaleService
+ * Tests sale summary search by product name and product checks on sale updates
+ */
+@ExtendWith(MockitoExtension.class)
+class SaleServiceTest {
+
+    @Mock
+    private SaleRepository saleRepository;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private SaleItemRepository saleItemRepository;
+
+    @Mock
+    private ProductTypeaheadIndex typeaheadIndex;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @InjectMocks
+    private SaleService saleService;
+
+    private SaleSummaryDTO testSummary;
+
+    @BeforeEach
+    void setUp() {
+        testSummary = new SaleSummaryDTO(1L, "Test Customer", LocalDate.now(), new BigDecimal("25.00"));
+    }
+
+    @Test
+    void testSearchSalesByProductName_UsesProductIndexHits() {
+        // Arrange
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search(eq("amox"), anyInt())).thenReturn(Arrays.asList(
+                new ProductSearchIndex.Hit(3L, 1.0), new ProductSearchIndex.Hit(7L, 0.5)));
+        when(saleRepository.findSummariesByProductIds(eq(Arrays.asList(3L, 7L)), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testSummary));
+
+        // Act
+        List<SaleSummaryDTO> result = saleService.searchSalesByProductName("amox", 20);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("Test Customer", result.get(0).getCustomerName());
+        verify(saleRepository, never()).findSummariesByProductName(any(), any());
+    }
+
+    @Test
+    void testSearchSalesByProductName_NoMatchingProductSkipsQuery() {
+        // Arrange
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search(eq("zzz"), anyInt())).thenReturn(List.of());
+
+        // Act
+        List<SaleSummaryDTO> result = saleService.searchSalesByProductName("zzz", 20);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(saleRepository);
+    }
+
+    @Test
+    void testSearchSalesByProductName_FallsBackToNameQuery() {
+        // Arrange
+        when(productSearchIndex.isReady()).thenReturn(false);
+        when(saleRepository.findSummariesByProductName(eq("amox"), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testSummary));
+
+        // Act
+        List<SaleSummaryDTO> result = saleService.searchSalesByProductName("amox", 20);
+
+        // Assert
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void testUpdateSale_RejectsSwitchToDiscontinuedProduct() {
+        // Arrange
+        Product current = new Product();
+        current.setProductId(1L);
+        Sale sale = new Sale();
+        SaleItem line = new SaleItem();
+        line.setSaleItemId(5L);
+        line.setProduct(current);
+        line.setQuantity(1);
+        sale.setSaleItems(new ArrayList<>(List.of(line)));
+        when(saleRepository.findById(1L)).thenReturn(Optional.of(sale));
+        when(productRepository.findByProductIdAndActiveTrue(2L)).thenReturn(Optional.empty());
+
+        SaleItemDTO update = new SaleItemDTO();
+        update.setSaleItemId(5L);
+        update.setProductId(2L);
+        update.setQuantity(1);
+        update.setUnitPrice(BigDecimal.ONE);
+        SaleDTO request = new SaleDTO();
+        request.setSaleItems(List.of(update));
+
+        // Act & Assert
+        RuntimeException error = assertThrows(RuntimeException.class, () -> saleService.updateSale(1L, request));
+        assertTrue(error.getMessage().contains("Product not found with ID: 2"));
+        verify(productRepository, never()).findById(any());
+    }
+}
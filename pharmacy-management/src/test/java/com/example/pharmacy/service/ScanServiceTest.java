@@ -0,0 +1,119 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.ScanResultDTO;
+import com.example.pharmacy.dto.StockDTO;
+import com.example.pharmacy.repository.StockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ScanService
+ * Tests barcode normalization, product and batch lookups and FEFO batch choice
+ */
+@ExtendWith(MockitoExtension.class)
+class ScanServiceTest {
+
+    private static final String EAN = "4006381333931";
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private StockRepository stockRepository;
+
+    private ProductCatalogCache catalogCache;
+    private BarcodeIndex barcodeIndex;
+    private ScanService scanService;
+
+    @BeforeEach
+    void setUp() {
+        barcodeIndex = new BarcodeIndex(stockRepository);
+        catalogCache = new ProductCatalogCache();
+        catalogCache.addListener(barcodeIndex);
+        catalogCache.getAll(() -> Arrays.asList(
+                product(1L, "Aspirin", Barcodes.normalize(EAN)),
+                product(2L, "Ibuprofen", null)));
+        scanService = new ScanService(productService, catalogCache, barcodeIndex);
+
+        LocalDate today = LocalDate.now();
+        lenient().when(stockRepository.findAllAsDTO()).thenReturn(Arrays.asList(
+                batch(10L, 1L, 5, today.plusMonths(6), null),
+                batch(11L, 1L, 3, today.plusMonths(1), null),
+                batch(12L, 1L, 9, today.minusDays(1), null),
+                batch(13L, 1L, 0, today.plusDays(1), null),
+                batch(20L, 2L, 4, today.plusYears(1), "LOT-IBU-20"),
+                batch(21L, 2L, 2, null, null)));
+    }
+
+    @Test
+    void testScan_ProductCodeReturnsPriceAvailabilityAndFefoBatch() {
+        // Act
+        ScanResultDTO result = scanService.scan("0" + EAN).orElseThrow();
+
+        // Assert
+        assertEquals("0" + EAN, result.getCode());
+        assertEquals(1L, result.getProduct().getProductId());
+        assertEquals(new BigDecimal("2.50"), result.getPrice());
+        assertEquals(8, result.getSellableQuantity());
+        assertEquals(11L, result.getPreferredBatch().getStockId());
+        assertNull(result.getScannedStockId());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void testScan_BatchCodeSellsFromScannedBatch() {
+        // Act
+        ScanResultDTO result = scanService.scan(" lot-ibu-20 ").orElseThrow();
+
+        // Assert
+        assertEquals(2L, result.getProduct().getProductId());
+        assertEquals(6, result.getSellableQuantity());
+        assertEquals(20L, result.getPreferredBatch().getStockId());
+        assertEquals(20L, result.getScannedStockId());
+    }
+
+    @Test
+    void testScan_IndexFollowsCommittedWrites() {
+        // Arrange
+        scanService.scan(EAN);
+        ProductDTO relabelled = product(1L, "Aspirin", "NEW-CODE");
+
+        // Act
+        catalogCache.put(relabelled);
+        barcodeIndex.removeBatch(11L);
+
+        // Assert
+        assertEquals(Optional.empty(), scanService.scan(EAN));
+        ScanResultDTO result = scanService.scan("new-code").orElseThrow();
+        assertEquals(5, result.getSellableQuantity());
+        assertEquals(10L, result.getPreferredBatch().getStockId());
+        verify(stockRepository, times(1)).findAllAsDTO();
+    }
+
+    @Test
+    void testScan_InvalidCheckDigitRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> scanService.scan("4006381333932"));
+    }
+
+    private static ProductDTO product(Long id, String name, String barcode) {
+        return new ProductDTO(id, name, null, null, null, new BigDecimal("2.50"), 1L, "Acme", barcode);
+    }
+
+    private static StockDTO batch(Long stockId, Long productId, int quantity, LocalDate expiry, String barcode) {
+        return new StockDTO(stockId, productId, null, "B" + stockId, quantity, expiry, barcode);
+    }
+}
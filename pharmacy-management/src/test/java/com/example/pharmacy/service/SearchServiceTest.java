@@ -0,0 +1,343 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.dto.SaleSummaryDTO;
+import com.example.pharmacy.dto.SearchResponseDTO;
+import com.example.pharmacy.dto.SearchResultDTO;
+import com.example.pharmacy.entity.Product;
+import com.example.pharmacy.entity.Stock;
+import com.example.pharmacy.entity.Supplier;
+import com.example.pharmacy.entity.User;
+import com.example.pharmacy.repository.ProductRepository;
+import com.example.pharmacy.repository.SaleRepository;
+import com.example.pharmacy.repository.StockRepository;
+import com.example.pharmacy.repository.SupplierRepository;
+import com.example.pharmacy.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SearchService
+ * Tests the concurrent fan-out, deadlines, ranking and cursor pagination
+ */
+@ExtendWith(MockitoExtension.class)
+class SearchServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private SaleRepository saleRepository;
+
+    @Mock
+    private SupplierRepository supplierRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private GlobalSearchIndex globalSearchIndex;
+
+    @InjectMocks
+    private SearchService searchService;
+
+    private User testUser;
+    private Supplier testSupplier;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(searchService, "sourceTimeoutMs", 200L);
+        searchService.init();
+
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setFullName("Test Pharmacist");
+        testUser.setEmail("pharmacist@test.com");
+
+        testSupplier = new Supplier();
+        testSupplier.setSupplierId(1L);
+        testSupplier.setName("Test Supplier");
+        testSupplier.setEmail("supplier@test.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchService.shutdown();
+    }
+
+    @Test
+    void testSearch_CombinesAllSources() {
+        // Arrange
+        when(userRepository.searchByFullName(eq("Test"), any(), any(Pageable.class))).thenReturn(Arrays.asList(testUser));
+        when(stockRepository.searchByProductName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(saleRepository.searchByCustomerOrProductName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(supplierRepository.searchByName(eq("Test"), any(), any(Pageable.class))).thenReturn(Arrays.asList(testSupplier));
+
+        // Act
+        SearchResponseDTO response = searchService.search("Test", null, 20, 10);
+
+        // Assert
+        assertFalse(response.isPartial());
+        assertEquals(2, response.getResults().size());
+        // Both are prefix matches; suppliers weigh more than users
+        assertEquals("SUPPLIER", response.getResults().get(0).getType());
+        assertEquals("USER", response.getResults().get(1).getType());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void testSearch_SlowSourceIsDroppedAndFlagged() {
+        // Arrange
+        when(userRepository.searchByFullName(eq("Test"), any(), any(Pageable.class))).thenReturn(Arrays.asList(testUser));
+        when(stockRepository.searchByProductName(eq("Test"), any(), any(Pageable.class))).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return List.of();
+        });
+        when(saleRepository.searchByCustomerOrProductName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(supplierRepository.searchByName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        long start = System.nanoTime();
+        SearchResponseDTO response = searchService.search("Test", null, 20, 10);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertTrue(response.isPartial());
+        assertEquals(List.of("STOCK"), response.getIncompleteSources());
+        assertEquals(1, response.getResults().size());
+        assertTrue(elapsedMillis < 2_000, "search took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void testSearch_FailingSourceIsFlagged() {
+        // Arrange
+        when(userRepository.searchByFullName(eq("Test"), any(), any(Pageable.class))).thenThrow(new RuntimeException("Database error"));
+        when(stockRepository.searchByProductName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(saleRepository.searchByCustomerOrProductName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(supplierRepository.searchByName(eq("Test"), any(), any(Pageable.class))).thenReturn(Arrays.asList(testSupplier));
+
+        // Act
+        SearchResponseDTO response = searchService.search("Test", null, 20, 10);
+
+        // Assert
+        assertTrue(response.isPartial());
+        assertEquals(List.of("USER"), response.getIncompleteSources());
+        assertEquals(1, response.getResults().size());
+    }
+
+    @Test
+    void testSearch_ExactMatchOutranksPrefixAcrossTypes() {
+        // Arrange
+        User exactUser = new User();
+        exactUser.setId(2L);
+        exactUser.setFullName("test");
+        when(userRepository.searchByFullName(eq("Test"), any(), any(Pageable.class))).thenReturn(Arrays.asList(exactUser, testUser));
+        when(stockRepository.searchByProductName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(saleRepository.searchByCustomerOrProductName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(supplierRepository.searchByName(eq("Test"), any(), any(Pageable.class))).thenReturn(Arrays.asList(testSupplier));
+
+        // Act
+        SearchResponseDTO response = searchService.search("Test", null, 20, 10);
+
+        // Assert
+        assertEquals(Arrays.asList("2", "1", "1"),
+                response.getResults().stream().map(SearchResultDTO::getId).toList());
+        assertEquals(Arrays.asList("USER", "SUPPLIER", "USER"),
+                response.getResults().stream().map(SearchResultDTO::getType).toList());
+    }
+
+    @Test
+    void testSearch_CursorResumesEachSourceWhereThePageStopped() {
+        // Arrange: per-type cap 1 means each source is asked for 2 rows (1 + one to detect more)
+        User secondUser = new User();
+        secondUser.setId(2L);
+        secondUser.setFullName("Test Technician");
+        when(userRepository.searchByFullName(eq("Test"), any(), any(Pageable.class))).thenReturn(Arrays.asList(testUser, secondUser));
+        when(stockRepository.searchByProductName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(saleRepository.searchByCustomerOrProductName(eq("Test"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(supplierRepository.searchByName(eq("Test"), any(), any(Pageable.class))).thenReturn(Arrays.asList(testSupplier));
+
+        // Act
+        SearchResponseDTO first = searchService.search("Test", null, 20, 1);
+        searchService.search("Test", first.getNextCursor(), 20, 1);
+
+        // Assert
+        assertEquals(2, first.getResults().size());
+        assertNotNull(first.getNextCursor());
+        ArgumentCaptor<Pageable> pages = ArgumentCaptor.forClass(Pageable.class);
+        verify(userRepository, times(2)).searchByFullName(eq("Test"), any(), pages.capture());
+        assertEquals(0, pages.getAllValues().get(0).getOffset());
+        assertEquals(2, pages.getAllValues().get(0).getPageSize());
+        assertEquals(1, pages.getAllValues().get(1).getOffset());
+    }
+
+    @Test
+    void testSearch_RejectsMalformedCursor() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("Test", "not-a-cursor", 20, 10));
+    }
+
+    @Test
+    void testMatchTier_ExactPrefixSubstring() {
+        // Act & Assert
+        assertEquals(0, SearchService.matchTier("Panadol", "panadol"));
+        assertEquals(1, SearchService.matchTier("Panadol Extra", "panadol"));
+        assertEquals(2, SearchService.matchTier("Co-Panadol", "panadol"));
+    }
+
+    @Test
+    void testSearch_ServedFromIndexWhenReady() {
+        // Arrange
+        GlobalSearchIndex index = new GlobalSearchIndex(mock(ProductRepository.class),
+                supplierRepository, userRepository, saleRepository, stockRepository, true);
+        when(userRepository.findSearchIndexRows()).thenReturn(List.<Object[]>of(new Object[] { 1L, "Test Pharmacist", "pharmacist@test.com" }));
+        when(supplierRepository.findSearchIndexRows()).thenReturn(List.<Object[]>of(new Object[] { 1L, "Test Supplier", "supplier@test.com" }));
+        index.build();
+        ReflectionTestUtils.setField(searchService, "globalSearchIndex", index);
+
+        // Act
+        SearchResponseDTO response = searchService.search("test", null, 20, 10);
+
+        // Assert
+        assertEquals(Arrays.asList("SUPPLIER", "USER"),
+                response.getResults().stream().map(SearchResultDTO::getType).toList());
+        assertEquals("/users/update/1", response.getResults().get(1).getLink());
+        verify(userRepository, never()).searchByFullName(any(), any(), any());
+    }
+
+    @Test
+    void testSearch_SaleResultsAgreeBetweenIndexAndDatabase() {
+        // Arrange: sales 1 and 2 hold Panadol; sale 3 only matches on its customer name
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findSearchIndexRows()).thenReturn(List.<Object[]>of(new Object[] { 7L, "Panadol", "Paracetamol" }));
+        when(saleRepository.findSearchIndexRows()).thenReturn(Arrays.asList(
+                new Object[] { 1L, "Panadol Fan", new BigDecimal("12.50"), LocalDate.of(2024, 1, 10) },
+                new Object[] { 2L, "Mary Amos", new BigDecimal("30.00"), LocalDate.of(2024, 2, 1) },
+                new Object[] { 3L, "Panadol Club", new BigDecimal("9.00"), LocalDate.of(2024, 3, 1) }));
+        when(saleRepository.findSearchIndexLineRows()).thenReturn(Arrays.asList(
+                new Object[] { 100L, 1L, 7L },
+                new Object[] { 101L, 2L, 7L }));
+        // What SaleRepository.searchByCustomerOrProductName returns for the same rows
+        when(saleRepository.searchByCustomerOrProductName(eq("panadol"), any(), any(Pageable.class))).thenReturn(Arrays.asList(
+                new SaleSummaryDTO(2L, "Mary Amos", LocalDate.of(2024, 2, 1), new BigDecimal("30.00"), 0),
+                new SaleSummaryDTO(1L, "Panadol Fan", LocalDate.of(2024, 1, 10), new BigDecimal("12.50"), 0),
+                new SaleSummaryDTO(3L, "Panadol Club", LocalDate.of(2024, 3, 1), new BigDecimal("9.00"), 1)));
+        when(userRepository.searchByFullName(eq("panadol"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(stockRepository.searchByProductName(eq("panadol"), any(), any(Pageable.class))).thenReturn(List.of());
+        when(supplierRepository.searchByName(eq("panadol"), any(), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        List<String> fromDatabase = results(searchService.search("panadol", null, 20, 10), "SALE");
+        GlobalSearchIndex index = new GlobalSearchIndex(productRepository, supplierRepository, userRepository,
+                saleRepository, stockRepository, true);
+        index.build();
+        ReflectionTestUtils.setField(searchService, "globalSearchIndex", index);
+        List<String> fromIndex = results(searchService.search("panadol", null, 20, 10), "SALE");
+
+        // Assert
+        assertEquals(Arrays.asList("2 Mary Amos / Total: 30.00", "1 Panadol Fan / Total: 12.50",
+                "3 Panadol Club / Total: 9.00"),
+                fromIndex.stream().map(result -> result.substring(0, result.indexOf(" @"))).toList());
+        assertEquals(fromDatabase, fromIndex);
+    }
+
+    @Test
+    void testSearch_ProductAndStockResultsAgreeBetweenIndexAndDatabase() {
+        // Arrange: "paracetamol" starts a word of products 1, 2, 4 and 5 but not of "Co-Paracetamol"
+        Product paracetamol = product(1L, "Paracetamol 500mg", "Paracetamol");
+        Product panadol = product(2L, "Panadol", "Paracetamol");
+        Product ibuprofenAndParacetamol = product(4L, "Ibuprofen and Paracetamol", null);
+        when(productRepository.findSearchIndexRows()).thenReturn(Arrays.asList(
+                new Object[] { 1L, "Paracetamol 500mg", "Paracetamol" },
+                new Object[] { 2L, "Panadol", "Paracetamol" },
+                new Object[] { 3L, "Co-Paracetamol", null },
+                new Object[] { 4L, "Ibuprofen and Paracetamol", null },
+                new Object[] { 5L, "Paracetamol Extra", "Paracetamol, Caffeine" }));
+        when(stockRepository.findSearchIndexRows()).thenReturn(Arrays.asList(
+                new Object[] { 10L, 1L, 40 },
+                new Object[] { 11L, 2L, 5 },
+                new Object[] { 12L, 3L, 7 },
+                new Object[] { 13L, 4L, 9 },
+                new Object[] { 14L, 2L, 12 }));
+        // What the repositories return for the same rows: exact, prefix, then later-word matches
+        when(productRepository.searchByNameOrGenericName(eq("paracetamol"), eq("% paracetamol%"), any(Pageable.class)))
+                .thenReturn(Arrays.asList(panadol, paracetamol, product(5L, "Paracetamol Extra", "Paracetamol, Caffeine"),
+                        ibuprofenAndParacetamol));
+        when(stockRepository.searchByProductName(eq("paracetamol"), eq("% paracetamol%"), any(Pageable.class)))
+                .thenReturn(Arrays.asList(stock(11L, panadol, 5), stock(14L, panadol, 12), stock(10L, paracetamol, 40),
+                        stock(13L, ibuprofenAndParacetamol, 9)));
+
+        // Act
+        SearchResponseDTO databaseResponse = searchService.search("paracetamol", null, 20, 10);
+        GlobalSearchIndex index = new GlobalSearchIndex(productRepository, supplierRepository, userRepository,
+                saleRepository, stockRepository, true);
+        index.build();
+        ReflectionTestUtils.setField(searchService, "globalSearchIndex", index);
+        SearchResponseDTO indexResponse = searchService.search("paracetamol", null, 20, 10);
+
+        // Assert
+        assertEquals(Arrays.asList("2", "1", "5", "4"), results(indexResponse, "PRODUCT").stream()
+                .map(result -> result.substring(0, result.indexOf(' '))).toList());
+        assertEquals(Arrays.asList("11", "14", "10", "13"), results(indexResponse, "STOCK").stream()
+                .map(result -> result.substring(0, result.indexOf(' '))).toList());
+        assertEquals(results(databaseResponse, "PRODUCT"), results(indexResponse, "PRODUCT"));
+        assertEquals(results(databaseResponse, "STOCK"), results(indexResponse, "STOCK"));
+    }
+
+    @Test
+    void testWordStartPattern_EveryWordStartsAWordInOrder() {
+        // Act & Assert
+        assertEquals("% paracetamol%", SearchService.wordStartPattern("Paracetamol"));
+        assertEquals("% co-para% 50\\%%", SearchService.wordStartPattern("  Co-Para   50% "));
+        assertEquals("% a\\_b%", SearchService.wordStartPattern("a_b"));
+    }
+
+    private static Product product(Long id, String name, String genericName) {
+        Product product = new Product();
+        product.setProductId(id);
+        product.setName(name);
+        product.setGenericName(genericName);
+        return product;
+    }
+
+    private static Stock stock(Long id, Product product, int quantity) {
+        Stock stock = new Stock();
+        stock.setStockId(id);
+        stock.setProduct(product);
+        stock.setQuantity(quantity);
+        return stock;
+    }
+
+    // Everything a result of the given type shows, plus its score so the two paths also rank alike
+    private static List<String> results(SearchResponseDTO response, String type) {
+        return response.getResults().stream()
+                .filter(result -> type.equals(result.getType()))
+                .map(result -> result.getId() + " " + result.getTitle() + " / " + result.getDescription()
+                        + " @" + result.getScore())
+                .toList();
+    }
+}
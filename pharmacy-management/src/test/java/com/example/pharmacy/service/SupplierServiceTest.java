@@ -0,0 +1,86 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.entity.Supplier;
+import com.example.pharmacy.repository.ProductRepository;
+import com.example.pharmacy.repository.SupplierRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SupplierService
+ * Tests that deleting a supplier never touches its (soft-deleted) products
+ */
+@ExtendWith(MockitoExtension.class)
+class SupplierServiceTest {
+
+    @Mock
+    private SupplierRepository supplierRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @InjectMocks
+    private SupplierService supplierService;
+
+    private Supplier supplier;
+
+    @BeforeEach
+    void setUp() {
+        supplier = new Supplier();
+        supplier.setSupplierId(4L);
+        supplier.setName("MedSupply");
+    }
+
+    @Test
+    void testDeleteSupplier_RefusedWhileProductsActive() {
+        // Arrange
+        when(supplierRepository.findById(4L)).thenReturn(Optional.of(supplier));
+        when(productRepository.countBySupplier_SupplierIdAndActiveTrue(4L)).thenReturn(2L);
+
+        // Act
+        RuntimeException error = assertThrows(RuntimeException.class, () -> supplierService.deleteSupplier(4L));
+
+        // Assert
+        assertTrue(error.getMessage().contains("2 active products"));
+        verify(supplierRepository, never()).delete(any());
+    }
+
+    @Test
+    void testDeleteSupplier_RefusedWhileDiscontinuedProductsReferenceIt() {
+        // Arrange
+        when(supplierRepository.findById(4L)).thenReturn(Optional.of(supplier));
+        when(productRepository.countBySupplier_SupplierIdAndActiveTrue(4L)).thenReturn(0L);
+        when(productRepository.existsBySupplier_SupplierId(4L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> supplierService.deleteSupplier(4L));
+        verify(supplierRepository, never()).delete(any());
+    }
+
+    @Test
+    void testDeleteSupplier_UnusedSupplierDeleted() {
+        // Arrange
+        when(supplierRepository.findById(4L)).thenReturn(Optional.of(supplier));
+        when(productRepository.countBySupplier_SupplierIdAndActiveTrue(4L)).thenReturn(0L);
+        when(productRepository.existsBySupplier_SupplierId(4L)).thenReturn(false);
+
+        // Act
+        supplierService.deleteSupplier(4L);
+
+        // Assert
+        verify(supplierRepository).delete(supplier);
+    }
+}
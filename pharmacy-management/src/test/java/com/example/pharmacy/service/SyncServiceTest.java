@@ -0,0 +1,98 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.dto.ProductDTO;
+import com.example.pharmacy.dto.SyncResponseDTO;
+import com.example.pharmacy.entity.SyncTombstone;
+import com.example.pharmacy.repository.ProductRepository;
+import com.example.pharmacy.repository.StockRepository;
+import com.example.pharmacy.repository.SupplierRepository;
+import com.example.pharmacy.repository.SyncTombstoneRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SyncService
+ * Tests version windows and tombstone grouping
+ */
+@ExtendWith(MockitoExtension.class)
+class SyncServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private SupplierRepository supplierRepository;
+
+    @Mock
+    private SyncTombstoneRepository tombstoneRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private SyncService syncService;
+
+    @Test
+    void testGetChangesSince_ReturnsWindowUpToStableVersion() {
+        // Arrange
+        when(tombstoneRepository.findStableVersion()).thenReturn(900L);
+        when(productRepository.findChangedAsDTO(500L, 900L)).thenReturn(List.of(
+                new ProductDTO(1L, "Aspirin", null, null, "100mg", new BigDecimal("2.00"), 7L, "Acme")));
+        when(stockRepository.findChangedAsDTO(500L, 900L)).thenReturn(List.of());
+        when(supplierRepository.findChangedAsDTO(500L, 900L)).thenReturn(List.of());
+        when(productRepository.findChangedInactiveIds(500L, 900L)).thenReturn(List.of(3L));
+        when(stockRepository.findChangedInactiveIds(500L, 900L)).thenReturn(List.of(13L));
+        when(tombstoneRepository.findChanged(500L, 900L)).thenReturn(Arrays.asList(
+                new SyncTombstone(SyncService.TYPE_PRODUCT, 2L, 610L),
+                new SyncTombstone(SyncService.TYPE_STOCK, 11L, 620L),
+                new SyncTombstone(SyncService.TYPE_STOCK, 12L, 620L)));
+
+        // Act
+        SyncResponseDTO response = syncService.getChangesSince(500L);
+
+        // Assert
+        assertEquals(900L, response.getVersion());
+        assertEquals(1, response.getProducts().size());
+        assertEquals(Arrays.asList(3L, 2L), response.getDeletedProductIds());
+        // Batches of discontinued product 3 go out as deletions too
+        assertEquals(Arrays.asList(13L, 11L, 12L), response.getDeletedStockIds());
+        assertTrue(response.getDeletedSupplierIds().isEmpty());
+    }
+
+    @Test
+    void testGetChangesSince_UpToDateTerminalSkipsQueries() {
+        // Arrange
+        when(tombstoneRepository.findStableVersion()).thenReturn(900L);
+
+        // Act
+        SyncResponseDTO response = syncService.getChangesSince(900L);
+
+        // Assert
+        assertEquals(900L, response.getVersion());
+        assertTrue(response.getProducts().isEmpty());
+        verify(productRepository, never()).findChangedAsDTO(anyLong(), anyLong());
+        verify(tombstoneRepository, never()).findChanged(anyLong(), anyLong());
+    }
+
+    @Test
+    void testGetChangesSince_NegativeVersionRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> syncService.getChangesSince(-1L));
+        verifyNoInteractions(tombstoneRepository);
+    }
+}
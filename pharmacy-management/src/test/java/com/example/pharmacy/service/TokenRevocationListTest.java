@@ -0,0 +1,179 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.entity.RevokedToken;
+import com.example.pharmacy.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenRevocationList
+ * Tests the in-memory fast path, table confirmation of filter hits, user-wide revocation and cross-node sync
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    @Mock
+    private RevokedTokenRepository repository;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList(repository, 900_000, 1000, 0.01, 100);
+    }
+
+    private static Claims claims(String jti, long userId, Date issuedAt) {
+        Claims claims = Jwts.claims();
+        claims.setId(jti);
+        claims.setIssuedAt(issuedAt);
+        claims.put("id", userId);
+        return claims;
+    }
+
+    @Test
+    void testIsRevoked_UnrevokedTokenNeverQueriesTable() {
+        // Act
+        boolean revoked = revocationList.isRevoked(claims("abc", 1L, new Date()));
+
+        // Assert
+        assertFalse(revoked);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testRevokeToken_RevokedTokenConfirmedByTable() {
+        // Arrange
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        when(repository.save(saved.capture())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repository.findLatestRevocation(eq("jti:abc"), any())).thenReturn(LocalDateTime.now());
+        Date expiresAt = new Date(System.currentTimeMillis() + 60_000);
+
+        // Act
+        revocationList.revokeToken("abc", expiresAt);
+        boolean revoked = revocationList.isRevoked(claims("abc", 1L, new Date()));
+        boolean other = revocationList.isRevoked(claims("def", 1L, new Date()));
+
+        // Assert
+        assertTrue(revoked);
+        assertFalse(other);
+        assertEquals("jti:abc", saved.getValue().getTokenKey());
+        assertEquals(1, revocationList.getConfirmedCount());
+    }
+
+    @Test
+    void testRevokeToken_ExpiredTokenNotRecorded() {
+        // Act
+        revocationList.revokeToken("abc", new Date(System.currentTimeMillis() - 1000));
+
+        // Assert
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testRevokeUser_OnlyTokensIssuedBeforeRevocation() {
+        // Arrange
+        when(repository.save(any(RevokedToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LocalDateTime revokedAt = LocalDateTime.now().withNano(0);
+        when(repository.findLatestRevocation(eq("user:7"), any())).thenReturn(revokedAt);
+        long revokedAtMs = revokedAt.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        // Act
+        revocationList.revokeUser(7L);
+        boolean before = revocationList.isRevoked(claims("old", 7L, new Date(revokedAtMs - 5000)));
+        boolean after = revocationList.isRevoked(claims("new", 7L, new Date(revokedAtMs + 1000)));
+
+        // Assert
+        assertTrue(before);
+        assertFalse(after);
+    }
+
+    @Test
+    void testRevokeUser_TokenIssuedInTheSecondOfRevocation() {
+        // Arrange
+        LocalDateTime revokedAt = LocalDateTime.now().withNano(700_000_000);
+        when(repository.findLatestRevocation(eq("user:7"), any())).thenReturn(revokedAt);
+        when(repository.deleteExpiredBatch(any(), anyInt())).thenReturn(0);
+        when(repository.findLiveKeys(any())).thenReturn(List.of("user:7"));
+        revocationList.rebuild();
+        // Issued at .400, just before the revocation; iat only keeps the second
+        long issuedAtMs = revokedAt.withNano(0).atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        // Act
+        boolean revoked = revocationList.isRevoked(claims("same-second", 7L, new Date(issuedAtMs)));
+
+        // Assert
+        assertTrue(revoked);
+    }
+
+    @Test
+    void testSync_PicksUpRevocationsFromOtherNodes() {
+        // Arrange
+        when(repository.deleteExpiredBatch(any(), anyInt())).thenReturn(0);
+        when(repository.findLiveKeys(any())).thenReturn(List.of());
+        when(repository.findKeysRevokedSince(any())).thenReturn(List.of("jti:remote"));
+        when(repository.findLatestRevocation(eq("jti:remote"), any())).thenReturn(LocalDateTime.now());
+        revocationList.rebuild();
+        assertFalse(revocationList.isRevoked(claims("remote", 1L, new Date())));
+
+        // Act
+        revocationList.sync();
+
+        // Assert
+        assertTrue(revocationList.isRevoked(claims("remote", 1L, new Date())));
+    }
+
+    @Test
+    void testRebuild_PurgesExpiredRowsAndReloadsLiveKeys() {
+        // Arrange
+        when(repository.deleteExpiredBatch(any(), eq(100))).thenReturn(100, 3);
+        when(repository.findLiveKeys(any())).thenReturn(List.of("user:3"));
+        when(repository.findLatestRevocation(eq("user:3"), any())).thenReturn(LocalDateTime.now().plusSeconds(5));
+
+        // Act
+        revocationList.rebuild();
+        boolean revoked = revocationList.isRevoked(claims("x", 3L, new Date()));
+
+        // Assert
+        verify(repository, times(2)).deleteExpiredBatch(any(), eq(100));
+        assertTrue(revoked);
+    }
+
+    @Test
+    void testBloomFilter_NoFalseNegativesAndLowFalsePositiveRate() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti:" + i);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain("jti:" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("jti:" + i));
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+}
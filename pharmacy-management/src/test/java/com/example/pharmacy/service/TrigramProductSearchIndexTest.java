@@ -0,0 +1,126 @@
+package com.example.pharmacy.service;
+
+import com.example.pharmacy.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TrigramProductSearchIndex
+ * Tests substring matching, ranking and incremental maintenance
+ */
+class TrigramProductSearchIndexTest {
+
+    private TrigramProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramProductSearchIndex();
+        index.onCatalogLoaded(Arrays.asList(
+                product(1L, "Amoxicillin 500mg"),
+                product(2L, "Amoxicillin"),
+                product(3L, "Paracetamol"),
+                product(4L, "Co-Amoxiclav")));
+    }
+
+    @Test
+    void testSearch_MatchesSubstringIgnoringCase() {
+        // Act
+        List<Long> ids = ids(index.search("MOXI", 10));
+
+        // Assert
+        assertEquals(3, ids.size());
+        assertTrue(ids.containsAll(Arrays.asList(1L, 2L, 4L)));
+    }
+
+    @Test
+    void testSearch_RanksTighterNamesFirst() {
+        // Act
+        List<Long> ids = ids(index.search("amoxicillin", 10));
+
+        // Assert
+        assertEquals(Arrays.asList(2L, 1L), ids);
+    }
+
+    @Test
+    void testSearch_RejectsGramsOutOfOrder() {
+        // Arrange: every gram of "cabc" occurs in "abcab", but "cabc" is not a substring of it
+        index.onProductUpserted(product(5L, "abcab"));
+
+        // Act & Assert
+        assertTrue(index.search("cabc", 10).isEmpty());
+        assertEquals(Arrays.asList(5L), ids(index.search("bca", 10)));
+    }
+
+    @Test
+    void testSearch_ShortQueryReadsShortGramPostings() {
+        // Act
+        List<Long> ids = ids(index.search("ol", 10));
+
+        // Assert
+        assertEquals(Arrays.asList(3L), ids);
+        assertEquals(Arrays.asList(4L), ids(index.search("-", 10)));
+        assertTrue(index.search("zz", 10).isEmpty());
+    }
+
+    @Test
+    void testSearch_ShortQueryFollowsIncrementalUpdates() {
+        // Act
+        index.onProductUpserted(product(3L, "Ibuprofen"));
+        index.onProductUpserted(product(5L, "Zinc"));
+
+        // Assert
+        assertTrue(index.search("ol", 10).isEmpty());
+        assertEquals(Arrays.asList(5L), ids(index.search("z", 10)));
+        assertEquals(Arrays.asList(3L), ids(index.search("bu", 10)));
+    }
+
+    @Test
+    void testSearch_RespectsLimit() {
+        // Act & Assert
+        assertEquals(1, index.search("amox", 1).size());
+    }
+
+    @Test
+    void testUpsertAndRemove_UpdateIndexIncrementally() {
+        // Act
+        index.onProductUpserted(product(3L, "Panadol"));
+        index.onProductRemoved(2L);
+
+        // Assert
+        assertTrue(index.search("paracetamol", 10).isEmpty());
+        assertEquals(Arrays.asList(3L), ids(index.search("panad", 10)));
+        assertFalse(ids(index.search("amoxicillin", 10)).contains(2L));
+    }
+
+    @Test
+    void testSearch_LargeCatalogFindsSingleMatch() {
+        // Arrange
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            products.add(product(id, "Product " + id + " tablets"));
+        }
+        index.onCatalogLoaded(products);
+
+        // Act
+        List<ProductSearchIndex.Hit> hits = index.search("99999 tab", 10);
+
+        // Assert
+        assertEquals(Arrays.asList(99_999L), ids(hits));
+    }
+
+    private static List<Long> ids(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(ProductSearchIndex.Hit::getProductId).collect(Collectors.toList());
+    }
+
+    private static ProductDTO product(Long id, String name) {
+        return new ProductDTO(id, name, null, null, null, BigDecimal.ONE, 1L, "Supplier");
+    }
+}
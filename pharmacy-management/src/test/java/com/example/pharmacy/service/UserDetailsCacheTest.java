@@ -0,0 +1,84 @@
+package com.example.pharmacy.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserDetailsCache
+ * Tests TTL caching, invalidation and token staleness checks
+ */
+class UserDetailsCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, UserDetailsImpl> loader = email -> {
+        loads.incrementAndGet();
+        return new UserDetailsImpl(1L, "pharmacist", email, "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_PHARMACIST")), "Test User", "1234567890", true);
+    };
+
+    @Test
+    void testGet_ServesRepeatLookupsFromMemoryUntilInvalidated() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(60000, 100, 86400000);
+
+        // Act
+        cache.get("test@example.com", loader);
+        cache.get("test@example.com", loader);
+        cache.invalidate(1L, "test@example.com");
+        UserDetailsImpl reloaded = cache.get("test@example.com", loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(1L, reloaded.getId());
+    }
+
+    @Test
+    void testGet_ExpiredEntryReloaded() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(0, 100, 86400000);
+
+        // Act
+        cache.get("test@example.com", loader);
+        cache.get("test@example.com", loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testIsStale_OnlyTokensIssuedBeforeTheChange() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(60000, 100, 86400000);
+        long issuedBefore = System.currentTimeMillis() - 5000;
+
+        // Act
+        cache.invalidate(1L, "test@example.com");
+
+        // Assert
+        assertTrue(cache.isStale(1L, issuedBefore));
+        assertFalse(cache.isStale(1L, System.currentTimeMillis() + 1000));
+        assertFalse(cache.isStale(2L, issuedBefore));
+    }
+
+    @Test
+    void testIsStale_TokenIssuedInTheSecondOfTheChange() {
+        // Arrange: iat carries whole seconds, so this token may predate the change by up to 999 ms
+        UserDetailsCache cache = new UserDetailsCache(60000, 100, 86400000);
+        long sameSecondIat = System.currentTimeMillis() / 1000 * 1000;
+
+        // Act
+        cache.invalidate(1L, "test@example.com");
+        long nextSecondIat = (System.currentTimeMillis() / 1000 + 1) * 1000;
+
+        // Assert
+        assertTrue(cache.isStale(1L, sameSecondIat));
+        assertFalse(cache.isStale(1L, nextSecondIat));
+    }
+}
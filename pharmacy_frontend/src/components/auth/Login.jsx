@@ -46,14 +46,14 @@ const Login = () => {
         headers: { 'Authorization': undefined }
       });
       console.log('Full OTP response:', response);
-      const { token, roles, user } = response.data;
+      const { token, refreshToken, roles, user } = response.data;
       const role = roles?.[0]?.authority === 'ROLE_PHARMACIST' ? 'pharmacist' : 'staff';
       console.log('Computed role:', role);
       if (!token) {
         throw new Error('No token received from server');
       }
       localStorage.setItem('token', token);
-      setUser({ role, name: user.fullName, token });
+      setUser({ role, name: user.fullName, token, refreshToken });
       navigate(role === 'pharmacist' ? '/' : '/staff', { replace: true });
     } catch (err) {
       console.error('OTP error:', err);
@@ -3,7 +3,7 @@ import { useNavigate } from 'react-router-dom';
 import { useSearch } from '../../context/SearchContext';
 
 const SearchResults = () => {
-  const { searchResults, showResults, isSearching, error } = useSearch();
+  const { searchResults, isPartial, showResults, isSearching, error } = useSearch();
   const navigate = useNavigate();
 
   const getIcon = (type) => {
@@ -57,6 +57,9 @@ const SearchResults = () => {
               </div>
             </div>
           ))}
+          {isPartial && (
+            <div className="px-4 py-2 text-xs text-gray-400">Some sources were slow; results may be incomplete</div>
+          )}
         </div>
       )}
     </div>
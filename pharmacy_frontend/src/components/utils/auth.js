@@ -1,4 +1,6 @@
 // src/utils/auth.js
+import axios from 'axios';
+
 export const getCurrentUser = () => {
   const user = localStorage.getItem('user');
   return user ? JSON.parse(user) : null;
@@ -22,4 +24,38 @@ export const isPharmacist = () => {
   const user = getCurrentUser();
   console.log('isPharmacist check - user:', user);
   return user && user.role === 'pharmacist';
-};
\ No newline at end of file
+};
+
+// Access tokens are short-lived; on a 401 the API clients trade the refresh token for a new pair.
+// Concurrent 401s share one refresh, since each refresh token can be used only once.
+let pendingRefresh = null;
+
+export const refreshSession = () => {
+  if (!pendingRefresh) {
+    pendingRefresh = doRefresh().finally(() => {
+      pendingRefresh = null;
+    });
+  }
+  return pendingRefresh;
+};
+
+const doRefresh = async () => {
+  const user = getCurrentUser();
+  if (!user || !user.refreshToken) {
+    throw new Error('No refresh token');
+  }
+  const baseURL = import.meta.env.VITE_API_URL || 'http://localhost:8082/api';
+  try {
+    const response = await axios.post(`${baseURL}/users/refresh`, { refreshToken: user.refreshToken });
+    const { token, refreshToken } = response.data;
+    const updated = { ...user, token, refreshToken };
+    setCurrentUser(updated);
+    localStorage.setItem('token', token);
+    window.dispatchEvent(new CustomEvent('auth:refreshed', { detail: updated }));
+    return token;
+  } catch (err) {
+    setCurrentUser(null);
+    localStorage.removeItem('token');
+    throw err;
+  }
+};
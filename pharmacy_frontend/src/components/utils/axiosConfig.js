@@ -1,6 +1,6 @@
 // src/utils/axiosConfig.js
 import axios from 'axios';
-import { getCurrentUser } from './auth';
+import { getCurrentUser, refreshSession } from './auth';
 
 const api = axios.create({
   baseURL: 'http://localhost:8082/',
@@ -18,4 +18,23 @@ api.interceptors.request.use(
   (error) => Promise.reject(error)
 );
 
+// On an expired access token, refresh once and replay the request
+api.interceptors.response.use(
+  (response) => response,
+  async (error) => {
+    const original = error.config;
+    if (error.response?.status === 401 && original && !original._retried && getCurrentUser()?.refreshToken) {
+      original._retried = true;
+      try {
+        const token = await refreshSession();
+        original.headers.Authorization = `Bearer ${token}`;
+        return api(original);
+      } catch {
+        window.location.href = '/login';
+      }
+    }
+    return Promise.reject(error);
+  }
+);
+
 export default api;
\ No newline at end of file
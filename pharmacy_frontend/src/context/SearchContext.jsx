@@ -7,6 +7,7 @@ const SearchContext = createContext();
 export const SearchProvider = ({ children }) => {
   const [searchQuery, setSearchQuery] = useState('');
   const [searchResults, setSearchResults] = useState([]);
+  const [isPartial, setIsPartial] = useState(false);
   const [isSearching, setIsSearching] = useState(false);
   const [showResults, setShowResults] = useState(false);
   const [error, setError] = useState('');
@@ -15,6 +16,7 @@ export const SearchProvider = ({ children }) => {
     debounce(async (query) => {
       if (!query.trim()) {
         setSearchResults([]);
+        setIsPartial(false);
         setShowResults(false);
         setError('');
         return;
@@ -23,12 +25,14 @@ export const SearchProvider = ({ children }) => {
       setIsSearching(true);
       try {
         const response = await api.get(`/search?query=${encodeURIComponent(query)}`);
-        setSearchResults(response.data);
+        setSearchResults(response.data.results || []);
+        setIsPartial(Boolean(response.data.partial));
         setShowResults(true);
         setError('');
       } catch (err) {
         console.error('Search error:', err);
         setSearchResults([]);
+        setIsPartial(false);
         setShowResults(false);
         setError(err.response?.data?.message || 'Failed to perform search');
       } finally {
@@ -41,6 +45,7 @@ export const SearchProvider = ({ children }) => {
   const clearSearch = useCallback(() => {
     setSearchQuery('');
     setSearchResults([]);
+    setIsPartial(false);
     setShowResults(false);
     setError('');
   }, []);
@@ -51,6 +56,7 @@ export const SearchProvider = ({ children }) => {
         searchQuery,
         setSearchQuery,
         searchResults,
+        isPartial,
         isSearching,
         showResults,
         setShowResults,
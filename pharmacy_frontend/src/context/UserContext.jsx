@@ -12,6 +12,13 @@ export const UserProvider = ({ children }) => {
     setStoredUser(user);
   }, [user]);
 
+  // The API clients rotate tokens on their own; keep the context in step so it doesn't write back stale ones
+  useEffect(() => {
+    const onRefreshed = (event) => setUser(event.detail);
+    window.addEventListener('auth:refreshed', onRefreshed);
+    return () => window.removeEventListener('auth:refreshed', onRefreshed);
+  }, []);
+
   const logout = () => {
     setUser(null);
     localStorage.removeItem('user');
@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { refreshSession } from '../components/utils/auth';
 
 // Use environment variable or default to localhost for development
 // In Docker, nginx will proxy /api to the backend service
@@ -26,9 +27,20 @@ api.interceptors.request.use(
 // Add a response interceptor to handle errors
 api.interceptors.response.use(
     (response) => response,
-    (error) => {
+    async (error) => {
+        const original = error.config;
         if (error.response && error.response.status === 401) {
-            // Handle unauthorized access
+            // Access tokens are short-lived: refresh once and replay before giving up
+            if (original && !original._retried) {
+                original._retried = true;
+                try {
+                    const token = await refreshSession();
+                    original.headers.Authorization = `Bearer ${token}`;
+                    return api(original);
+                } catch {
+                    // Refresh token missing, expired or revoked
+                }
+            }
             localStorage.removeItem('token');
             window.location.href = '/login';
         }